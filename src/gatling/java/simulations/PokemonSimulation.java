@@ -1,55 +1,186 @@
 package simulations;
 
 import io.gatling.javaapi.core.Simulation;
+import simulations.baseline.Baseline;
+import simulations.baseline.BaselineStore;
+import simulations.check.ResponseChecks;
 import simulations.config.TestConfig;
+import simulations.distributed.WorkerShard;
 import simulations.factory.HttpProtocolFactory;
+import simulations.factory.InjectionProfileFactory;
 import simulations.factory.ScenarioFactory;
+import simulations.metrics.CacheStatus;
+import simulations.metrics.ConnectionPhaseProbe;
+import simulations.metrics.CoordinatedOmission;
+import simulations.metrics.GeneratorHealth;
+import simulations.metrics.MetricsExporter;
+import simulations.metrics.OffsetCurve;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.metrics.RetryStats;
+import simulations.mix.TrafficMix;
+import simulations.retry.Retries;
 import simulations.strategy.TestType;
+import simulations.suite.SuiteRunner;
+import simulations.stub.PokeApiStubServer;
 
 import java.io.IOException;
+import java.nio.file.Path;
 
 public class PokemonSimulation extends Simulation {
 
     private static final String DEFAULT_TEST_TYPE = "load";
 
+    private PokeApiStubServer stubServer;
+    private TestType testType;
+    private ResponseChecks responseChecks;
+    private MetricsExporter metricsExporter;
+    private ConnectionPhaseProbe connectionProbe;
+    private GeneratorHealth generatorHealth;
+    private String configHash;
+    private boolean warmUp;
+    private long startNanos;
+
     {
         try {
             // Determine test type
             String testTypeName = System.getProperty("testType", DEFAULT_TEST_TYPE);
-            TestType testType = TestType.fromString(testTypeName);
+            testType = TestType.fromString(testTypeName);
 
             // Load configuration from the test type's config file (or override)
             String configFile = System.getProperty("configFile", testType.getConfigFile());
             TestConfig config = TestConfig.load(configFile);
+            configHash = BaselineStore.configHash(config);
+            warmUp = SuiteRunner.isWarmUp();
+            // Should this run fail, the regression gate must not judge an older one in its place
+            if (!warmUp && !WorkerShard.current().isWorker()) {
+                BaselineStore.started(testType.getName(), configHash);
+            }
+
+            // Point the run at the in-process stand-in server instead of the public API
+            if (PokeApiStubServer.isEnabled(config.getStub())) {
+                stubServer = PokeApiStubServer.start(config.getStub());
+                config.setHttp(config.getHttp().withBaseUrl(stubServer.getBaseUrl()));
+                config.setGraphql((config.getGraphql() == null ? new TestConfig.GraphQlConfig(null, null, null, null, null)
+                        : config.getGraphql()).withUrl(stubServer.getGraphqlUrl()));
+            }
+            if (System.getProperty("baseUrl") != null) {
+                config.setHttp(config.getHttp().withBaseUrl(System.getProperty("baseUrl")));
+            }
+
+            // Publish per-request latency while the run is in progress
+            if (!warmUp && MetricsExporter.isEnabled(config.getMetrics())) {
+                metricsExporter = MetricsExporter.start(config.getMetrics(), testType.getName());
+            }
+
+            // Watch the generator JVM itself, so its own stalls are not blamed on the target
+            if (!warmUp && GeneratorHealth.isEnabled(config.getGeneratorHealth())) {
+                generatorHealth = GeneratorHealth.start(config.getGeneratorHealth(), testType.getName());
+            }
 
             // Create HTTP protocol
             var httpProtocol = HttpProtocolFactory.create(config);
+            if (!warmUp && ConnectionPhaseProbe.isEnabled(config.getHttp().connectionProbe())) {
+                connectionProbe = ConnectionPhaseProbe.create(testType.getName(), config.getHttp());
+            }
 
             // Create scenarios
-            var getPokemonById = ScenarioFactory.createGetPokemonById();
-            var getPokemonByName = ScenarioFactory.createGetPokemonByName();
-            var listPokemon = ScenarioFactory.createListPokemon();
-            var getPokemonAbilities = ScenarioFactory.createGetPokemonAbilities();
-            var mixedOperations = ScenarioFactory.createMixedOperations();
-
-            // Build population using strategy
-            var population = testType.getStrategy().buildPopulation(
-                    getPokemonById,
-                    getPokemonByName,
-                    listPokemon,
-                    getPokemonAbilities,
-                    mixedOperations,
-                    config
-            );
-
-            // Setup simulation
-            var setUp = setUp(population).protocols(httpProtocol);
-
-            // Configure assertions using strategy
-            testType.getStrategy().configureAssertions(setUp, config);
+            CoordinatedOmission.configure(config.getCoordinatedOmission());
+            Retries.configure(config.getRetry());
+            responseChecks = ResponseChecks.from(config.getChecks());
+            var scenarios = ScenarioFactory.createAll(config, responseChecks);
+
+            if (warmUp) {
+                // A suite warm-up only exercises the scenarios, it is neither asserted nor reported
+                setUp(InjectionProfileFactory.warmUp(scenarios, config, SuiteRunner.warmUpSeconds(config.getWarmUp()),
+                        SuiteRunner.warmUpRate(config.getWarmUp()))).protocols(httpProtocol);
+            } else {
+                // Build population using strategy
+                var population = testType.getStrategy().buildPopulation(scenarios, config);
+
+                // Setup simulation
+                var setUp = setUp(population).protocols(httpProtocol);
+
+                // Configure assertions using strategy
+                testType.getStrategy().configureAssertions(setUp, config);
+            }
 
         } catch (IOException e) {
             throw new RuntimeException("Failed to load test configuration", e);
         }
     }
-}
\ No newline at end of file
+
+    @Override
+    public void before() {
+        try {
+            WorkerShard.current().awaitStart();
+            startNanos = System.nanoTime();
+            if (!warmUp && testType != null) {
+                testType.getStrategy().beforeSimulation();
+            }
+            if (connectionProbe != null) {
+                connectionProbe.start();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to join the distributed start barrier", e);
+        }
+    }
+
+    @Override
+    public void after() {
+        if (warmUp) {
+            if (stubServer != null) {
+                stubServer.stop();
+            }
+            return;
+        }
+        if (responseChecks != null) {
+            responseChecks.getCost().printSummary();
+        }
+        testType.getStrategy().afterSimulation();
+        if (connectionProbe != null) {
+            connectionProbe.stop();
+        }
+        if (metricsExporter != null) {
+            metricsExporter.stop();
+        }
+        if (generatorHealth != null) {
+            generatorHealth.stop();
+        }
+        CacheStatus.printSummary();
+        ResponseTimeRegistry.printSpans();
+        OffsetCurve.writeReports(testType.getName());
+        CoordinatedOmission.writeReport(testType.getName());
+        RetryStats.writeReport(testType.getName());
+        TrafficMix.writeReport(testType.getName());
+        if (stubServer != null) {
+            stubServer.stop();
+        }
+        double durationSeconds = (System.nanoTime() - startNanos) / 1e9;
+        WorkerShard shard = WorkerShard.current();
+        try {
+            shard.writeResult(durationSeconds);
+        } catch (IOException e) {
+            System.err.println("Failed to write worker result: " + e.getMessage());
+        }
+        // Distributed runs are recorded once by the coordinator from the merged worker results
+        if (!shard.isWorker()) {
+            recordBaseline(durationSeconds);
+        }
+    }
+
+    private void recordBaseline(double durationSeconds) {
+        try {
+            if (!BaselineStore.isEnabled()) {
+                BaselineStore.notRecorded(testType.getName(), configHash, "recording was disabled with -Dbaseline=false");
+            } else if (generatorHealth != null && generatorHealth.wasSaturated()) {
+                System.out.println("Baseline not recorded: the generator was saturated during the run");
+                BaselineStore.notRecorded(testType.getName(), configHash, "the generator was saturated during the run");
+            } else {
+                Path file = BaselineStore.save(Baseline.capture(testType.getName(), configHash, durationSeconds));
+                System.out.println("Baseline recorded in " + file.toAbsolutePath());
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to record baseline: " + e.getMessage());
+        }
+    }
+}
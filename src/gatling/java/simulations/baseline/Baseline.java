@@ -0,0 +1,83 @@
+package simulations.baseline;
+
+import org.HdrHistogram.Histogram;
+import simulations.metrics.HistogramCodec;
+import simulations.metrics.ResponseTimeRegistry;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * The outcome of one run as kept in the {@link BaselineStore}: per request the response time
+ * histogram, the percentiles the regression gate judges and the achieved throughput.
+ */
+public record Baseline(
+        String testType,
+        String configHash,
+        String recordedAt,
+        double durationSeconds,
+        Map<String, RequestBaseline> requests
+) {
+
+    public static final String ALL_REQUESTS = "All Requests";
+
+    public record RequestBaseline(
+            long count,
+            long errors,
+            double throughput,
+            long percentile95,
+            long percentile99,
+            String histogram
+    ) {
+        public Histogram decode() {
+            return HistogramCodec.decode(histogram);
+        }
+    }
+
+    // Snapshot of this JVM's response time registry
+    public static Baseline capture(String testType, String configHash, double durationSeconds) {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        Map<String, Long> errors = new TreeMap<>();
+        ResponseTimeRegistry.entries().forEach((name, entry) -> {
+            histograms.put(name, entry.cumulative());
+            errors.put(name, entry.cumulativeErrors());
+        });
+        return of(testType, configHash, durationSeconds, histograms, errors);
+    }
+
+    public static Baseline of(String testType, String configHash, double durationSeconds,
+                              Map<String, Histogram> histograms, Map<String, Long> errors) {
+        Map<String, RequestBaseline> requests = new LinkedHashMap<>();
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+        Map<String, RequestBaseline> perRequest = new TreeMap<>();
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            long requestErrors = errors.getOrDefault(entry.getKey(), 0L);
+            if (!ResponseTimeRegistry.isBreakdown(entry.getKey())) {
+                all.add(histogram);
+                allErrors += requestErrors;
+            }
+            // Requests of scenarios that were built but never injected
+            if (histogram.getTotalCount() > 0) {
+                perRequest.put(entry.getKey(), request(histogram, requestErrors, durationSeconds));
+            }
+        }
+        requests.put(ALL_REQUESTS, request(all, allErrors, durationSeconds));
+        requests.putAll(perRequest);
+        return new Baseline(testType, configHash, Instant.now().toString(), durationSeconds, requests);
+    }
+
+    private static RequestBaseline request(Histogram histogram, long errors, double durationSeconds) {
+        return new RequestBaseline(
+                histogram.getTotalCount(),
+                errors,
+                durationSeconds > 0 ? histogram.getTotalCount() / durationSeconds : 0,
+                histogram.getValueAtPercentile(95),
+                histogram.getValueAtPercentile(99),
+                HistogramCodec.encode(histogram)
+        );
+    }
+}
@@ -0,0 +1,151 @@
+package simulations.baseline;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Run results kept across builds, one JSON file per run under
+ * {@code <baselineDir>/<testType>/<configHash>/}. Only runs of the same test type and the same
+ * load shape are ever compared, so the directory of a config hash is one comparable series.
+ * <p>
+ * The store lives outside {@code build/} (default {@code baselines/}, {@code -DbaselineDir}) so that
+ * {@code gradle clean} keeps the history.
+ * <p>
+ * Each series also keeps a marker of its latest run, cleared when a run starts and written when it
+ * ends with the run's file or the reason it was not recorded. A run that dies halfway leaves no
+ * marker, so the regression gate never mistakes an older run for it.
+ */
+public final class BaselineStore {
+
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    // Canonical form for hashing: independent of field and map key order in the config files
+    private static final ObjectMapper CANONICAL = new ObjectMapper()
+            .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS);
+    // Run switches that change what is measured and therefore the series a run belongs to
+    private static final List<String> HASHED_PROPERTIES = List.of("stub", "stubProfile", "checkMode", "baseUrl", "workers", "connectionProfile",
+            "retry");
+    // Config blocks that only change how results are published
+    private static final List<String> UNHASHED_BLOCKS = List.of("metrics", "regression", "coordinatedOmission",
+            "generatorHealth", "warmUp");
+    // Oldest runs beyond this many per series are deleted
+    private static final int RETAINED_RUNS = 50;
+    // Not a .json file, so it is never taken for a run
+    private static final String LAST_RUN = "last-run";
+
+    // How the latest run of a series ended: the file of its baseline, or why it has none
+    public record LastRun(String file, String notRecorded) {}
+
+    private BaselineStore() {
+    }
+
+    public static boolean isEnabled() {
+        return !"false".equalsIgnoreCase(System.getProperty("baseline"));
+    }
+
+    public static Path root() {
+        return Path.of(System.getProperty("baselineDir", "baselines"));
+    }
+
+    // Hash of the config as loaded, before the stub or -DbaseUrl rewrite the target
+    public static String configHash(TestConfig config) {
+        ObjectNode tree = CANONICAL.valueToTree(config);
+        UNHASHED_BLOCKS.forEach(tree::remove);
+        if (tree.get("http") instanceof ObjectNode http) {
+            http.remove("connectionProbe");
+        }
+        TreeMap<String, String> properties = new TreeMap<>();
+        for (String name : HASHED_PROPERTIES) {
+            if (System.getProperty(name) != null) {
+                properties.put(name, System.getProperty(name));
+            }
+        }
+        tree.set("properties", CANONICAL.valueToTree(properties));
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] hash = digest.digest(CANONICAL.writeValueAsString(tree).getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(hash, 0, 6);
+        } catch (IOException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash test config", e);
+        }
+    }
+
+    public static Path save(Baseline baseline) throws IOException {
+        Path series = series(baseline.testType(), baseline.configHash());
+        Files.createDirectories(series);
+        Path file = series.resolve(LocalDateTime.now().format(TIMESTAMP) + ".json");
+        MAPPER.writeValue(file.toFile(), baseline);
+
+        List<Path> runs = runs(series);
+        for (int i = 0; i < runs.size() - RETAINED_RUNS; i++) {
+            Files.delete(runs.get(i));
+        }
+        writeLastRun(series, new LastRun(file.getFileName().toString(), null));
+        return file;
+    }
+
+    // Called when a run starts, before anything can fail
+    public static void started(String testType, String configHash) throws IOException {
+        Files.deleteIfExists(series(testType, configHash).resolve(LAST_RUN));
+    }
+
+    // Called when a run ends without recording a baseline
+    public static void notRecorded(String testType, String configHash, String reason) throws IOException {
+        Path series = series(testType, configHash);
+        Files.createDirectories(series);
+        writeLastRun(series, new LastRun(null, reason));
+    }
+
+    // Null when no run ended since the last one started
+    public static LastRun lastRun(String testType, String configHash) throws IOException {
+        Path marker = series(testType, configHash).resolve(LAST_RUN);
+        return Files.exists(marker) ? MAPPER.readValue(marker.toFile(), LastRun.class) : null;
+    }
+
+    // Oldest first, up to and including the run of the given file; empty when that run is gone
+    public static List<Baseline> history(String testType, String configHash, String lastFile) throws IOException {
+        List<Baseline> baselines = new ArrayList<>();
+        for (Path file : runs(series(testType, configHash))) {
+            baselines.add(MAPPER.readValue(file.toFile(), Baseline.class));
+            if (file.getFileName().toString().equals(lastFile)) {
+                return baselines;
+            }
+        }
+        return List.of();
+    }
+
+    private static void writeLastRun(Path series, LastRun lastRun) throws IOException {
+        MAPPER.writeValue(series.resolve(LAST_RUN).toFile(), lastRun);
+    }
+
+    private static Path series(String testType, String configHash) {
+        return root().resolve(testType).resolve(configHash);
+    }
+
+    private static List<Path> runs(Path series) throws IOException {
+        if (!Files.isDirectory(series)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(series)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".json"))
+                    .sorted()
+                    .toList();
+        }
+    }
+}
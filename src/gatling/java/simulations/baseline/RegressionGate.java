@@ -0,0 +1,183 @@
+package simulations.baseline;
+
+import simulations.config.TestConfig;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.report.Reports;
+import simulations.strategy.TestType;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Compares the run that just ended with the runs before it in the {@link BaselineStore} and exits
+ * non-zero when p95, p99 or throughput of any request got significantly worse. It also exits
+ * non-zero when that run recorded no baseline, e.g. because the generator was saturated or the run
+ * failed, rather than judging an older run in its place. Breakdown entries such as
+ * {@code "<request> [final]"} are judged only when {@code breakdowns} names their part.
+ * <p>
+ * A metric regresses when it is worse than the mean of the previous runs by more than
+ * {@code maxIncrease} (relative) and, for latencies, by at least {@code minDeltaMillis}. With three
+ * or more previous runs it must also lie more than {@code zScore} standard deviations from their
+ * mean, so that a metric which is noisy from run to run needs a larger shift to fail the gate.
+ */
+public class RegressionGate {
+
+    private static final TestConfig.RegressionConfig DEFAULTS = new TestConfig.RegressionConfig(5, 0.10, 3.0, 5, 100, List.of());
+
+    public record Finding(
+            String request,
+            String metric,
+            double current,
+            double baselineMean,
+            double baselineStdDev,
+            int baselines,
+            // Relative change in the worse direction, 0.25 = 25% worse
+            double change,
+            Double zScore,
+            boolean regressed
+    ) {}
+
+    public record Result(
+            String testType,
+            String configHash,
+            String currentRun,
+            int baselines,
+            boolean passed,
+            List<Finding> findings
+    ) {}
+
+    private record Metric(String name, boolean higherIsWorse, boolean latency, ToDoubleFunction<Baseline.RequestBaseline> value) {}
+
+    private static final List<Metric> METRICS = List.of(
+            new Metric("p95", true, true, Baseline.RequestBaseline::percentile95),
+            new Metric("p99", true, true, Baseline.RequestBaseline::percentile99),
+            new Metric("throughput", false, false, Baseline.RequestBaseline::throughput)
+    );
+
+    public static void main(String[] args) throws IOException {
+        TestType testType = TestType.fromString(System.getProperty("testType", TestType.LOAD.getName()));
+        TestConfig config = TestConfig.load(System.getProperty("configFile", testType.getConfigFile()));
+        String configHash = BaselineStore.configHash(config);
+
+        BaselineStore.LastRun lastRun = BaselineStore.lastRun(testType.getName(), configHash);
+        if (lastRun == null) {
+            System.err.printf("No %s run for config %s ended in %s; run the test before the gate%n",
+                    testType.getName(), configHash, BaselineStore.root().toAbsolutePath());
+            System.exit(1);
+        }
+        if (lastRun.file() == null) {
+            System.err.printf("The last %s run for config %s recorded no baseline: %s%n",
+                    testType.getName(), configHash, lastRun.notRecorded());
+            System.exit(1);
+        }
+        List<Baseline> history = BaselineStore.history(testType.getName(), configHash, lastRun.file());
+        if (history.isEmpty()) {
+            System.err.printf("The baseline %s of the last %s run is no longer in %s%n",
+                    lastRun.file(), testType.getName(), BaselineStore.root().toAbsolutePath());
+            System.exit(1);
+        }
+        if (history.size() == 1) {
+            System.out.printf("First %s run for config %s, it becomes the baseline of the next runs%n",
+                    testType.getName(), configHash);
+            return;
+        }
+
+        TestConfig.RegressionConfig settings = settings(config.getRegression());
+        Baseline current = history.get(history.size() - 1);
+        List<Baseline> previous = history.subList(Math.max(0, history.size() - 1 - settings.window()), history.size() - 1);
+        Result result = evaluate(current, previous, settings);
+        write(result);
+        if (!result.passed()) {
+            System.exit(1);
+        }
+    }
+
+    public static Result evaluate(Baseline current, List<Baseline> previous, TestConfig.RegressionConfig settings) {
+        List<Finding> findings = new ArrayList<>();
+        for (Map.Entry<String, Baseline.RequestBaseline> request : current.requests().entrySet()) {
+            if (request.getValue().count() < settings.minRequests() || !judged(request.getKey(), settings)) {
+                continue;
+            }
+            for (Metric metric : METRICS) {
+                double[] values = previous.stream()
+                        .map(baseline -> baseline.requests().get(request.getKey()))
+                        .filter(baseline -> baseline != null && baseline.count() >= settings.minRequests())
+                        .mapToDouble(metric.value())
+                        .toArray();
+                // Requests new in this run have nothing to regress from
+                if (values.length > 0) {
+                    findings.add(judge(request.getKey(), metric, metric.value().applyAsDouble(request.getValue()), values, settings));
+                }
+            }
+        }
+        boolean passed = findings.stream().noneMatch(Finding::regressed);
+        return new Result(current.testType(), current.configHash(), current.recordedAt(), previous.size(), passed, findings);
+    }
+
+    // Breakdowns split or re-measure a request that is judged already, so only the named ones count
+    private static boolean judged(String request, TestConfig.RegressionConfig settings) {
+        if (!ResponseTimeRegistry.isBreakdown(request)) {
+            return true;
+        }
+        String part = request.substring(request.lastIndexOf(" [") + 2, request.length() - 1);
+        return settings.breakdowns().contains(part);
+    }
+
+    private static Finding judge(String request, Metric metric, double current, double[] values, TestConfig.RegressionConfig settings) {
+        double mean = 0;
+        for (double value : values) {
+            mean += value;
+        }
+        mean /= values.length;
+        double variance = 0;
+        for (double value : values) {
+            variance += (value - mean) * (value - mean);
+        }
+        double stdDev = values.length > 1 ? Math.sqrt(variance / (values.length - 1)) : 0;
+
+        double worse = metric.higherIsWorse() ? current - mean : mean - current;
+        double change = mean > 0 ? worse / mean : 0;
+        // Too few runs for a meaningful spread, the relative margin decides alone
+        Double zScore = values.length >= 3 ? worse / Math.max(stdDev, 1e-9) : null;
+
+        boolean regressed = change > settings.maxIncrease()
+                && (!metric.latency() || worse >= settings.minDeltaMillis())
+                && (zScore == null || zScore > settings.zScore());
+        return new Finding(request, metric.name(), current, mean, stdDev, values.length, change, zScore, regressed);
+    }
+
+    private static TestConfig.RegressionConfig settings(TestConfig.RegressionConfig config) {
+        if (config == null) {
+            return DEFAULTS;
+        }
+        return new TestConfig.RegressionConfig(
+                config.window() == null ? DEFAULTS.window() : config.window(),
+                config.maxIncrease() == null ? DEFAULTS.maxIncrease() : config.maxIncrease(),
+                config.zScore() == null ? DEFAULTS.zScore() : config.zScore(),
+                config.minDeltaMillis() == null ? DEFAULTS.minDeltaMillis() : config.minDeltaMillis(),
+                config.minRequests() == null ? DEFAULTS.minRequests() : config.minRequests(),
+                config.breakdowns() == null ? DEFAULTS.breakdowns() : config.breakdowns()
+        );
+    }
+
+    private static void write(Result result) throws IOException {
+        System.out.printf("%nRegression gate for %s (config %s): last run against %d previous runs%n",
+                result.testType(), result.configHash(), result.baselines());
+        System.out.printf("%-32s %-10s %10s %10s %9s %8s %7s  %s%n",
+                "Request", "Metric", "Current", "Baseline", "StdDev", "Change", "z", "");
+        for (Finding finding : result.findings()) {
+            System.out.printf("%-32s %-10s %10.1f %10.1f %9.1f %+7.1f%% %7s  %s%n",
+                    finding.request(), finding.metric(), finding.current(), finding.baselineMean(),
+                    finding.baselineStdDev(), finding.change() * 100,
+                    finding.zScore() == null ? "-" : String.format("%.1f", finding.zScore()),
+                    finding.regressed() ? "REGRESSION" : "");
+        }
+        System.out.println(result.passed() ? "No significant regression" : "Significant regression detected");
+
+        Reports.writeJson(Reports.directory("baselines").resolve("regression-" + result.testType() + "-" + Reports.timestamp() + ".json"),
+                result, "regression report");
+    }
+}
@@ -0,0 +1,224 @@
+package simulations.breakpoint;
+
+import lombok.Getter;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import simulations.config.TestConfig;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Feedback loop behind the breakpoint test. Arrivals are injected at {@code maxRate} and thinned
+ * to the current target rate by {@link #admit()}, so the offered load stays open (independent of
+ * response times) while the controller steps it up, backs off after an SLO breach and bisects
+ * between the highest passing and lowest failing rate.
+ */
+public class BreakpointController {
+
+    public enum Phase { RAMPING, COOLDOWN, BISECTING, FINISHED }
+
+    public record Step(
+            long elapsedSeconds,
+            double rate,
+            long requests,
+            long errors,
+            double errorRate,
+            long percentile95,
+            long percentile99,
+            boolean passed
+    ) {}
+
+    private final TestConfig.BreakpointConfig config;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "breakpoint-controller");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Recorder recorder = new Recorder(3);
+    private final LongAdder successes = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final AtomicBoolean started = new AtomicBoolean();
+    private Histogram interval;
+
+    @Getter
+    private final List<Step> steps = new ArrayList<>();
+    @Getter
+    private volatile Phase phase = Phase.RAMPING;
+    @Getter
+    private volatile double currentRate;
+    @Getter
+    private volatile double highestPassingRate;
+    @Getter
+    private volatile double lowestFailingRate = Double.NaN;
+
+    private long startNanos;
+    private int thinSteps;
+
+    public BreakpointController(TestConfig.BreakpointConfig config) {
+        this.config = config;
+        this.currentRate = config.startRate();
+    }
+
+    public double getMaxRate() {
+        return config.maxRate();
+    }
+
+    public boolean admit() {
+        if (started.compareAndSet(false, true)) {
+            startNanos = System.nanoTime();
+            scheduler.schedule(this::evaluate, config.stepDuration(), TimeUnit.SECONDS);
+        }
+        if (phase == Phase.FINISHED) {
+            return false;
+        }
+        return ThreadLocalRandom.current().nextDouble() * config.maxRate() < currentRate;
+    }
+
+    public boolean isFinished() {
+        return phase == Phase.FINISHED;
+    }
+
+    public boolean isBelowAcceptableRate() {
+        return config.minAcceptableRate() != null && highestPassingRate < config.minAcceptableRate();
+    }
+
+    public void record(long responseTimeMillis, boolean ok) {
+        if (responseTimeMillis >= 0) {
+            recorder.recordValue(responseTimeMillis);
+        }
+        if (ok) {
+            successes.increment();
+        } else {
+            errors.increment();
+        }
+    }
+
+    public synchronized void complete() {
+        if (phase != Phase.FINISHED) {
+            finish("simulation ended before converging");
+        }
+        scheduler.shutdownNow();
+    }
+
+    // A scheduled task that throws is dropped silently, and the search would stall at its current
+    // rate until maxDuration, so a failed evaluation finishes the search instead
+    synchronized void evaluate() {
+        try {
+            evaluateStep();
+        } catch (RuntimeException e) {
+            System.err.println("Breakpoint evaluation failed: " + e);
+            if (phase != Phase.FINISHED) {
+                finish("evaluation failed: " + e);
+            }
+        }
+    }
+
+    private void evaluateStep() {
+        if (phase == Phase.FINISHED) {
+            return;
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - startNanos);
+        if (config.maxDuration() != null && elapsed >= config.maxDuration()) {
+            finish("max duration reached before converging");
+            return;
+        }
+
+        if (phase == Phase.COOLDOWN) {
+            // Discard whatever was recorded while the target recovered
+            drain();
+            phase = Phase.BISECTING;
+            currentRate = midpoint();
+            scheduleNext(config.stepDuration());
+            return;
+        }
+
+        long ok = successes.sumThenReset();
+        long ko = errors.sumThenReset();
+        long total = ok + ko;
+        int minSamples = config.minSamples() == null ? 0 : config.minSamples();
+        if (total < minSamples && ++thinSteps < 3) {
+            // Not enough samples to judge this rate yet: keep the counters and extend the step
+            successes.add(ok);
+            errors.add(ko);
+            scheduleNext(config.stepDuration());
+            return;
+        }
+        thinSteps = 0;
+
+        interval = recorder.getIntervalHistogram(interval);
+        long p95 = interval.getValueAtPercentile(95);
+        long p99 = interval.getValueAtPercentile(99);
+        double errorRate = total == 0 ? 0 : 100.0 * ko / total;
+        boolean passed = total > 0
+                && p95 <= config.maxPercentile95()
+                && p99 <= config.maxPercentile99()
+                && errorRate <= config.maxErrorRate();
+
+        Step step = new Step(elapsed, currentRate, total, ko, errorRate, p95, p99, passed);
+        steps.add(step);
+        System.out.printf("Breakpoint step [%s] rate=%.1f/s requests=%d p95=%dms p99=%dms errors=%.2f%% -> %s%n",
+                phase, currentRate, total, p95, p99, errorRate, passed ? "PASS" : "FAIL");
+
+        if (passed) {
+            highestPassingRate = Math.max(highestPassingRate, currentRate);
+        } else {
+            lowestFailingRate = Double.isNaN(lowestFailingRate) ? currentRate : Math.min(lowestFailingRate, currentRate);
+        }
+
+        if (phase == Phase.RAMPING && passed) {
+            if (currentRate >= config.maxRate()) {
+                finish("max rate held without breaching the SLO");
+                return;
+            }
+            // The last step runs at maxRate itself, even when the steps do not land on it
+            currentRate = Math.min(currentRate + config.rateStep(), config.maxRate());
+            scheduleNext(config.stepDuration());
+            return;
+        }
+
+        if (!Double.isNaN(lowestFailingRate) && lowestFailingRate - highestPassingRate <= config.resolution()) {
+            finish("converged");
+            return;
+        }
+
+        if (passed) {
+            currentRate = midpoint();
+            phase = Phase.BISECTING;
+            scheduleNext(config.stepDuration());
+        } else {
+            // Back off to the last known good rate so the next probe starts from a recovered target
+            phase = Phase.COOLDOWN;
+            currentRate = highestPassingRate;
+            scheduleNext(config.cooldownDuration() == null ? 0 : config.cooldownDuration());
+        }
+    }
+
+    private double midpoint() {
+        return (highestPassingRate + lowestFailingRate) / 2;
+    }
+
+    private void drain() {
+        successes.reset();
+        errors.reset();
+        interval = recorder.getIntervalHistogram(interval);
+    }
+
+    private void scheduleNext(long delaySeconds) {
+        scheduler.schedule(this::evaluate, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    private void finish(String reason) {
+        phase = Phase.FINISHED;
+        BreakpointReport.write(this, reason);
+        scheduler.shutdown();
+    }
+}
@@ -0,0 +1,32 @@
+package simulations.breakpoint;
+
+import simulations.report.Reports;
+
+import java.util.List;
+
+public class BreakpointReport {
+
+    public record Result(
+            String outcome,
+            double highestPassingRate,
+            Double lowestFailingRate,
+            List<BreakpointController.Step> steps
+    ) {}
+
+    public static void write(BreakpointController controller, String outcome) {
+        double failing = controller.getLowestFailingRate();
+        Result result = new Result(
+                outcome,
+                controller.getHighestPassingRate(),
+                Double.isNaN(failing) ? null : failing,
+                List.copyOf(controller.getSteps())
+        );
+
+        System.out.printf("Breakpoint search finished (%s): highest sustainable rate %.1f users/sec%s%n",
+                outcome,
+                result.highestPassingRate(),
+                result.lowestFailingRate() == null ? "" : String.format(", SLO breached at %.1f", result.lowestFailingRate()));
+
+        Reports.write("breakpoint", "breakpoint-" + Reports.timestamp(), result, "breakpoint report");
+    }
+}
@@ -0,0 +1,93 @@
+package simulations.check;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Measures the CPU time and heap allocation the load generator spends inside response checks, so a
+ * run can show that its reported latencies are not inflated by the injector itself. Costs are kept
+ * per request, since a check on a large list page costs far more than one on a small document.
+ */
+public class CheckCostRecorder {
+
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    private record Cost(Histogram nanos, LongAdder allocatedBytes) {}
+
+    private final String mode;
+    private final Map<String, Cost> costs = new ConcurrentHashMap<>();
+
+    public CheckCostRecorder(String mode) {
+        this.mode = mode;
+    }
+
+    public <T, R> Function<T, R> timed(String requestKey, Function<T, R> check) {
+        Cost cost = costs.computeIfAbsent(requestKey, key -> new Cost(new ConcurrentHistogram(3), new LongAdder()));
+        return input -> {
+            long allocatedBefore = allocatedBytes();
+            long start = System.nanoTime();
+            try {
+                return check.apply(input);
+            } finally {
+                cost.nanos().recordValue(System.nanoTime() - start);
+                if (allocatedBefore >= 0) {
+                    cost.allocatedBytes().add(allocatedBytes() - allocatedBefore);
+                }
+            }
+        };
+    }
+
+    public void printSummary() {
+        Histogram all = new Histogram(3);
+        long allAllocated = 0;
+        Map<String, Cost> recorded = new TreeMap<>();
+        for (Map.Entry<String, Cost> cost : costs.entrySet()) {
+            if (cost.getValue().nanos().getTotalCount() > 0) {
+                recorded.put(cost.getKey(), cost.getValue());
+                all.add(cost.getValue().nanos());
+                allAllocated += cost.getValue().allocatedBytes().sum();
+            }
+        }
+        if (recorded.isEmpty()) {
+            System.out.println("Response check cost (" + mode + "): no checks recorded");
+            return;
+        }
+        System.out.printf("%nResponse check cost (%s), per check (us)%n", mode);
+        System.out.printf("%-32s %8s %9s %9s %9s %9s %12s%n", "Request", "Checks", "Mean", "p99", "Max", "Total ms", "B/check");
+        row("All Requests", all, allAllocated);
+        recorded.forEach((request, cost) -> row(request, cost.nanos(), cost.allocatedBytes().sum()));
+    }
+
+    private static void row(String request, Histogram nanos, long allocated) {
+        long count = nanos.getTotalCount();
+        System.out.printf("%-32s %8d %9.1f %9.1f %9.1f %9d %12s%n",
+                request,
+                count,
+                nanos.getMean() / 1_000,
+                nanos.getValueAtPercentile(99) / 1_000.0,
+                nanos.getMaxValue() / 1_000.0,
+                TimeUnit.NANOSECONDS.toMillis((long) (nanos.getMean() * count)),
+                THREADS == null ? "n/a" : String.valueOf(allocated / count));
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean bean
+                && bean.isThreadAllocatedMemorySupported()) {
+            bean.setThreadAllocatedMemoryEnabled(true);
+            return bean;
+        }
+        return null;
+    }
+}
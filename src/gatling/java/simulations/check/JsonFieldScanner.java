@@ -0,0 +1,41 @@
+package simulations.check;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Pull-parses a JSON object looking for one top-level field. Sibling values are skipped without
+ * building a tree and parsing stops as soon as the field is found, so an early field in a large
+ * document costs a few hundred bytes of tokenizing rather than a full parse.
+ */
+public final class JsonFieldScanner {
+
+    // Marker for object or array values: the field exists but has no scalar text
+    public static final String STRUCTURE = "<structure>";
+
+    private static final JsonFactory FACTORY = JsonFactory.builder().build();
+
+    private JsonFieldScanner() {
+    }
+
+    public static String find(InputStream body, String field) throws IOException {
+        try (JsonParser parser = FACTORY.createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                boolean match = field.equals(parser.currentName());
+                JsonToken value = parser.nextToken();
+                if (match) {
+                    return value.isStructStart() ? STRUCTURE : parser.getValueAsString();
+                }
+                parser.skipChildren();
+            }
+            return null;
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package simulations.check;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.javaapi.core.CheckBuilder;
+import lombok.Getter;
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.CRC32C;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Body checks for the scenarios, built for the configured check mode:
+ * <ul>
+ *   <li>{@code full} - parses the whole document into a tree, the same work {@code jsonPath} does</li>
+ *   <li>{@code streaming} - pull-parses the body and stops at the target field</li>
+ *   <li>{@code length} - only asserts a non-empty body</li>
+ *   <li>{@code checksum} - CRC32C of the body must match the first response seen for the request</li>
+ * </ul>
+ * Every mode runs inside a {@link CheckCostRecorder} so its cost shows in the run output.
+ */
+public class ResponseChecks {
+
+    public enum Mode { FULL, STREAMING, LENGTH, CHECKSUM }
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final ThreadLocal<byte[]> BUFFERS = ThreadLocal.withInitial(() -> new byte[8192]);
+
+    @Getter
+    private final Mode mode;
+    @Getter
+    private final CheckCostRecorder cost;
+    private final Map<String, Long> checksums = new ConcurrentHashMap<>();
+
+    private ResponseChecks(Mode mode) {
+        this.mode = mode;
+        this.cost = new CheckCostRecorder(mode.name().toLowerCase());
+    }
+
+    public static ResponseChecks from(TestConfig.ChecksConfig config) {
+        String mode = System.getProperty("checkMode", config == null ? null : config.mode());
+        return new ResponseChecks(parse(mode));
+    }
+
+    // Top-level field must have the expected scalar value
+    public CheckBuilder.Final fieldIs(String requestKey, String field, String expected) {
+        return switch (mode) {
+            case FULL -> bodyStream()
+                    .transform(cost.timed(requestKey, body -> parseField(body, field)))
+                    .is(expected);
+            case STREAMING -> bodyStream()
+                    .transform(cost.timed(requestKey, body -> scanField(body, field)))
+                    .is(expected);
+            default -> bodyOnly(requestKey);
+        };
+    }
+
+    // Top-level field must be present, whatever its value
+    public CheckBuilder.Final fieldExists(String requestKey, String field) {
+        return switch (mode) {
+            case FULL -> bodyStream()
+                    .transform(cost.timed(requestKey, body -> parseField(body, field)))
+                    .exists();
+            case STREAMING -> bodyStream()
+                    .transform(cost.timed(requestKey, body -> scanField(body, field)))
+                    .exists();
+            default -> bodyOnly(requestKey);
+        };
+    }
+
+    private CheckBuilder.Final bodyOnly(String requestKey) {
+        if (mode == Mode.LENGTH) {
+            return bodyLength()
+                    .transform(cost.timed(requestKey, ResponseChecks::hasBody))
+                    .is(true);
+        }
+        return bodyStream()
+                .transform(cost.timed(requestKey, body -> matchesReference(requestKey, body)))
+                .is(true);
+    }
+
+    static boolean hasBody(int length) {
+        return length > 0;
+    }
+
+    // The first body of a request is its reference, every later one must have the same checksum
+    boolean matchesReference(String requestKey, InputStream body) {
+        long checksum = checksum(body);
+        Long reference = checksums.putIfAbsent(requestKey, checksum);
+        return reference == null || reference == checksum;
+    }
+
+    // The body functions behind each mode, shared with the JMH benchmarks
+
+    public static String parseField(InputStream body, String field) {
+        try {
+            JsonNode node = MAPPER.readTree(body).get(field);
+            if (node == null) {
+                return null;
+            }
+            return node.isContainerNode() ? JsonFieldScanner.STRUCTURE : node.asText();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static String scanField(InputStream body, String field) {
+        try {
+            return JsonFieldScanner.find(body, field);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static long checksum(InputStream body) {
+        byte[] buffer = BUFFERS.get();
+        CRC32C crc = new CRC32C();
+        try (body) {
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return crc.getValue();
+    }
+
+    private static Mode parse(String name) {
+        if (name == null) {
+            return Mode.FULL;
+        }
+        try {
+            return Mode.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown check mode: " + name
+                    + " (expected full, streaming, length or checksum)");
+        }
+    }
+}
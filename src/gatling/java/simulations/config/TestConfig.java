@@ -5,6 +5,9 @@ import lombok.Data;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 
 @Data
@@ -12,11 +15,32 @@ public class TestConfig {
     private HttpConfig http;
     private Map<String, LoadPattern> loadPatterns;
     private Map<String, Assertion> assertions;
+    private StubConfig stub;
+    private BreakpointConfig breakpoint;
+    private Map<String, FeederConfig> feeders;
+    private ChecksConfig checks;
+    private MetricsConfig metrics;
+    private RegressionConfig regression;
+    private CacheConfig cache;
+    private PaginationConfig pagination;
+    private CoordinatedOmissionConfig coordinatedOmission;
+    private GeneratorHealthConfig generatorHealth;
+    private WarmUpConfig warmUp;
+    private ReplayConfig replay;
+    private RetryConfig retry;
+    private EncodingConfig encoding;
+    private MixConfig mix;
+    private GraphQlConfig graphql;
+    private SweepConfig sweep;
 
     private static final String DEFAULT_HTTP_CONFIG = "http-config.json";
+    private static final String DEFAULT_STUB_CONFIG = "stub-config.json";
+    private static final FeederConfig DEFAULT_FEEDER = new FeederConfig("uniform", 1, 151, null, null, null, null, null);
+    // Shared so record deserializers are introspected once per JVM rather than on every load
+    private static final ObjectMapper MAPPER = new ObjectMapper();
 
     public static TestConfig load(String configFile) throws IOException {
-        ObjectMapper mapper = new ObjectMapper();
+        ObjectMapper mapper = MAPPER;
 
         InputStream is = TestConfig.class.getClassLoader().getResourceAsStream(configFile);
         if (is == null) {
@@ -34,48 +58,877 @@ public class TestConfig {
             }
         }
 
+        if (config.getStub() == null) {
+            InputStream stubIs = TestConfig.class.getClassLoader().getResourceAsStream(DEFAULT_STUB_CONFIG);
+            if (stubIs != null) {
+                StubConfig stubConfig = mapper.readValue(stubIs, StubConfig.class);
+                config.setStub(stubConfig);
+            } else {
+                throw new IOException("Stub config file not found: " + DEFAULT_STUB_CONFIG);
+            }
+        }
+
+        config.validate(configFile);
         return config;
     }
 
+    private void validate(String configFile) throws IOException {
+        List<String> errors = new ArrayList<>();
+        if (loadPatterns != null) {
+            loadPatterns.forEach((name, pattern) -> {
+                if (pattern == null) {
+                    errors.add("loadPatterns." + name + ": pattern must not be null");
+                } else {
+                    pattern.validate("loadPatterns." + name, errors);
+                }
+            });
+        }
+        if (http != null) {
+            http.validate(errors);
+        }
+        if (feeders != null) {
+            feeders.forEach((name, feeder) -> {
+                if (feeder == null) {
+                    errors.add("feeders." + name + ": feeder must not be null");
+                } else {
+                    feeder.validate("feeders." + name, errors);
+                }
+            });
+        }
+        if (breakpoint != null) {
+            breakpoint.validate(errors);
+        }
+        if (cache != null) {
+            cache.validate(errors);
+        }
+        if (pagination != null) {
+            pagination.validate(errors);
+        }
+        if (generatorHealth != null) {
+            generatorHealth.validate(errors);
+        }
+        if (warmUp != null) {
+            warmUp.validate(errors);
+        }
+        if (replay != null) {
+            replay.validate(errors);
+        }
+        if (retry != null) {
+            retry.validate(errors);
+        }
+        if (encoding != null) {
+            encoding.validate(errors);
+        }
+        if (mix != null) {
+            mix.validate(errors);
+        }
+        if (graphql != null) {
+            graphql.validate(errors);
+        }
+        if (sweep != null) {
+            sweep.validate(http, errors);
+        }
+        if (!errors.isEmpty()) {
+            throw new IOException("Invalid config " + configFile + ":\n  - " + String.join("\n  - ", errors));
+        }
+    }
+
+    public FeederConfig feederFor(String scenario) {
+        if (feeders == null || !feeders.containsKey(scenario)) {
+            return DEFAULT_FEEDER;
+        }
+        return feeders.get(scenario);
+    }
+
     public record HttpConfig(
             String baseUrl,
             String acceptHeader,
             String acceptEncodingHeader,
-            String userAgentHeader
+            String userAgentHeader,
+            // Entry of connectionProfiles to use; none keeps Gatling's defaults
+            String connectionProfile,
+            Map<String, ConnectionProfile> connectionProfiles,
+            ConnectionProbeConfig connectionProbe
+    ) {
+        public HttpConfig withBaseUrl(String newBaseUrl) {
+            return new HttpConfig(newBaseUrl, acceptHeader, acceptEncodingHeader, userAgentHeader,
+                    connectionProfile, connectionProfiles, connectionProbe);
+        }
+
+        void validate(List<String> errors) {
+            if (connectionProfiles != null) {
+                connectionProfiles.forEach((name, profile) -> {
+                    if (profile == null) {
+                        errors.add("http.connectionProfiles." + name + ": profile must not be null");
+                    } else {
+                        profile.validate("http.connectionProfiles." + name, errors);
+                    }
+                });
+            }
+            if (connectionProfile != null && (connectionProfiles == null || !connectionProfiles.containsKey(connectionProfile))) {
+                errors.add("http.connectionProfile: no connection profile named \"" + connectionProfile + "\"");
+            }
+        }
+    }
+
+    public record ConnectionProfile(
+            // "perUser" (every virtual user opens its own connections, Gatling's default) or "shared"
+            String pool,
+            // Negotiate HTTP/2 through ALPN on https targets
+            Boolean http2,
+            Integer maxConnectionsPerHost,
+            // false sends "Connection: close", so every request opens a new connection
+            Boolean keepAlive,
+            // "jdk" (JVM-wide cached lookups, default), "async" (Netty resolver) or "perUser" (no shared cache)
+            String dns,
+            // false gives every virtual user its own TLS context, so no session is ever resumed
+            Boolean tlsSessionReuse
+    ) {
+        public static final List<String> POOLS = List.of("perUser", "shared");
+        public static final List<String> RESOLVERS = List.of("jdk", "async", "perUser");
+
+        public boolean isShared() {
+            return "shared".equals(pool);
+        }
+
+        void validate(String path, List<String> errors) {
+            if (pool != null && !POOLS.contains(pool)) {
+                errors.add(path + ".pool: expected one of " + POOLS + " but was \"" + pool + "\"");
+            }
+            if (dns != null && !RESOLVERS.contains(dns)) {
+                errors.add(path + ".dns: expected one of " + RESOLVERS + " but was \"" + dns + "\"");
+            }
+            if (maxConnectionsPerHost != null && maxConnectionsPerHost < 1) {
+                errors.add(path + ".maxConnectionsPerHost: must be at least 1");
+            }
+        }
+    }
+
+    public record ConnectionProbeConfig(
+            Boolean enabled,
+            // Milliseconds between probe connections
+            Integer interval,
+            // Request path below the base URL
+            String path,
+            Integer timeout
     ) {}
 
     public record LoadPattern(
             String scenario,
-            Integer rampFrom,
-            Integer rampTo,
+            // "open" (arrival rates, default) or "closed" (concurrent users)
+            String workload,
+            List<InjectionStep> steps
+    ) {
+        public String scenarioName(String patternName) {
+            return scenario == null ? patternName : scenario;
+        }
+
+        public boolean isClosed() {
+            return "closed".equalsIgnoreCase(workload);
+        }
+
+        void validate(String path, List<String> errors) {
+            if (workload != null && !"open".equalsIgnoreCase(workload) && !isClosed()) {
+                errors.add(path + ".workload: expected \"open\" or \"closed\" but was \"" + workload + "\"");
+            }
+            if (steps == null || steps.isEmpty()) {
+                errors.add(path + ".steps: at least one injection step is required");
+                return;
+            }
+            for (int i = 0; i < steps.size(); i++) {
+                String stepPath = path + ".steps[" + i + "]";
+                if (steps.get(i) == null) {
+                    errors.add(stepPath + ": step must not be null");
+                } else {
+                    steps.get(i).validate(stepPath, isClosed(), errors);
+                }
+            }
+        }
+    }
+
+    public record InjectionStep(
+            String type,
+            Integer users,
+            Double rate,
+            Double from,
+            Double to,
+            Integer duration,
+            // Stairs: added per level, number of levels, ramp between levels
+            Double increment,
+            Integer times,
             Integer rampDuration,
-            Integer constantRate,
-            Integer constantDuration,
-            Integer atOnceUsers,
-            Integer nothingForDuration,
-            // Multi-phase pattern components
-            Integer phase1RampFrom,
-            Integer phase1RampTo,
-            Integer phase1RampDuration,
-            Integer phase1ConstantRate,
-            Integer phase1ConstantDuration,
-            Integer phase2RampFrom,
-            Integer phase2RampTo,
-            Integer phase2RampDuration,
-            Integer phase2ConstantRate,
-            Integer phase2ConstantDuration,
-            // Spike pattern components
-            Integer pause1Duration,
-            Integer spike1Users,
-            Integer pause2Duration,
-            Integer spike2Users,
-            Integer pause3Duration,
-            Integer spike3Users
-    ) {}
+            Boolean randomized,
+            Integer repeat
+    ) {
+        public static final List<String> TYPES = List.of("nothing", "atOnce", "ramp", "constant", "stairs", "stressPeak");
 
+        void validate(String path, boolean closed, List<String> errors) {
+            String at = path + " (" + type + ")";
+            if (type == null) {
+                errors.add(path + ".type: required, one of " + TYPES);
+                return;
+            }
+            if (repeat != null && repeat < 1) {
+                errors.add(at + ": repeat must be at least 1");
+            }
+
+            switch (type) {
+                case "nothing", "atOnce", "stressPeak" -> {
+                    if (closed) {
+                        errors.add(at + ": not supported by closed workloads");
+                    } else if ("nothing".equals(type)) {
+                        requirePositive(at, "duration", duration, errors);
+                    } else {
+                        requirePositive(at, "users", users, errors);
+                        if ("stressPeak".equals(type)) {
+                            requirePositive(at, "duration", duration, errors);
+                        }
+                    }
+                }
+                case "ramp" -> {
+                    requirePositive(at, "duration", duration, errors);
+                    if (!closed && users != null) {
+                        requirePositive(at, "users", users, errors);
+                    } else {
+                        requireNonNegative(at, "from", from, closed, errors);
+                        requireNonNegative(at, "to", to, closed, errors);
+                    }
+                }
+                case "constant" -> {
+                    requirePositive(at, "duration", duration, errors);
+                    if (closed) {
+                        requirePositive(at, "users", users, errors);
+                    } else {
+                        requireNonNegative(at, "rate", rate, false, errors);
+                    }
+                }
+                case "stairs" -> {
+                    requireNonNegative(at, "increment", increment, closed, errors);
+                    requirePositive(at, "times", times, errors);
+                    requirePositive(at, "duration", duration, errors);
+                    if (rampDuration != null && rampDuration < 0) {
+                        errors.add(at + ": rampDuration must not be negative");
+                    }
+                    if (from != null) {
+                        requireNonNegative(at, "from", from, closed, errors);
+                    }
+                }
+                default -> errors.add(path + ".type: unknown step type \"" + type + "\", expected one of " + TYPES);
+            }
+        }
+
+        private static void requirePositive(String at, String field, Integer value, List<String> errors) {
+            if (value == null) {
+                errors.add(at + ": '" + field + "' is required");
+            } else if (value <= 0) {
+                errors.add(at + ": '" + field + "' must be positive but was " + value);
+            }
+        }
+
+        private static void requireNonNegative(String at, String field, Double value, boolean whole, List<String> errors) {
+            if (value == null) {
+                errors.add(at + ": '" + field + "' is required");
+            } else if (value < 0) {
+                errors.add(at + ": '" + field + "' must not be negative but was " + value);
+            } else if (whole && value != Math.rint(value)) {
+                errors.add(at + ": '" + field + "' must be a whole number of users for closed workloads");
+            }
+        }
+    }
+
+    // Service level objectives of one test type; every field is optional. The same objectives can be
+    // set per scenario (keyed like loadPatterns' "scenario") and per request name
     public record Assertion(
             Integer maxResponseTime,
+            Integer meanResponseTime,
+            Integer percentile50,
+            Integer percentile95,
+            Integer percentile99,
+            Integer percentile999,
             Double successRate,
-            Integer percentile95
+            // Highest acceptable share of failed requests, in percent
+            Double errorBudget,
+            // Lowest acceptable responses per second over the whole run
+            Double minThroughput,
+            Map<String, Assertion> scenarios,
+            Map<String, Assertion> requests
+    ) {}
+
+    public record FeederConfig(
+            String distribution,
+            Integer minId,
+            Integer maxId,
+            // Zipf skew
+            Double exponent,
+            // Hotspot: share of ids that are hot and share of traffic they receive
+            Double hotFraction,
+            Double hotProbability,
+            Boolean shuffle,
+            Long seed
+    ) {
+        public static final List<String> DISTRIBUTIONS = List.of("uniform", "zipf", "hotspot", "sequential");
+
+        void validate(String path, List<String> errors) {
+            if (distribution != null && !DISTRIBUTIONS.contains(distribution.toLowerCase(Locale.ROOT))) {
+                errors.add(path + ".distribution: expected one of " + DISTRIBUTIONS + " but was \"" + distribution + "\"");
+            }
+            int min = minId == null ? 1 : minId;
+            int max = maxId == null ? min : maxId;
+            if (max < min) {
+                errors.add(path + ".maxId: " + max + " is below minId " + min);
+            }
+            if (exponent != null && exponent <= 0) {
+                errors.add(path + ".exponent: must be positive");
+            }
+            if (hotFraction != null && (hotFraction <= 0 || hotFraction >= 1)) {
+                errors.add(path + ".hotFraction: must be between 0 and 1, exclusive");
+            }
+            if (hotProbability != null && (hotProbability < 0 || hotProbability > 1)) {
+                errors.add(path + ".hotProbability: must be between 0 and 1");
+            }
+            if ("hotspot".equalsIgnoreCase(distribution) && max - min < 1) {
+                errors.add(path + ": a hotspot feeder needs at least two ids");
+            }
+        }
+    }
+
+    public record ChecksConfig(
+            // full, streaming, length or checksum
+            String mode
+    ) {}
+
+    public record CacheConfig(
+            // Share of first fetches sent with a cache-busting query parameter, forcing an edge miss
+            Double missRatio,
+            // How revalidations identify the cached copy: "etag", "lastModified" or "none" (plain re-fetch)
+            String validator,
+            Integer revalidations
+    ) {
+        public static final List<String> VALIDATORS = List.of("etag", "lastModified", "none");
+
+        void validate(List<String> errors) {
+            if (missRatio != null && (missRatio < 0 || missRatio > 1)) {
+                errors.add("cache.missRatio: must be between 0 and 1");
+            }
+            if (validator != null && !VALIDATORS.contains(validator)) {
+                errors.add("cache.validator: expected one of " + VALIDATORS + " but was \"" + validator + "\"");
+            }
+            if (revalidations != null && revalidations < 0) {
+                errors.add("cache.revalidations: must not be negative");
+            }
+        }
+    }
+
+    public record RetryConfig(
+            // Applies to every request without an entry below; -Dretry=false sends every request once without timeout
+            RetryPolicy defaults,
+            // Keyed by request name, each field overrides the same field of the defaults
+            Map<String, RetryPolicy> requests,
+            // Caps retries across all requests, unlimited when absent
+            RetryBudget budget
+    ) {
+        void validate(List<String> errors) {
+            if (defaults != null) {
+                defaults.validate("retry.defaults", errors);
+            }
+            if (requests != null) {
+                requests.forEach((name, policy) -> {
+                    if (policy == null) {
+                        errors.add("retry.requests." + name + ": policy must not be null");
+                    } else {
+                        policy.validate("retry.requests." + name, errors);
+                    }
+                });
+            }
+            if (budget != null) {
+                budget.validate(errors);
+            }
+        }
+    }
+
+    public record RetryPolicy(
+            // Milliseconds before an attempt without a response fails, Gatling's default when absent
+            Integer timeout,
+            // Attempts per logical request including the first (default 1, no retries)
+            Integer maxAttempts,
+            // Backoff before the n-th retry is backoff * 2^(n-1) milliseconds, capped at maxBackoff
+            Integer backoff,
+            Integer maxBackoff,
+            // "full" waits a random time up to the backoff, "equal" at least half of it, "none" all of it
+            String jitter,
+            // Statuses worth another attempt; attempts without a response are always retried
+            List<Integer> retryOn
+    ) {
+        public static final List<String> JITTERS = List.of("full", "equal", "none");
+
+        public RetryPolicy merge(RetryPolicy override) {
+            if (override == null) {
+                return this;
+            }
+            return new RetryPolicy(
+                    override.timeout != null ? override.timeout : timeout,
+                    override.maxAttempts != null ? override.maxAttempts : maxAttempts,
+                    override.backoff != null ? override.backoff : backoff,
+                    override.maxBackoff != null ? override.maxBackoff : maxBackoff,
+                    override.jitter != null ? override.jitter : jitter,
+                    override.retryOn != null ? override.retryOn : retryOn);
+        }
+
+        void validate(String path, List<String> errors) {
+            if (timeout != null && timeout < 1) {
+                errors.add(path + ".timeout: must be positive");
+            }
+            if (maxAttempts != null && maxAttempts < 1) {
+                errors.add(path + ".maxAttempts: must be at least 1");
+            }
+            if (backoff != null && backoff < 0) {
+                errors.add(path + ".backoff: must not be negative");
+            }
+            if (maxBackoff != null && maxBackoff < 0) {
+                errors.add(path + ".maxBackoff: must not be negative");
+            }
+            if (jitter != null && !JITTERS.contains(jitter)) {
+                errors.add(path + ".jitter: expected one of " + JITTERS + " but was \"" + jitter + "\"");
+            }
+            if (retryOn != null && retryOn.stream().anyMatch(status -> status == null || status < 100 || status > 599)) {
+                errors.add(path + ".retryOn: must be a list of HTTP statuses");
+            }
+        }
+    }
+
+    public record RetryBudget(
+            // Retries allowed per logical request over the window, 0.2 allows one retry per five requests
+            Double ratio,
+            // Retries allowed per second regardless of the ratio, so a quiet client can still retry
+            Integer minPerSecond,
+            // Seconds of requests and retries the budget is judged over
+            Integer window
+    ) {
+        void validate(List<String> errors) {
+            if (ratio != null && ratio < 0) {
+                errors.add("retry.budget.ratio: must not be negative");
+            }
+            if (minPerSecond != null && minPerSecond < 0) {
+                errors.add("retry.budget.minPerSecond: must not be negative");
+            }
+            if (window != null && window < 1) {
+                errors.add("retry.budget.window: must be positive");
+            }
+        }
+    }
+
+    public record CoordinatedOmissionConfig(
+            // Record corrected histograms next to the raw ones (default true), overridable with -DcoordinatedOmission
+            Boolean enabled,
+            // Warn when corrected p99 exceeds raw p99 by more than this ratio and warnDeltaMillis
+            Double warnRatio,
+            Integer warnDeltaMillis
+    ) {}
+
+    public record ReplayConfig(
+            // nginx combined-format access log, overridable with -DreplayLog
+            String logFile,
+            // Time compression: 2 replays the log twice as fast; overridable with -DreplaySpeed
+            Double speed,
+            // Stripped from logged paths, which are then sent relative to the base URL; others are skipped
+            String pathPrefix,
+            // Logged methods that are replayed (default GET and HEAD); other lines are skipped
+            List<String> methods,
+            // Seconds of log replayed from its first line
+            Integer maxDuration,
+            // Distinct request names reported before the rest are reported as one
+            Integer maxRequestNames
+    ) {
+        public static final List<String> METHODS = List.of("GET", "HEAD");
+
+        void validate(List<String> errors) {
+            if (speed != null && speed <= 0) {
+                errors.add("replay.speed: must be positive");
+            }
+            if (methods != null && (methods.isEmpty() || !METHODS.containsAll(methods))) {
+                errors.add("replay.methods: expected a non-empty subset of " + METHODS + " but was " + methods);
+            }
+            if (maxDuration != null && maxDuration < 1) {
+                errors.add("replay.maxDuration: must be positive");
+            }
+            if (maxRequestNames != null && maxRequestNames < 1) {
+                errors.add("replay.maxRequestNames: must be positive");
+            }
+        }
+    }
+
+    public record EncodingConfig(
+            // Accept-Encoding of each phase, run one after another (default identity, gzip, deflate and br)
+            List<String> encodings,
+            // Arrivals per second and seconds of every phase, each arrival fetching one Pokemon
+            Double rate,
+            Integer duration,
+            // Seconds of unmeasured fetches under every encoding before the first phase, so the first
+            // encoding does not absorb the warm-up of the target and the client; 0 disables it
+            Integer warmUp,
+            // Documents the probe fetches per encoding after the load, and the decodes timed per document
+            Integer probeSamples,
+            Integer decodeRepeats
+    ) {
+        public static final List<String> ENCODINGS = List.of("identity", "gzip", "deflate", "br");
+
+        void validate(List<String> errors) {
+            if (encodings != null && (encodings.isEmpty() || !ENCODINGS.containsAll(encodings))) {
+                errors.add("encoding.encodings: expected a non-empty subset of " + ENCODINGS + " but was " + encodings);
+            }
+            if (rate != null && rate <= 0) {
+                errors.add("encoding.rate: must be positive");
+            }
+            if (duration != null && duration < 1) {
+                errors.add("encoding.duration: must be positive");
+            }
+            if (warmUp != null && warmUp < 0) {
+                errors.add("encoding.warmUp: must not be negative");
+            }
+            if (probeSamples != null && probeSamples < 1) {
+                errors.add("encoding.probeSamples: must be positive");
+            }
+            if (decodeRepeats != null && decodeRepeats < 1) {
+                errors.add("encoding.decodeRepeats: must be positive");
+            }
+        }
+    }
+
+    public record WarmUpConfig(
+            // Seconds of warm-up before the measured run in suite mode, 0 disables it; overridable with -DwarmUp
+            Integer duration,
+            // Arrivals per second for every scenario of the load patterns
+            Double rate
+    ) {
+        void validate(List<String> errors) {
+            if (duration != null && duration < 0) {
+                errors.add("warmUp.duration: must not be negative");
+            }
+            if (rate != null && rate <= 0) {
+                errors.add("warmUp.rate: must be positive");
+            }
+        }
+    }
+
+    public record GeneratorHealthConfig(
+            // Sample the generator JVM during the run, overridable with -DgeneratorHealth
+            Boolean enabled,
+            // Milliseconds between samples
+            Integer interval,
+            // Keep a JFR recording of the run (default true) with these settings, "profile" or "default"
+            Boolean jfr,
+            String jfrSettings,
+            // An interval breaching any of these is saturated; allocation is only judged when set
+            Double maxGcPauseMillis,
+            Double maxProcessCpu,
+            Double maxSchedulerLagMillis,
+            Double maxAllocationMbPerSecond
+    ) {
+        public static final List<String> JFR_SETTINGS = List.of("default", "profile");
+
+        void validate(List<String> errors) {
+            if (interval != null && interval < 1) {
+                errors.add("generatorHealth.interval: must be positive");
+            }
+            if (jfrSettings != null && !JFR_SETTINGS.contains(jfrSettings)) {
+                errors.add("generatorHealth.jfrSettings: expected one of " + JFR_SETTINGS + " but was \"" + jfrSettings + "\"");
+            }
+            if (maxProcessCpu != null && (maxProcessCpu <= 0 || maxProcessCpu > 1)) {
+                errors.add("generatorHealth.maxProcessCpu: must be above 0 and at most 1");
+            }
+        }
+    }
+
+    public record PaginationConfig(
+            // Each walk picks one of these limits and keeps it for every page
+            List<Integer> pageSizes,
+            // Width of the offset ranges latency and bytes are reported by
+            Integer bucketSize,
+            // Walks stop after this many pages even when there is a next link
+            Integer maxPages
+    ) {
+        void validate(List<String> errors) {
+            if (pageSizes != null && (pageSizes.isEmpty() || pageSizes.stream().anyMatch(size -> size == null || size < 1))) {
+                errors.add("pagination.pageSizes: must be a non-empty list of positive page sizes");
+            }
+            if (bucketSize != null && bucketSize < 1) {
+                errors.add("pagination.bucketSize: must be positive");
+            }
+            if (maxPages != null && maxPages < 1) {
+                errors.add("pagination.maxPages: must be positive");
+            }
+        }
+    }
+
+    public record GraphQlConfig(
+            // GraphQL endpoint, overridable with -DgraphqlUrl; a stub run points it at the stub
+            String url,
+            // Pokemon fetched per logical operation, one phase per batch size and depth
+            List<Integer> batchSizes,
+            // Links followed from each Pokemon: 1 the Pokemon, 2 also its species and abilities, 3 also the evolution chain
+            List<Integer> depths,
+            // Logical operations per second and seconds of every phase
+            Double rate,
+            Integer duration
+    ) {
+        public static final String DEFAULT_URL = "https://beta.pokeapi.co/graphql/v1beta";
+        public static final List<Integer> DEPTHS = List.of(1, 2, 3);
+
+        public GraphQlConfig withUrl(String newUrl) {
+            return new GraphQlConfig(newUrl, batchSizes, depths, rate, duration);
+        }
+
+        void validate(List<String> errors) {
+            if (batchSizes != null && (batchSizes.isEmpty() || batchSizes.stream().anyMatch(size -> size == null || size < 1))) {
+                errors.add("graphql.batchSizes: must be a non-empty list of positive batch sizes");
+            }
+            if (depths != null && (depths.isEmpty() || !DEPTHS.containsAll(depths))) {
+                errors.add("graphql.depths: expected a non-empty subset of " + DEPTHS + " but was " + depths);
+            }
+            if (rate != null && rate <= 0) {
+                errors.add("graphql.rate: must be positive");
+            }
+            if (duration != null && duration < 1) {
+                errors.add("graphql.duration: must be positive");
+            }
+        }
+    }
+
+    public record SweepConfig(
+            // Total arrivals per second of the open points, shared by the load patterns' scenarios
+            List<Double> rates,
+            // Total concurrent users of the closed points
+            List<Integer> concurrency,
+            // Entries of http.connectionProfiles to run the whole grid with; none keeps the configured profile
+            List<String> connectionProfiles,
+            // Seconds of every point: ramp to its level, settle unmeasured, then the measured window
+            Integer rampUp,
+            Integer settle,
+            Integer duration
+    ) {
+        void validate(HttpConfig http, List<String> errors) {
+            if ((rates == null || rates.isEmpty()) && (concurrency == null || concurrency.isEmpty())) {
+                errors.add("sweep: at least one of rates and concurrency is required");
+            }
+            if (rates != null && rates.stream().anyMatch(rate -> rate == null || rate <= 0)) {
+                errors.add("sweep.rates: must all be positive");
+            }
+            if (concurrency != null && concurrency.stream().anyMatch(users -> users == null || users < 1)) {
+                errors.add("sweep.concurrency: must all be positive");
+            }
+            if (connectionProfiles != null) {
+                for (String name : connectionProfiles) {
+                    if (http == null || http.connectionProfiles() == null || !http.connectionProfiles().containsKey(name)) {
+                        errors.add("sweep.connectionProfiles: no connection profile named \"" + name + "\"");
+                    }
+                }
+            }
+            if (rampUp != null && rampUp < 0) {
+                errors.add("sweep.rampUp: must not be negative");
+            }
+            if (settle != null && settle < 0) {
+                errors.add("sweep.settle: must not be negative");
+            }
+            if (duration != null && duration < 1) {
+                errors.add("sweep.duration: must be positive");
+            }
+        }
+    }
+
+    public record MixConfig(
+            // Relative weight of each operation, keyed by OPERATIONS; operations without a weight are never picked
+            Map<String, Double> weights,
+            // Operations of one user visit, each followed by a think time
+            Integer operationsPerSession,
+            ThinkTime think
+    ) {
+        public static final List<String> OPERATIONS = List.of("byId", "byName", "list", "abilities", "traversal");
+
+        void validate(List<String> errors) {
+            if (weights != null) {
+                weights.forEach((operation, weight) -> {
+                    if (!OPERATIONS.contains(operation)) {
+                        errors.add("mix.weights." + operation + ": unknown operation, expected one of " + OPERATIONS);
+                    } else if (weight == null || weight < 0) {
+                        errors.add("mix.weights." + operation + ": must not be negative");
+                    }
+                });
+                if (weights.values().stream().noneMatch(weight -> weight != null && weight > 0)) {
+                    errors.add("mix.weights: at least one operation needs a positive weight");
+                }
+            }
+            if (operationsPerSession != null && operationsPerSession < 1) {
+                errors.add("mix.operationsPerSession: must be positive");
+            }
+            if (think != null) {
+                think.validate("mix.think", errors);
+            }
+        }
+    }
+
+    public record ThinkTime(
+            // "fixed", "uniform", "exponential", "lognormal" or "empirical"
+            String distribution,
+            Double meanMs,
+            Double stddevMs,
+            // Every drawn think time is clamped to these bounds
+            Double minMs,
+            Double maxMs,
+            // Empirical: observed think times, e.g. from session logs, drawn with equal probability
+            List<Double> samplesMs
+    ) {
+        public static final List<String> DISTRIBUTIONS = List.of("fixed", "uniform", "exponential", "lognormal", "empirical");
+
+        void validate(String path, List<String> errors) {
+            String type = distribution == null ? "fixed" : distribution;
+            if (!DISTRIBUTIONS.contains(type)) {
+                errors.add(path + ".distribution: expected one of " + DISTRIBUTIONS + " but was \"" + distribution + "\"");
+                return;
+            }
+            switch (type) {
+                case "uniform" -> {
+                    if (maxMs == null) {
+                        errors.add(path + ": uniform think time requires maxMs");
+                    }
+                }
+                case "empirical" -> {
+                    if (samplesMs == null || samplesMs.isEmpty() || samplesMs.stream().anyMatch(sample -> sample == null || sample < 0)) {
+                        errors.add(path + ".samplesMs: empirical think time requires a non-empty list of non-negative samples");
+                    }
+                }
+                case "lognormal" -> {
+                    if (meanMs == null || meanMs <= 0) {
+                        errors.add(path + ".meanMs: lognormal think time requires a positive mean");
+                    }
+                }
+                default -> {
+                    if (meanMs == null || meanMs < 0) {
+                        errors.add(path + ".meanMs: required and must not be negative");
+                    }
+                }
+            }
+            if (minMs != null && minMs < 0) {
+                errors.add(path + ".minMs: must not be negative");
+            }
+            if (minMs != null && maxMs != null && maxMs < minMs) {
+                errors.add(path + ".maxMs: must not be below minMs");
+            }
+        }
+    }
+
+    public record BreakpointConfig(
+            Double startRate,
+            Double rateStep,
+            Double maxRate,
+            Double resolution,
+            Integer stepDuration,
+            Integer cooldownDuration,
+            Integer maxDuration,
+            Integer minSamples,
+            // SLO each step is judged against
+            Integer maxPercentile95,
+            Integer maxPercentile99,
+            Double maxErrorRate,
+            Double minAcceptableRate
+    ) {
+        void validate(List<String> errors) {
+            positive("breakpoint.startRate", startRate, errors);
+            positive("breakpoint.rateStep", rateStep, errors);
+            positive("breakpoint.maxRate", maxRate, errors);
+            positive("breakpoint.resolution", resolution, errors);
+            positive("breakpoint.stepDuration", stepDuration, errors);
+            positive("breakpoint.maxDuration", maxDuration, errors);
+            positive("breakpoint.maxPercentile95", maxPercentile95, errors);
+            positive("breakpoint.maxPercentile99", maxPercentile99, errors);
+            if (maxErrorRate == null) {
+                errors.add("breakpoint.maxErrorRate: is required");
+            } else if (maxErrorRate < 0 || maxErrorRate > 100) {
+                errors.add("breakpoint.maxErrorRate: must be between 0 and 100");
+            }
+            if (startRate != null && maxRate != null && startRate > maxRate) {
+                errors.add("breakpoint.startRate: must not be above maxRate");
+            }
+            if (cooldownDuration != null && cooldownDuration < 0) {
+                errors.add("breakpoint.cooldownDuration: must not be negative");
+            }
+            if (minSamples != null && minSamples < 0) {
+                errors.add("breakpoint.minSamples: must not be negative");
+            }
+            if (minAcceptableRate != null && minAcceptableRate < 0) {
+                errors.add("breakpoint.minAcceptableRate: must not be negative");
+            }
+        }
+
+        private static void positive(String path, Number value, List<String> errors) {
+            if (value == null) {
+                errors.add(path + ": is required");
+            } else if (value.doubleValue() <= 0) {
+                errors.add(path + ": must be positive");
+            }
+        }
+    }
+
+    public record MetricsConfig(
+            Boolean enabled,
+            // Seconds between interval snapshots
+            Integer interval,
+            // Prometheus endpoint; port 0 picks a free port
+            String host,
+            Integer port,
+            // Directory for the line-protocol file
+            String outputDir
+    ) {}
+
+    public record RegressionConfig(
+            // Number of previous baselines the current run is compared with
+            Integer window,
+            // A metric regresses when it is worse than the baseline mean by both margins
+            Double maxIncrease,
+            Double zScore,
+            Integer minDeltaMillis,
+            // Requests with fewer responses in the current run are not judged
+            Integer minRequests,
+            // Breakdown entries judged besides the requests, by their part, e.g. "final" for
+            // "<request> [final]"; none by default
+            List<String> breakdowns
+    ) {}
+
+    public record StubConfig(
+            Boolean enabled,
+            String host,
+            Integer port,
+            Integer backlog,
+            Integer catalogSize,
+            String profile,
+            Map<String, StubProfile> profiles
+    ) {}
+
+    public record StubProfile(
+            Latency latency,
+            Double errorRate,
+            Integer errorStatus,
+            Integer pokemonPayloadBytes,
+            // Optional CDN edge in front of the stub; latency above then applies to misses only
+            EdgeCache edgeCache,
+            // Extra latency per row a list request skips with its offset, like an OFFSET scan in SQL
+            Double listOffsetMicros,
+            // Content codings offered to Accept-Encoding: gzip, deflate and br; identity only when absent
+            List<String> encodings,
+            // Extra latency per object a GraphQL query resolves, like the joins behind a batched query
+            Double graphqlResolveMicros
+    ) {}
+
+    public record EdgeCache(
+            Integer ttlSeconds,
+            Latency hitLatency,
+            Integer maxEntries
+    ) {}
+
+    public record Latency(
+            String distribution,
+            Double meanMs,
+            Double stddevMs,
+            Double minMs,
+            Double maxMs
     ) {}
-}
\ No newline at end of file
+}
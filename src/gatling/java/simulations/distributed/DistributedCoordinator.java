@@ -0,0 +1,234 @@
+package simulations.distributed;
+
+import simulations.baseline.BaselineStore;
+import simulations.config.TestConfig;
+import simulations.metrics.GeneratorHealth;
+import simulations.report.Reports;
+import simulations.strategy.TestType;
+import simulations.stub.PokeApiStubServer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs one test type across several local worker JVMs. Each worker injects its share of every
+ * load pattern step (see {@link WorkerShard}), all workers start injecting at the same instant
+ * behind a socket barrier, and their response time histograms are merged into one report.
+ */
+public class DistributedCoordinator {
+
+    private static final String SIMULATION = "simulations.PokemonSimulation";
+    // Lists every run switch; those marked "workers" are handed down to every worker unchanged
+    private static final String RUN_SWITCHES = "run-switches.properties";
+    private static final long BARRIER_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(5);
+    // Head start given to every worker between the barrier releasing and injection starting
+    private static final long START_DELAY_MILLIS = 1000;
+
+    private final int workers;
+    private final Path runDir;
+    private final List<String> forwarded;
+    private final List<Process> processes = new ArrayList<>();
+
+    private DistributedCoordinator(int workers, Path runDir, List<String> forwarded) {
+        this.workers = workers;
+        this.runDir = runDir;
+        this.forwarded = forwarded;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int workers = Integer.getInteger("workers", 2);
+        if (workers < 1) {
+            throw new IllegalArgumentException("workers must be at least 1, got " + workers);
+        }
+        TestType testType = TestType.fromString(System.getProperty("testType", TestType.LOAD.getName()));
+        if (!testType.isShardable()) {
+            throw new IllegalArgumentException("The " + testType.getName() + " test " + testType.getUnshardableReason()
+                    + " and cannot be sharded");
+        }
+        TestConfig config = TestConfig.load(System.getProperty("configFile", testType.getConfigFile()));
+
+        // One shared stub, so workers measure the same target instead of one stub each
+        PokeApiStubServer stub = null;
+        List<String> extraProperties = new ArrayList<>();
+        if (PokeApiStubServer.isEnabled(config.getStub())) {
+            stub = PokeApiStubServer.start(config.getStub());
+            extraProperties.add("-Dstub=false");
+            extraProperties.add("-DbaseUrl=" + stub.getBaseUrl());
+        }
+
+        Path runDir = Reports.directory("gatling").resolve("distributed-" + Reports.timestamp());
+        Files.createDirectories(runDir);
+        DistributedCoordinator coordinator = new DistributedCoordinator(workers, runDir, forwardedSwitches());
+
+        int exitCode;
+        try {
+            exitCode = coordinator.run(testType, BaselineStore.configHash(config), extraProperties);
+        } finally {
+            if (stub != null) {
+                stub.stop();
+            }
+        }
+        System.exit(exitCode);
+    }
+
+    private int run(TestType testType, String configHash, List<String> extraProperties) throws IOException, InterruptedException {
+        System.out.printf("Distributed %s test: %d workers, output in %s%n", testType.getName(), workers, runDir.toAbsolutePath());
+        BaselineStore.started(testType.getName(), configHash);
+
+        try (ServerSocket barrier = new ServerSocket(0, workers, InetAddress.getLoopbackAddress())) {
+            for (int i = 0; i < workers; i++) {
+                processes.add(startWorker(i, testType, barrier.getLocalPort(), extraProperties));
+            }
+            release(barrier);
+        } catch (IOException | RuntimeException e) {
+            processes.forEach(Process::destroyForcibly);
+            throw e;
+        }
+
+        int exitCode = 0;
+        for (int i = 0; i < workers; i++) {
+            int workerExit = processes.get(i).waitFor();
+            System.out.printf("Worker %d finished with exit code %d (log: %s)%n", i, workerExit, workerLog(i));
+            exitCode = Math.max(exitCode, workerExit);
+        }
+
+        List<WorkerResult> results = new ArrayList<>();
+        for (int i = 0; i < workers; i++) {
+            Path resultFile = workerResult(i);
+            if (Files.exists(resultFile)) {
+                results.add(WorkerResult.read(resultFile));
+            } else {
+                System.err.println("Worker " + i + " wrote no results");
+                exitCode = Math.max(exitCode, 1);
+            }
+        }
+        MergedReport.write(MergedReport.merge(results), runDir.resolve("merged-report.json"));
+        boolean saturated = results.stream().anyMatch(DistributedCoordinator::generatorSaturated);
+        if (saturated) {
+            System.out.println("GENERATOR-SATURATED: at least one worker measured latency while saturated, see its log");
+        }
+        if (!BaselineStore.isEnabled()) {
+            BaselineStore.notRecorded(testType.getName(), configHash, "recording was disabled with -Dbaseline=false");
+        } else if (results.size() < workers) {
+            BaselineStore.notRecorded(testType.getName(), configHash, "not every worker wrote its results");
+        } else if (saturated) {
+            BaselineStore.notRecorded(testType.getName(), configHash, "the generator was saturated during the run");
+        } else {
+            Path file = BaselineStore.save(MergedReport.baseline(testType.getName(), configHash, results));
+            System.out.println("Baseline recorded in " + file.toAbsolutePath());
+        }
+        return exitCode;
+    }
+
+    private static boolean generatorSaturated(WorkerResult result) {
+        return result.requests().entrySet().stream()
+                .anyMatch(request -> GeneratorHealth.isSaturatedName(request.getKey())
+                        && request.getValue().decode().getTotalCount() > 0);
+    }
+
+    private static List<String> forwardedSwitches() throws IOException {
+        Properties switches = new Properties();
+        try (InputStream is = DistributedCoordinator.class.getClassLoader().getResourceAsStream(RUN_SWITCHES)) {
+            if (is == null) {
+                throw new IOException("Run switch list not found: " + RUN_SWITCHES);
+            }
+            switches.load(is);
+        }
+        return switches.stringPropertyNames().stream()
+                .filter(name -> "workers".equals(switches.getProperty(name)))
+                .sorted()
+                .toList();
+    }
+
+    private Process startWorker(int index, TestType testType, int barrierPort, List<String> extraProperties) throws IOException {
+        String java = ProcessHandle.current().info().command().orElse("java");
+        List<String> command = new ArrayList<>();
+        command.add(java);
+        command.add("--add-opens=java.base/java.lang=ALL-UNNAMED");
+        if (System.getProperty("workerHeap") != null) {
+            command.add("-Xmx" + System.getProperty("workerHeap"));
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add("-DtestType=" + testType.getName());
+        for (String name : forwarded) {
+            if (System.getProperty(name) != null) {
+                command.add("-D" + name + "=" + System.getProperty(name));
+            }
+        }
+        command.addAll(extraProperties);
+        command.add("-D" + WorkerShard.INDEX_PROPERTY + "=" + index);
+        command.add("-D" + WorkerShard.COUNT_PROPERTY + "=" + workers);
+        command.add("-D" + WorkerShard.PORT_PROPERTY + "=" + barrierPort);
+        command.add("-D" + WorkerShard.RESULT_PROPERTY + "=" + workerResult(index).toAbsolutePath());
+        command.add("io.gatling.app.Gatling");
+        command.add("--simulation");
+        command.add(SIMULATION);
+        command.add("--results-folder");
+        command.add(runDir.resolve("worker-" + index).toAbsolutePath().toString());
+
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(workerLog(index).toFile())
+                .start();
+    }
+
+    // Waits until every worker has checked in, then hands all of them the same start instant
+    private void release(ServerSocket barrier) throws IOException {
+        barrier.setSoTimeout(1000);
+        long deadline = System.currentTimeMillis() + BARRIER_TIMEOUT_MILLIS;
+        List<Socket> ready = new ArrayList<>();
+        try {
+            while (ready.size() < workers) {
+                if (System.currentTimeMillis() > deadline) {
+                    throw new IOException("Only " + ready.size() + " of " + workers + " workers reached the start barrier");
+                }
+                for (int i = 0; i < processes.size(); i++) {
+                    if (!processes.get(i).isAlive()) {
+                        throw new IOException("Worker " + i + " exited before the start barrier, see " + workerLog(i));
+                    }
+                }
+                try {
+                    Socket socket = barrier.accept();
+                    String line = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8)).readLine();
+                    System.out.println("Worker " + (line == null ? "?" : line.substring(line.indexOf(' ') + 1)) + " ready");
+                    ready.add(socket);
+                } catch (SocketTimeoutException e) {
+                    // Poll the deadline and worker liveness again
+                }
+            }
+
+            long startAt = System.currentTimeMillis() + START_DELAY_MILLIS;
+            for (Socket socket : ready) {
+                new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8).println("START " + startAt);
+            }
+            System.out.println("All workers ready, injection starts in " + START_DELAY_MILLIS + " ms");
+        } finally {
+            for (Socket socket : ready) {
+                socket.close();
+            }
+        }
+    }
+
+    private Path workerLog(int index) {
+        return runDir.resolve("worker-" + index + ".log");
+    }
+
+    private Path workerResult(int index) {
+        return runDir.resolve("worker-" + index + "-result.json");
+    }
+}
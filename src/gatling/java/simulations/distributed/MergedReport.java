@@ -0,0 +1,109 @@
+package simulations.distributed;
+
+import org.HdrHistogram.Histogram;
+import simulations.baseline.Baseline;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.report.Reports;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Combines the worker histograms of a distributed run. Histograms are added bucket by bucket, so
+ * every percentile is read from the distribution of all responses across all workers.
+ */
+public class MergedReport {
+
+    private static final String GLOBAL = "All Requests";
+
+    public record Row(
+            String request,
+            long requests,
+            long errors,
+            long min,
+            double mean,
+            long percentile50,
+            long percentile75,
+            long percentile95,
+            long percentile99,
+            long max
+    ) {
+        static Row of(String request, Histogram histogram, long errors) {
+            return new Row(
+                    request,
+                    histogram.getTotalCount(),
+                    errors,
+                    histogram.getTotalCount() == 0 ? 0 : histogram.getMinValue(),
+                    histogram.getMean(),
+                    histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(75),
+                    histogram.getValueAtPercentile(95),
+                    histogram.getValueAtPercentile(99),
+                    histogram.getMaxValue()
+            );
+        }
+    }
+
+    public record Result(int workers, List<Row> rows) {}
+
+    public static Result merge(List<WorkerResult> results) {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        Map<String, Long> errors = new TreeMap<>();
+        Histogram global = new Histogram(3);
+        long globalErrors = 0;
+
+        for (WorkerResult result : results) {
+            for (Map.Entry<String, WorkerResult.RequestResult> request : result.requests().entrySet()) {
+                Histogram histogram = request.getValue().decode();
+                histograms.computeIfAbsent(request.getKey(), name -> new Histogram(3)).add(histogram);
+                errors.merge(request.getKey(), request.getValue().errors(), Long::sum);
+                if (!ResponseTimeRegistry.isBreakdown(request.getKey())) {
+                    global.add(histogram);
+                    globalErrors += request.getValue().errors();
+                }
+            }
+        }
+
+        List<Row> rows = new ArrayList<>();
+        rows.add(Row.of(GLOBAL, global, globalErrors));
+        histograms.forEach((name, histogram) -> {
+            // Skip requests of scenarios that were built but never injected
+            if (histogram.getTotalCount() > 0) {
+                rows.add(Row.of(name, histogram, errors.get(name)));
+            }
+        });
+        return new Result(results.size(), rows);
+    }
+
+    // Worker histograms added per request; the run lasted as long as its slowest worker
+    public static Baseline baseline(String testType, String configHash, List<WorkerResult> results) {
+        Map<String, Histogram> histograms = new TreeMap<>();
+        Map<String, Long> errors = new TreeMap<>();
+        double durationSeconds = 0;
+        for (WorkerResult result : results) {
+            durationSeconds = Math.max(durationSeconds, result.durationSeconds());
+            result.requests().forEach((name, request) -> {
+                histograms.computeIfAbsent(name, key -> new Histogram(3)).add(request.decode());
+                errors.merge(name, request.errors(), Long::sum);
+            });
+        }
+        return Baseline.of(testType, configHash, durationSeconds, histograms, errors);
+    }
+
+    public static void write(Result result, Path file) throws IOException {
+        System.out.printf("%nMerged results of %d workers (response times in ms)%n", result.workers());
+        System.out.printf("%-32s %9s %7s %6s %8s %6s %6s %6s %6s %7s%n",
+                "Request", "Count", "KO", "Min", "Mean", "p50", "p75", "p95", "p99", "Max");
+        for (Row row : result.rows()) {
+            System.out.printf("%-32s %9d %7d %6d %8.1f %6d %6d %6d %6d %7d%n",
+                    row.request(), row.requests(), row.errors(), row.min(), row.mean(),
+                    row.percentile50(), row.percentile75(), row.percentile95(), row.percentile99(), row.max());
+        }
+
+        Reports.writeJson(file, result, "merged report");
+    }
+}
@@ -0,0 +1,45 @@
+package simulations.distributed;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.Histogram;
+import simulations.metrics.HistogramCodec;
+import simulations.metrics.ResponseTimeRegistry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * What a worker hands back to the coordinator: the full response time histogram of every request,
+ * so that percentiles over all workers come from the merged distribution rather than an average
+ * of per-worker percentiles.
+ */
+public record WorkerResult(int index, double durationSeconds, Map<String, RequestResult> requests) {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public record RequestResult(long errors, String histogram) {
+
+        public Histogram decode() {
+            return HistogramCodec.decode(histogram);
+        }
+    }
+
+    public static WorkerResult capture(int index, double durationSeconds) {
+        Map<String, RequestResult> requests = new TreeMap<>();
+        ResponseTimeRegistry.entries().forEach((name, entry) ->
+                requests.put(name, new RequestResult(entry.cumulativeErrors(), HistogramCodec.encode(entry.cumulative()))));
+        return new WorkerResult(index, durationSeconds, requests);
+    }
+
+    public static WorkerResult read(Path file) throws IOException {
+        return MAPPER.readValue(file.toFile(), WorkerResult.class);
+    }
+
+    public void write(Path file) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), this);
+    }
+}
@@ -0,0 +1,83 @@
+package simulations.distributed;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * This JVM's place in a distributed run, passed down by {@link DistributedCoordinator} as system
+ * properties. A standalone run is worker 0 of 1, so every slice is the whole load.
+ */
+public record WorkerShard(int index, int count, Integer coordinatorPort, String resultFile) {
+
+    public static final String INDEX_PROPERTY = "workerIndex";
+    public static final String COUNT_PROPERTY = "workerCount";
+    public static final String PORT_PROPERTY = "coordinatorPort";
+    public static final String RESULT_PROPERTY = "workerResult";
+
+    private static final WorkerShard STANDALONE = new WorkerShard(0, 1, null, null);
+
+    public static WorkerShard current() {
+        Integer port = Integer.getInteger(PORT_PROPERTY);
+        if (port == null) {
+            return STANDALONE;
+        }
+        return new WorkerShard(
+                Integer.getInteger(INDEX_PROPERTY, 0),
+                Integer.getInteger(COUNT_PROPERTY, 1),
+                port,
+                System.getProperty(RESULT_PROPERTY)
+        );
+    }
+
+    public boolean isWorker() {
+        return coordinatorPort != null;
+    }
+
+    // Whole users are dealt out so that the slices of all workers add up to the total
+    public int share(int total) {
+        return total / count + (index < total % count ? 1 : 0);
+    }
+
+    public double share(double total) {
+        return total / count;
+    }
+
+    /**
+     * Reports ready to the coordinator and blocks until the common start instant it hands out,
+     * so injection begins together on every worker regardless of how long each took to boot.
+     */
+    public void awaitStart() throws IOException {
+        if (!isWorker()) {
+            return;
+        }
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), coordinatorPort);
+             PrintWriter out = new PrintWriter(socket.getOutputStream(), true, StandardCharsets.UTF_8);
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8))) {
+            out.println("READY " + index);
+            String line = in.readLine();
+            if (line == null || !line.startsWith("START ")) {
+                throw new IOException("Coordinator aborted the run before start: " + line);
+            }
+            long startAt = Long.parseLong(line.substring("START ".length()));
+            long wait = startAt - System.currentTimeMillis();
+            if (wait > 0) {
+                Thread.sleep(wait);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for the start barrier", e);
+        }
+    }
+
+    public void writeResult(double durationSeconds) throws IOException {
+        if (isWorker() && resultFile != null) {
+            WorkerResult.capture(index, durationSeconds).write(Path.of(resultFile));
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package simulations.encoding;
+
+import com.aayushatharva.brotli4j.Brotli4jLoader;
+import com.aayushatharva.brotli4j.decoder.Decoder;
+import com.aayushatharva.brotli4j.encoder.Encoder;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * HTTP content codings, as the stub serves them and as the encoding matrix decodes them. Deflate
+ * is the zlib-wrapped stream HTTP specifies; brotli uses the native library Gatling also decodes
+ * with, at the on-the-fly quality common for dynamic responses.
+ */
+public enum ContentCoding {
+    IDENTITY("identity"), GZIP("gzip"), DEFLATE("deflate"), BR("br");
+
+    private static final int BROTLI_QUALITY = 5;
+
+    private final String token;
+
+    ContentCoding(String token) {
+        this.token = token;
+    }
+
+    public String token() {
+        return token;
+    }
+
+    public static ContentCoding fromToken(String token) {
+        return Arrays.stream(values())
+                .filter(coding -> coding.token.equalsIgnoreCase(token.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown content coding: " + token));
+    }
+
+    public static boolean isKnown(String token) {
+        return Arrays.stream(values()).anyMatch(coding -> coding.token.equalsIgnoreCase(token.trim()));
+    }
+
+    // The native brotli library is only bundled for the common platforms
+    public boolean isAvailable() {
+        return this != BR || Brotli4jLoader.isAvailable();
+    }
+
+    // The offered coding the client weights highest, earlier in the header on a tie; identity when
+    // the client accepts none of them
+    public static ContentCoding negotiate(String acceptEncoding, Collection<ContentCoding> offered) {
+        if (acceptEncoding == null || offered.isEmpty()) {
+            return IDENTITY;
+        }
+        ContentCoding best = IDENTITY;
+        double bestWeight = 0;
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String token = parts[0].trim().toLowerCase(Locale.ROOT);
+            double weight = 1;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        weight = Double.parseDouble(parameter.substring(2));
+                    } catch (NumberFormatException e) {
+                        weight = 0;
+                    }
+                }
+            }
+            if (weight <= bestWeight || !isKnown(token)) {
+                continue;
+            }
+            ContentCoding coding = fromToken(token);
+            if (coding == IDENTITY || offered.contains(coding)) {
+                best = coding;
+                bestWeight = weight;
+            }
+        }
+        return best;
+    }
+
+    public byte[] encode(byte[] body) throws IOException {
+        return switch (this) {
+            case IDENTITY -> body;
+            case GZIP -> deflate(body, new ByteArrayOutputStream(body.length / 4 + 64), true);
+            case DEFLATE -> deflate(body, new ByteArrayOutputStream(body.length / 4 + 64), false);
+            case BR -> {
+                Brotli4jLoader.ensureAvailability();
+                yield Encoder.compress(body, new Encoder.Parameters().setQuality(BROTLI_QUALITY));
+            }
+        };
+    }
+
+    public byte[] decode(byte[] body) throws IOException {
+        return switch (this) {
+            case IDENTITY -> body;
+            case GZIP -> readAll(new GZIPInputStream(new ByteArrayInputStream(body)));
+            case DEFLATE -> readAll(new InflaterInputStream(new ByteArrayInputStream(body)));
+            case BR -> {
+                Brotli4jLoader.ensureAvailability();
+                yield Decoder.decompress(body).getDecompressedData();
+            }
+        };
+    }
+
+    private static byte[] deflate(byte[] body, ByteArrayOutputStream buffer, boolean gzip) throws IOException {
+        try (OutputStream out = gzip ? new GZIPOutputStream(buffer) : new DeflaterOutputStream(buffer)) {
+            out.write(body);
+        }
+        return buffer.toByteArray();
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        try (in) {
+            return in.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package simulations.encoding;
+
+import io.gatling.http.response.Response;
+import io.gatling.javaapi.core.Session;
+import org.HdrHistogram.Histogram;
+import simulations.config.TestConfig;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.report.Reports;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Bandwidth and decode cost of the same documents under each content coding. Gatling decodes
+ * responses inside its HTTP client and drops their Content-Length, so the load phases only see
+ * decoded bytes and time to last byte, decode included. After the run a probe therefore fetches a
+ * sample of the same documents under each coding with a client that leaves bodies encoded, and
+ * measures their wire size and the CPU time decoding them takes. Wire bytes per second under load
+ * are estimated from the decoded bytes and the probe's compression ratio.
+ */
+public class EncodingMatrix {
+
+    private static final String POKEMON_PATH = "/pokemon/";
+    private static final Duration PROBE_TIMEOUT = Duration.ofSeconds(30);
+
+    public record Row(
+            String encoding,
+            // Load phase, as Gatling received it
+            long requests,
+            long errors,
+            // Content-Encoding the target actually answered with, by count
+            Map<String, Long> served,
+            double meanDecodedBytes,
+            long ttlbPercentile50,
+            long ttlbPercentile95,
+            long ttlbPercentile99,
+            long ttlbMax,
+            double requestsPerSecond,
+            double decodedBytesPerSecond,
+            double wireBytesPerSecond,
+            // Probe, one request at a time after the load
+            long probeSamples,
+            double meanWireBytes,
+            double compressionRatio,
+            double probeTtlbMillis,
+            double decodeMicros,
+            double decodeNanosPerDecodedByte,
+            // Decode CPU the load phase's responses cost the client, and wire bytes saved against identity
+            double decodeCpuMillisPerSecond,
+            double wireSavedRatio
+    ) {}
+
+    public record Result(String testType, String target, double rate, int duration, List<Row> rows) {}
+
+    private record Phase(LongAdder requests, LongAdder errors, LongAdder decodedBytes, Map<String, LongAdder> served,
+                         AtomicLong firstMillis, AtomicLong lastMillis) {}
+
+    private record Probe(long samples, double meanWireBytes, double meanDecodedBytes, double ttlbMillis, double decodeMicros) {}
+
+    private final List<ContentCoding> codings = new ArrayList<>();
+    private final Map<ContentCoding, Phase> phases = new EnumMap<>(ContentCoding.class);
+    private final String baseUrl;
+    private final double rate;
+    private final int duration;
+    private final int warmUp;
+    private final int probeSamples;
+    private final int decodeRepeats;
+    private final Iterator<Map<String, Object>> probeIds;
+
+    public EncodingMatrix(TestConfig.EncodingConfig config, String baseUrl, Iterator<Map<String, Object>> probeIds) {
+        for (String token : config.encodings() == null ? TestConfig.EncodingConfig.ENCODINGS : config.encodings()) {
+            ContentCoding coding = ContentCoding.fromToken(token);
+            if (!coding.isAvailable()) {
+                System.err.println("Skipping " + token + ": not supported on this platform");
+                continue;
+            }
+            codings.add(coding);
+            phases.put(coding, new Phase(new LongAdder(), new LongAdder(), new LongAdder(), new ConcurrentHashMap<>(),
+                    new AtomicLong(Long.MAX_VALUE), new AtomicLong(Long.MIN_VALUE)));
+        }
+        this.baseUrl = baseUrl;
+        this.rate = config.rate() == null ? 10 : config.rate();
+        this.duration = config.duration() == null ? 60 : config.duration();
+        this.warmUp = config.warmUp() == null ? 15 : config.warmUp();
+        this.probeSamples = config.probeSamples() == null ? 20 : config.probeSamples();
+        this.decodeRepeats = config.decodeRepeats() == null ? 5 : config.decodeRepeats();
+        this.probeIds = probeIds;
+    }
+
+    public List<ContentCoding> codings() {
+        return codings;
+    }
+
+    public double rate() {
+        return rate;
+    }
+
+    public int duration() {
+        return duration;
+    }
+
+    public int warmUp() {
+        return warmUp;
+    }
+
+    public static String requestName(ContentCoding coding) {
+        return "Fetch Pokemon " + coding.token();
+    }
+
+    // Like ResponseTimeRegistry.tap, recording the decoded size and the coding the target chose
+    public BiFunction<Response, Session, Boolean> tap(ContentCoding coding) {
+        Phase phase = phases.get(coding);
+        return (response, session) -> {
+            phase.requests().increment();
+            phase.decodedBytes().add(response.body().length());
+            // Error pages are plain text whatever was negotiated, so only documents tell what was served
+            if (response.status().code() >= 400) {
+                phase.errors().increment();
+            } else {
+                String served = response.headers().get("Content-Encoding");
+                phase.served().computeIfAbsent(served == null ? "identity" : served.trim().toLowerCase(Locale.ROOT),
+                        key -> new LongAdder()).increment();
+            }
+            phase.firstMillis().accumulateAndGet(response.startTimestamp(), Math::min);
+            phase.lastMillis().accumulateAndGet(response.endTimestamp(), Math::max);
+            return false;
+        };
+    }
+
+    public void complete(String testType) {
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < probeSamples && probeIds.hasNext(); i++) {
+            ids.add(String.valueOf(probeIds.next().get("randomPokemon")));
+        }
+        System.out.printf("%nProbing %d documents under %d encodings%n", ids.size(), codings.size());
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(PROBE_TIMEOUT)
+                .build();
+        Map<ContentCoding, Probe> probes = new EnumMap<>(ContentCoding.class);
+        for (ContentCoding coding : codings) {
+            probes.put(coding, probe(client, coding, ids));
+        }
+
+        List<Row> rows = new ArrayList<>();
+        Probe identity = probes.get(ContentCoding.IDENTITY);
+        for (ContentCoding coding : codings) {
+            rows.add(row(coding, phases.get(coding), probes.get(coding), identity));
+        }
+        write(new Result(testType, baseUrl, rate, duration, rows));
+    }
+
+    // Fetches every id once, so the connection is warm, then measures on a second pass
+    private Probe probe(HttpClient client, ContentCoding coding, List<String> ids) {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        long samples = 0;
+        long wireBytes = 0;
+        long decodedBytes = 0;
+        long ttlbNanos = 0;
+        long decodeNanos = 0;
+        for (int pass = 0; pass < 2; pass++) {
+            for (String id : ids) {
+                HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + POKEMON_PATH + id))
+                        .header("Accept-Encoding", coding.token())
+                        .timeout(PROBE_TIMEOUT)
+                        .GET()
+                        .build();
+                try {
+                    long start = System.nanoTime();
+                    HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    long ttlb = System.nanoTime() - start;
+                    if (pass == 0 || response.statusCode() != 200) {
+                        continue;
+                    }
+                    ContentCoding served = ContentCoding.fromToken(
+                            response.headers().firstValue("Content-Encoding").orElse("identity"));
+                    byte[] body = response.body();
+                    // One unmeasured decode, then the mean of the measured ones
+                    byte[] decoded = served.decode(body);
+                    long cpuStart = threads.getCurrentThreadCpuTime();
+                    for (int i = 0; i < decodeRepeats; i++) {
+                        served.decode(body);
+                    }
+                    decodeNanos += (threads.getCurrentThreadCpuTime() - cpuStart) / Math.max(1, decodeRepeats);
+                    samples++;
+                    wireBytes += body.length;
+                    decodedBytes += decoded.length;
+                    ttlbNanos += ttlb;
+                } catch (IOException | IllegalArgumentException e) {
+                    System.err.println("Encoding probe of " + coding.token() + " failed for id " + id + ": " + e.getMessage());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return new Probe(0, 0, 0, 0, 0);
+                }
+            }
+        }
+        if (samples == 0) {
+            return new Probe(0, 0, 0, 0, 0);
+        }
+        return new Probe(samples, (double) wireBytes / samples, (double) decodedBytes / samples,
+                ttlbNanos / 1e6 / samples, decodeNanos / 1e3 / samples);
+    }
+
+    private Row row(ContentCoding coding, Phase phase, Probe probe, Probe identity) {
+        ResponseTimeRegistry.Entry entry = ResponseTimeRegistry.entries().get(requestName(coding));
+        Histogram ttlb = entry == null ? new Histogram(3) : entry.cumulative();
+        long requests = phase.requests().sum();
+        double seconds = requests == 0 ? 0 : Math.max(1e-3, (phase.lastMillis().get() - phase.firstMillis().get()) / 1000.0);
+        double requestsPerSecond = seconds == 0 ? 0 : requests / seconds;
+        double decodedPerSecond = seconds == 0 ? 0 : phase.decodedBytes().sum() / seconds;
+        double compressionRatio = probe.meanWireBytes() == 0 ? 0 : probe.meanDecodedBytes() / probe.meanWireBytes();
+        Map<String, Long> served = new TreeMap<>();
+        phase.served().forEach((name, count) -> served.put(name, count.sum()));
+        return new Row(coding.token(), requests, phase.errors().sum(), served,
+                requests == 0 ? 0 : (double) phase.decodedBytes().sum() / requests,
+                ttlb.getValueAtPercentile(50), ttlb.getValueAtPercentile(95), ttlb.getValueAtPercentile(99), ttlb.getMaxValue(),
+                requestsPerSecond, decodedPerSecond, compressionRatio == 0 ? 0 : decodedPerSecond / compressionRatio,
+                probe.samples(), probe.meanWireBytes(), compressionRatio, probe.ttlbMillis(), probe.decodeMicros(),
+                probe.meanDecodedBytes() == 0 ? 0 : probe.decodeMicros() * 1000 / probe.meanDecodedBytes(),
+                probe.decodeMicros() * requestsPerSecond / 1000,
+                identity == null || identity.meanWireBytes() == 0 ? 0 : 1 - probe.meanWireBytes() / identity.meanWireBytes());
+    }
+
+    private static void write(Result result) {
+        System.out.printf("%nEncoding matrix against %s (%.0f/s for %d s per encoding)%n",
+                result.target(), result.rate(), result.duration());
+        System.out.printf("%-9s %7s %4s %10s %10s %6s %6s %6s %7s %11s %11s %10s %7s %9s %9s %8s%n",
+                "Encoding", "Reqs", "KO", "Decoded B", "Wire B", "Ratio", "Saved", "p50", "p99", "Decoded B/s",
+                "Wire B/s", "Probe TTLB", "Dec µs", "Dec ns/B", "CPU ms/s", "Served");
+        for (Row row : result.rows()) {
+            System.out.printf("%-9s %7d %4d %10.0f %10.0f %5.1fx %5.1f%% %6d %7d %11.0f %11.0f %9.1fms %7.0f %9.2f %9.1f %s%n",
+                    row.encoding(), row.requests(), row.errors(), row.meanDecodedBytes(), row.meanWireBytes(),
+                    row.compressionRatio(), row.wireSavedRatio() * 100, row.ttlbPercentile50(), row.ttlbPercentile99(),
+                    row.decodedBytesPerSecond(), row.wireBytesPerSecond(), row.probeTtlbMillis(), row.decodeMicros(),
+                    row.decodeNanosPerDecodedByte(), row.decodeCpuMillisPerSecond(), row.served());
+        }
+        result.rows().stream()
+                .filter(row -> row.served().keySet().stream().anyMatch(served -> !served.equals(row.encoding())))
+                .forEach(row -> System.out.printf("WARNING: %s was requested but the target answered %s%n",
+                        row.encoding(), row.served()));
+
+        Reports.write("encoding", "encoding-" + result.testType() + "-" + Reports.timestamp(),
+                result, "encoding matrix");
+    }
+}
@@ -0,0 +1,106 @@
+package simulations.factory;
+
+import io.gatling.javaapi.core.Assertion;
+import simulations.config.TestConfig;
+import simulations.distributed.WorkerShard;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Turns the configured service level objectives of a test type into Gatling assertions, globally,
+ * per scenario group and per request. Requests are looked up by name in every scenario that sends
+ * them, so "List Pokemon" is judged both on its own and inside the mixed operations scenario when
+ * both are injected.
+ */
+public class AssertionFactory {
+
+    public static List<Assertion> create(TestConfig config, String testType) {
+        List<Assertion> assertions = new ArrayList<>();
+        TestConfig.Assertion slo = config.getAssertions() == null ? null : config.getAssertions().get(testType);
+        if (slo == null) {
+            return assertions;
+        }
+
+        // Gatling fails assertions on paths without stats, so only injected scenarios are addressed
+        Set<String> injectedGroups = new HashSet<>();
+        if (config.getLoadPatterns() != null) {
+            config.getLoadPatterns().forEach((name, pattern) -> {
+                String group = ScenarioFactory.scenarioGroup(pattern.scenarioName(name));
+                if (group != null) {
+                    injectedGroups.add(group);
+                }
+            });
+        }
+
+        assertions.addAll(objectives(List.of(), slo));
+        if (slo.scenarios() != null) {
+            for (Map.Entry<String, TestConfig.Assertion> scenario : slo.scenarios().entrySet()) {
+                String group = ScenarioFactory.scenarioGroup(scenario.getKey());
+                if (group == null || !injectedGroups.contains(group)) {
+                    throw new IllegalArgumentException("Assertions of " + testType + " refer to a scenario that is not injected: " + scenario.getKey());
+                }
+                assertions.addAll(objectives(List.of(group), scenario.getValue()));
+            }
+        }
+        if (slo.requests() != null) {
+            for (Map.Entry<String, TestConfig.Assertion> request : slo.requests().entrySet()) {
+                List<List<String>> paths = ScenarioFactory.requestPaths(request.getKey()).stream()
+                        .filter(path -> path.size() == 1 || injectedGroups.contains(path.get(0)))
+                        .sorted(Comparator.comparing(Object::toString))
+                        .toList();
+                if (paths.isEmpty()) {
+                    throw new IllegalArgumentException("Assertions of " + testType + " refer to a request no injected scenario sends: " + request.getKey());
+                }
+                for (List<String> path : paths) {
+                    assertions.addAll(objectives(path, request.getValue()));
+                }
+            }
+        }
+        return assertions;
+    }
+
+    // An empty path is the global aggregate
+    private static List<Assertion> objectives(List<String> path, TestConfig.Assertion slo) {
+        List<Assertion> assertions = new ArrayList<>();
+        if (slo.maxResponseTime() != null) {
+            assertions.add(target(path).responseTime().max().lt(slo.maxResponseTime()));
+        }
+        if (slo.meanResponseTime() != null) {
+            assertions.add(target(path).responseTime().mean().lt(slo.meanResponseTime()));
+        }
+        if (slo.percentile50() != null) {
+            assertions.add(target(path).responseTime().percentile(50).lt(slo.percentile50()));
+        }
+        if (slo.percentile95() != null) {
+            assertions.add(target(path).responseTime().percentile(95).lt(slo.percentile95()));
+        }
+        if (slo.percentile99() != null) {
+            assertions.add(target(path).responseTime().percentile(99).lt(slo.percentile99()));
+        }
+        if (slo.percentile999() != null) {
+            assertions.add(target(path).responseTime().percentile(99.9).lt(slo.percentile999()));
+        }
+        if (slo.successRate() != null) {
+            assertions.add(target(path).successfulRequests().percent().gt(slo.successRate()));
+        }
+        if (slo.errorBudget() != null) {
+            assertions.add(target(path).failedRequests().percent().lte(slo.errorBudget()));
+        }
+        if (slo.minThroughput() != null) {
+            // A worker of a distributed run sends its slice of the load, so it is held to its slice
+            assertions.add(target(path).requestsPerSec().gte(WorkerShard.current().share(slo.minThroughput())));
+        }
+        return assertions;
+    }
+
+    private static Assertion.WithPath target(List<String> path) {
+        return path.isEmpty() ? global() : details(path.toArray(String[]::new));
+    }
+}
@@ -1,9 +1,11 @@
-
 package simulations.factory;
 
 import io.gatling.javaapi.http.HttpProtocolBuilder;
 import simulations.config.TestConfig;
 
+import javax.net.ssl.KeyManagerFactory;
+import java.security.GeneralSecurityException;
+
 import static io.gatling.javaapi.http.HttpDsl.http;
 
 public class HttpProtocolFactory {
@@ -11,10 +13,66 @@ public class HttpProtocolFactory {
     public static HttpProtocolBuilder create(TestConfig config) {
         TestConfig.HttpConfig httpConfig = config.getHttp();
 
-        return http
+        HttpProtocolBuilder protocol = http
                 .baseUrl(httpConfig.baseUrl())
                 .acceptHeader(httpConfig.acceptHeader())
                 .acceptEncodingHeader(httpConfig.acceptEncodingHeader())
-                .userAgentHeader(httpConfig.userAgentHeader());
+                .userAgentHeader(httpConfig.userAgentHeader())
+                // Every request goes to the target; conditional requests are sent explicitly by scenarios
+                .disableCaching();
+
+        TestConfig.ConnectionProfile profile = connectionProfile(httpConfig);
+        return profile == null ? protocol : applyProfile(protocol, profile);
+    }
+
+    // -DconnectionProfile overrides the profile named in the http config
+    private static String connectionProfileName(TestConfig.HttpConfig httpConfig) {
+        return System.getProperty("connectionProfile", httpConfig.connectionProfile());
+    }
+
+    private static TestConfig.ConnectionProfile connectionProfile(TestConfig.HttpConfig httpConfig) {
+        String name = connectionProfileName(httpConfig);
+        if (name == null) {
+            return null;
+        }
+        if (httpConfig.connectionProfiles() == null || !httpConfig.connectionProfiles().containsKey(name)) {
+            throw new IllegalArgumentException("Unknown connection profile: " + name);
+        }
+        return httpConfig.connectionProfiles().get(name);
+    }
+
+    private static HttpProtocolBuilder applyProfile(HttpProtocolBuilder protocol, TestConfig.ConnectionProfile profile) {
+        if (profile.isShared()) {
+            protocol = protocol.shareConnections();
+        }
+        if (Boolean.TRUE.equals(profile.http2())) {
+            protocol = protocol.enableHttp2();
+        }
+        if (profile.maxConnectionsPerHost() != null) {
+            protocol = protocol.maxConnectionsPerHost(profile.maxConnectionsPerHost());
+        }
+        if (Boolean.FALSE.equals(profile.keepAlive())) {
+            protocol = protocol.connectionHeader("close");
+        }
+        if ("async".equals(profile.dns())) {
+            protocol = protocol.asyncNameResolution();
+        } else if ("perUser".equals(profile.dns())) {
+            protocol = protocol.asyncNameResolution().perUserNameResolution();
+        }
+        if (Boolean.FALSE.equals(profile.tlsSessionReuse())) {
+            // A per-user key manager makes Gatling build one SSL context, and session cache, per user
+            protocol = protocol.perUserKeyManagerFactory(userId -> defaultKeyManagerFactory());
+        }
+        return protocol;
+    }
+
+    private static KeyManagerFactory defaultKeyManagerFactory() {
+        try {
+            KeyManagerFactory factory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+            factory.init(null, null);
+            return factory;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Failed to create a key manager factory", e);
+        }
     }
 }
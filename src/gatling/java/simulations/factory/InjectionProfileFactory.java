@@ -0,0 +1,170 @@
+package simulations.factory;
+
+import io.gatling.javaapi.core.ClosedInjectionStep;
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import simulations.config.TestConfig;
+import simulations.distributed.WorkerShard;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Compiles the {@code loadPatterns} section of a config into Gatling populations. Step shapes are
+ * validated when the config is loaded, so this only maps each step onto its DSL counterpart. In a
+ * distributed run every step is first cut down to this worker's share of the load.
+ */
+public class InjectionProfileFactory {
+
+    public static List<PopulationBuilder> create(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        if (config.getLoadPatterns() == null || config.getLoadPatterns().isEmpty()) {
+            throw new IllegalArgumentException("No loadPatterns configured");
+        }
+        WorkerShard shard = WorkerShard.current();
+        List<PopulationBuilder> populations = new ArrayList<>();
+        Set<String> injected = new HashSet<>();
+
+        config.getLoadPatterns().forEach((name, pattern) -> {
+            String scenarioName = pattern.scenarioName(name);
+            ScenarioBuilder scenario = scenarios.get(scenarioName);
+            if (scenario == null) {
+                throw new IllegalArgumentException("loadPatterns." + name + ": unknown scenario \"" + scenarioName
+                        + "\", expected one of " + scenarios.keySet());
+            }
+            if (!injected.add(scenarioName)) {
+                throw new IllegalArgumentException("loadPatterns." + name + ": scenario \"" + scenarioName
+                        + "\" is already injected by another pattern");
+            }
+
+            List<TestConfig.InjectionStep> steps = pattern.steps().stream()
+                    .map(step -> slice(step, shard, pattern.isClosed()))
+                    .toList();
+            populations.add(pattern.isClosed()
+                    ? scenario.injectClosed(closedSteps(steps))
+                    : scenario.injectOpen(openSteps(steps)));
+        });
+
+        return populations;
+    }
+
+    // Every scenario of the load patterns at one steady arrival rate, or the mixed scenario when the
+    // test type injects its own population
+    public static List<PopulationBuilder> warmUp(Map<String, ScenarioBuilder> scenarios, TestConfig config,
+                                                 int durationSeconds, double rate) {
+        List<String> names = config.getLoadPatterns() == null || config.getLoadPatterns().isEmpty()
+                ? List.of("mixedOperations")
+                : config.getLoadPatterns().entrySet().stream()
+                        .map(pattern -> pattern.getValue().scenarioName(pattern.getKey()))
+                        .distinct()
+                        .toList();
+        List<PopulationBuilder> populations = new ArrayList<>();
+        for (String name : names) {
+            ScenarioBuilder scenario = scenarios.get(name);
+            if (scenario != null) {
+                populations.add(scenario.injectOpen(constantUsersPerSec(rate).during(durationSeconds)));
+            }
+        }
+        return populations;
+    }
+
+    public static List<OpenInjectionStep> openSteps(List<TestConfig.InjectionStep> steps) {
+        List<OpenInjectionStep> compiled = new ArrayList<>();
+        for (TestConfig.InjectionStep step : steps) {
+            OpenInjectionStep open = toOpen(step);
+            for (int i = 0; i < repeat(step); i++) {
+                compiled.add(open);
+            }
+        }
+        return compiled;
+    }
+
+    public static List<ClosedInjectionStep> closedSteps(List<TestConfig.InjectionStep> steps) {
+        List<ClosedInjectionStep> compiled = new ArrayList<>();
+        for (TestConfig.InjectionStep step : steps) {
+            ClosedInjectionStep closed = toClosed(step);
+            for (int i = 0; i < repeat(step); i++) {
+                compiled.add(closed);
+            }
+        }
+        return compiled;
+    }
+
+    private static OpenInjectionStep toOpen(TestConfig.InjectionStep step) {
+        boolean randomized = Boolean.TRUE.equals(step.randomized());
+        return switch (step.type()) {
+            case "nothing" -> nothingFor(step.duration());
+            case "atOnce" -> atOnceUsers(step.users());
+            case "stressPeak" -> stressPeakUsers(step.users()).during(step.duration());
+            case "ramp" -> {
+                if (step.users() != null) {
+                    yield rampUsers(step.users()).during(step.duration());
+                }
+                var ramp = rampUsersPerSec(step.from()).to(step.to()).during(step.duration());
+                yield randomized ? ramp.randomized() : ramp;
+            }
+            case "constant" -> {
+                var constant = constantUsersPerSec(step.rate()).during(step.duration());
+                yield randomized ? constant.randomized() : constant;
+            }
+            case "stairs" -> incrementUsersPerSec(step.increment())
+                    .times(step.times())
+                    .eachLevelLasting(step.duration())
+                    .separatedByRampsLasting(step.rampDuration() == null ? 0 : step.rampDuration())
+                    .startingFrom(step.from() == null ? 0 : step.from());
+            default -> throw new IllegalArgumentException("Unsupported open injection step: " + step.type());
+        };
+    }
+
+    private static ClosedInjectionStep toClosed(TestConfig.InjectionStep step) {
+        return switch (step.type()) {
+            case "ramp" -> rampConcurrentUsers(step.from().intValue())
+                    .to(step.to().intValue())
+                    .during(step.duration());
+            case "constant" -> constantConcurrentUsers(step.users()).during(step.duration());
+            case "stairs" -> incrementConcurrentUsers(step.increment().intValue())
+                    .times(step.times())
+                    .eachLevelLasting(step.duration())
+                    .separatedByRampsLasting(step.rampDuration() == null ? 0 : step.rampDuration())
+                    .startingFrom(step.from() == null ? 0 : step.from().intValue());
+            default -> throw new IllegalArgumentException("Unsupported closed injection step: " + step.type());
+        };
+    }
+
+    // Rates are divided evenly, whole users are dealt out so that all slices add up to the step
+    static TestConfig.InjectionStep slice(TestConfig.InjectionStep step, WorkerShard shard, boolean closed) {
+        if (shard.count() == 1) {
+            return step;
+        }
+        return new TestConfig.InjectionStep(
+                step.type(),
+                step.users() == null ? null : shard.share(step.users()),
+                step.rate() == null ? null : shard.share(step.rate()),
+                sliceLevel(step.from(), shard, closed),
+                sliceLevel(step.to(), shard, closed),
+                step.duration(),
+                sliceLevel(step.increment(), shard, closed),
+                step.times(),
+                step.rampDuration(),
+                step.randomized(),
+                step.repeat()
+        );
+    }
+
+    // from/to/increment hold rates for open workloads and whole users for closed ones
+    private static Double sliceLevel(Double value, WorkerShard shard, boolean closed) {
+        if (value == null) {
+            return null;
+        }
+        return closed ? (double) shard.share(value.intValue()) : shard.share(value);
+    }
+
+    private static int repeat(TestConfig.InjectionStep step) {
+        return step.repeat() == null ? 1 : step.repeat();
+    }
+}
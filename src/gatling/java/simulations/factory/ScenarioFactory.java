@@ -1,6 +1,35 @@
 package simulations.factory;
 
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Choice;
 import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+import simulations.breakpoint.BreakpointController;
+import simulations.check.ResponseChecks;
+import simulations.config.TestConfig;
+import simulations.encoding.ContentCoding;
+import simulations.encoding.EncodingMatrix;
+import simulations.feeder.PokemonIdFeeder;
+import simulations.graphql.GraphQlComparison;
+import simulations.metrics.CacheStatus;
+import simulations.metrics.CoordinatedOmission;
+import simulations.metrics.OffsetCurve;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.mix.TrafficMix;
+import simulations.replay.AccessLog;
+import simulations.retry.Retries;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
 
 import static io.gatling.javaapi.core.CoreDsl.*;
 import static io.gatling.javaapi.http.HttpDsl.*;
@@ -9,70 +38,495 @@ public class ScenarioFactory {
 
     private static final String POKEMON_BASE_PATH = "/pokemon";
 
-    public static ScenarioBuilder createGetPokemonById() {
-        return scenario("Get Pokemon by ID")
-                .exec(
-                        http("Get Pikachu")
-                                .get(POKEMON_BASE_PATH + "/25")
+    private static final String GET_POKEMON_BY_ID = "Get Pokemon by ID";
+    private static final String GET_POKEMON_BY_NAME = "Get Pokemon by Name";
+    private static final String LIST_POKEMON = "List Pokemon";
+    private static final String GET_POKEMON_ABILITIES = "Get Pokemon Abilities";
+    private static final String MIXED_OPERATIONS = "Mixed Pokemon Operations";
+    private static final String CACHE_AWARE = "Cache Aware Pokemon";
+    private static final String TRAVERSAL = "Pokemon Traversal";
+    private static final String SEQUENTIAL_TRAVERSAL = "Sequential Pokemon Traversal";
+    private static final String PAGINATION_WALK = "Pokemon Pagination Walk";
+    private static final String REPLAY = "Access Log Replay";
+    private static final String ENCODING = "Pokemon Encoding";
+    private static final String WARM_UP_CODING = "warmUpCoding";
+    private static final String TRAFFIC_MIX = "Pokemon Traffic Mix";
+
+    private static final String CACHE_BUSTER = "cacheBuster";
+    private static final String ETAG = "etag";
+    private static final String LAST_MODIFIED = "lastModified";
+    private static final String TRAVERSAL_START = "traversalStart";
+    private static final String ABILITY_URLS = "abilityUrls";
+    private static final String SPECIES_URL = "speciesUrl";
+    private static final String EVOLUTION_CHAIN_URL = "evolutionChainUrl";
+    private static final String WALK_START = "walkStart";
+    private static final String PAGE_URL = "pageUrl";
+    private static final String NEXT_PAGE_URL = "nextPageUrl";
+    private static final String PAGE_ITEMS = "pageItems";
+    private static final String WALKED_PAGES = "walkedPages";
+    private static final String MIX_START = "mixStart";
+    private static final String MIX_NAME = "mixPokemonName";
+    private static final String MIX_OFFSET = "mixOffset";
+    private static final String BATCH_IDS = "batchIds";
+    private static final String BATCH_START = "batchStart";
+    private static final String GRAPHQL_BODY = "graphqlBody";
+    // PokeAPI lists at most two regular abilities and one hidden ability per Pokemon
+    private static final int MAX_ABILITIES = 3;
+
+    // Each scenario runs inside a group of the same name, so assertions can address the scenario
+    // as a whole and tell apart requests of the same name in different scenarios
+    private static final Map<String, String> SCENARIO_GROUPS = new ConcurrentHashMap<>();
+    private static final Map<String, Set<List<String>>> REQUEST_PATHS = new ConcurrentHashMap<>();
+
+    // Keyed by the names load patterns refer to in their "scenario" field
+    public static Map<String, ScenarioBuilder> createAll(TestConfig config, ResponseChecks checks) {
+        Map<String, ScenarioBuilder> scenarios = new LinkedHashMap<>();
+        scenarios.put("getPokemonById", createGetPokemonById(checks));
+        scenarios.put("getPokemonByName", createGetPokemonByName(checks));
+        scenarios.put("listPokemon", createListPokemon(checks));
+        scenarios.put("getPokemonAbilities", createGetPokemonAbilities(
+                PokemonIdFeeder.from(config.feederFor("getPokemonAbilities"))));
+        scenarios.put("mixedOperations", createMixedOperations(
+                PokemonIdFeeder.from(config.feederFor("mixedOperations"))));
+        scenarios.put("cacheAware", createCacheAware(
+                PokemonIdFeeder.from(config.feederFor("cacheAware")), config.getCache()));
+        scenarios.put("traversal", createTraversal(
+                PokemonIdFeeder.from(config.feederFor("traversal")), true));
+        scenarios.put("sequentialTraversal", createTraversal(
+                PokemonIdFeeder.from(config.feederFor("sequentialTraversal")), false));
+        scenarios.put("paginationWalk", createPaginationWalk(config.getPagination()));
+        scenarios.put("trafficMix", createTrafficMix(
+                PokemonIdFeeder.from(config.feederFor("trafficMix")), TrafficMix.create(config.getMix())));
+        SCENARIO_GROUPS.put("getPokemonById", GET_POKEMON_BY_ID);
+        SCENARIO_GROUPS.put("getPokemonByName", GET_POKEMON_BY_NAME);
+        SCENARIO_GROUPS.put("listPokemon", LIST_POKEMON);
+        SCENARIO_GROUPS.put("getPokemonAbilities", GET_POKEMON_ABILITIES);
+        SCENARIO_GROUPS.put("mixedOperations", MIXED_OPERATIONS);
+        SCENARIO_GROUPS.put("cacheAware", CACHE_AWARE);
+        SCENARIO_GROUPS.put("traversal", TRAVERSAL);
+        SCENARIO_GROUPS.put("sequentialTraversal", SEQUENTIAL_TRAVERSAL);
+        SCENARIO_GROUPS.put("paginationWalk", PAGINATION_WALK);
+        SCENARIO_GROUPS.put("trafficMix", TRAFFIC_MIX);
+        return scenarios;
+    }
+
+    // Group of a scenario created by createAll, or null for an unknown scenario key
+    public static String scenarioGroup(String scenario) {
+        return SCENARIO_GROUPS.get(scenario);
+    }
+
+    // Group path of every request of that name, empty for an unknown request
+    public static Set<List<String>> requestPaths(String requestName) {
+        return REQUEST_PATHS.getOrDefault(requestName, Set.of());
+    }
+
+    public static ScenarioBuilder createGetPokemonById(ResponseChecks checks) {
+        return grouped(GET_POKEMON_BY_ID, Retries.send("Get Pikachu",
+                        get(GET_POKEMON_BY_ID, "Get Pikachu", POKEMON_BASE_PATH + "/25")
                                 .check(status().is(200))
-                                .check(jsonPath("$.name").is("pikachu"))
+                                .check(checks.fieldIs("Get Pikachu", "name", "pikachu"))
                 )
-                .pause(1);
+                .exec(think(1)));
     }
 
-    public static ScenarioBuilder createGetPokemonByName() {
-        return scenario("Get Pokemon by Name")
-                .exec(
-                        http("Get Charizard")
-                                .get(POKEMON_BASE_PATH + "/charizard")
+    public static ScenarioBuilder createGetPokemonByName(ResponseChecks checks) {
+        return grouped(GET_POKEMON_BY_NAME, Retries.send("Get Charizard",
+                        get(GET_POKEMON_BY_NAME, "Get Charizard", POKEMON_BASE_PATH + "/charizard")
                                 .check(status().is(200))
-                                .check(jsonPath("$.id").is("6"))
+                                .check(checks.fieldIs("Get Charizard", "id", "6"))
                 )
-                .pause(1);
+                .exec(think(1)));
     }
 
-    public static ScenarioBuilder createListPokemon() {
-        return scenario("List Pokemon")
-                .exec(
-                        http("List Pokemon")
-                                .get(POKEMON_BASE_PATH + "?limit=20&offset=0")
+    public static ScenarioBuilder createListPokemon(ResponseChecks checks) {
+        return grouped(LIST_POKEMON, Retries.send("List Pokemon",
+                        get(LIST_POKEMON, "List Pokemon", POKEMON_BASE_PATH + "?limit=20&offset=0")
                                 .check(status().is(200))
-                                .check(jsonPath("$.results").exists())
+                                .check(checks.fieldExists("List Pokemon", "results"))
                 )
-                .pause(1);
+                .exec(think(1)));
     }
 
-    public static ScenarioBuilder createGetPokemonAbilities() {
-        return scenario("Get Pokemon Abilities")
-                .feed(csv("pokemon-ids.csv").random())
-                .exec(
-                        http("Get Pokemon and Ability")
-                                .get(POKEMON_BASE_PATH + "/#{randomPokemon}")
+    public static ScenarioBuilder createGetPokemonAbilities(PokemonIdFeeder feeder) {
+        return grouped(GET_POKEMON_ABILITIES, feed(feeder)
+                .exec(Retries.send("Get Pokemon and Ability",
+                        get(GET_POKEMON_ABILITIES, "Get Pokemon and Ability", POKEMON_BASE_PATH + "/#{randomPokemon}")
                                 .check(status().is(200))
-                )
-                .pause(1);
+                ))
+                .exec(think(1)));
+    }
+
+    public static ScenarioBuilder createMixedOperations(PokemonIdFeeder feeder) {
+        return grouped(MIXED_OPERATIONS, feed(feeder)
+                .exec(Retries.send("Get Random Pokemon 1", getRandomPokemon(MIXED_OPERATIONS, "Get Random Pokemon 1")))
+                .exec(think(1, 2))
+                .exec(Retries.send("List Pokemon", listPokemonPage(MIXED_OPERATIONS, "List Pokemon", "?limit=10")))
+                .exec(think(1, 2))
+                .feed(feeder)
+                .exec(Retries.send("Get Random Pokemon 2", getRandomPokemon(MIXED_OPERATIONS, "Get Random Pokemon 2"))));
     }
 
-    public static ScenarioBuilder createMixedOperations() {
-        return scenario("Mixed Pokemon Operations")
-                .feed(csv("pokemon-ids.csv").random())
-                .exec(
-                        http("Get Random Pokemon 1")
-                                .get(POKEMON_BASE_PATH + "/#{randomPokemon}")
+    // Fetches a Pokemon, a share of them past the edge cache, then revalidates the copy it holds.
+    // Responses are also recorded per edge cache status, see CacheStatus
+    public static ScenarioBuilder createCacheAware(PokemonIdFeeder feeder, TestConfig.CacheConfig cache) {
+        double missRatio = cache == null || cache.missRatio() == null ? 0.2 : cache.missRatio();
+        String validator = cache == null || cache.validator() == null ? "etag" : cache.validator();
+        int revalidations = cache == null || cache.revalidations() == null ? 2 : cache.revalidations();
+
+        HttpRequestActionBuilder revalidate = cached(CACHE_AWARE, "Cache Revalidate", POKEMON_BASE_PATH + "/#{randomPokemon}")
+                .check(status().in(200, 304));
+        ChainBuilder revalidation = switch (validator) {
+            case "etag" -> doIf(session -> session.contains(ETAG)).then(
+                    Retries.send("Cache Revalidate", revalidate.header("If-None-Match", "#{" + ETAG + "}")));
+            case "lastModified" -> doIf(session -> session.contains(LAST_MODIFIED)).then(
+                    Retries.send("Cache Revalidate", revalidate.header("If-Modified-Since", "#{" + LAST_MODIFIED + "}")));
+            default -> Retries.send("Cache Revalidate", revalidate);
+        };
+
+        return grouped(CACHE_AWARE, feed(feeder)
+                .exec(session -> session.set(CACHE_BUSTER, ThreadLocalRandom.current().nextDouble() < missRatio
+                        ? "?cb=" + Long.toHexString(ThreadLocalRandom.current().nextLong())
+                        : ""))
+                .exec(Retries.send("Cache Fetch",
+                        cached(CACHE_AWARE, "Cache Fetch", POKEMON_BASE_PATH + "/#{randomPokemon}#{" + CACHE_BUSTER + "}")
                                 .check(status().is(200))
-                )
-                .pause(1, 2)
-                .exec(
-                        http("List Pokemon")
-                                .get(POKEMON_BASE_PATH + "?limit=10")
+                                .check(header("ETag").optional().saveAs(ETAG))
+                                .check(header("Last-Modified").optional().saveAs(LAST_MODIFIED))
+                ))
+                .exec(think(1))
+                .repeat(revalidations).on(revalidation.exec(think(1))));
+    }
+
+    // Follows the links of a Pokemon the way a client renders it: the Pokemon, its species, the
+    // species' evolution chain and the Pokemon's abilities. With fanOut the abilities are fetched
+    // concurrently as resources of the evolution chain request, the last link that depends on an
+    // earlier response; otherwise every link is fetched after the previous one. The time from the
+    // first request to the last response is recorded as the "[end-to-end]" span of the group
+    public static ScenarioBuilder createTraversal(PokemonIdFeeder feeder, boolean fanOut) {
+        String group = fanOut ? TRAVERSAL : SEQUENTIAL_TRAVERSAL;
+        return grouped(group, feed(feeder)
+                .exec(traversal(group, fanOut))
+                .exitHereIfFailed()
+                .exec(think(1)));
+    }
+
+    // The links after a failed Pokemon or species request cannot be followed, so they are skipped
+    private static ChainBuilder traversal(String group, boolean fanOut) {
+        HttpRequestActionBuilder evolutionChain = get(group, "Traversal Evolution Chain", "#{" + EVOLUTION_CHAIN_URL + "}")
+                .check(status().is(200));
+
+        ChainBuilder linked;
+        if (fanOut) {
+            // Resources are fixed when the request is built, so there is one variant per ability count
+            List<Choice.WithKey> variants = new ArrayList<>();
+            for (int count = 1; count <= MAX_ABILITIES; count++) {
+                HttpRequestActionBuilder[] abilities = new HttpRequestActionBuilder[count];
+                for (int i = 0; i < count; i++) {
+                    abilities[i] = resource(group, "Traversal Ability", "#{" + ABILITY_URLS + "(" + i + ")}")
+                            .check(status().is(200));
+                }
+                variants.add(onCase(count).then(Retries.send("Traversal Evolution Chain", evolutionChain.resources(abilities))));
+            }
+            linked = doSwitch(session -> Math.min(session.getList(ABILITY_URLS).size(), MAX_ABILITIES)).on(variants);
+        } else {
+            linked = Retries.send("Traversal Evolution Chain", evolutionChain).foreach("#{" + ABILITY_URLS + "}", "abilityUrl").on(
+                    Retries.send("Traversal Ability", get(group, "Traversal Ability", "#{abilityUrl}").check(status().is(200))));
+        }
+
+        // The traffic mix runs several traversals in one session, so links of an earlier one are
+        // cleared rather than followed again
+        return exec(session -> session.remove(ABILITY_URLS).remove(SPECIES_URL).remove(EVOLUTION_CHAIN_URL)
+                        .set(TRAVERSAL_START, System.nanoTime()))
+                .exec(Retries.send("Traversal Pokemon",
+                        get(group, "Traversal Pokemon", POKEMON_BASE_PATH + "/#{randomPokemon}")
                                 .check(status().is(200))
+                                .check(jsonPath("$.abilities[*].ability.url").findAll().saveAs(ABILITY_URLS))
+                                .check(jsonPath("$.species.url").saveAs(SPECIES_URL))
+                ))
+                .doIf(session -> !session.isFailed()).then(
+                        Retries.send("Traversal Species",
+                                get(group, "Traversal Species", "#{" + SPECIES_URL + "}")
+                                        .check(status().is(200))
+                                        .check(jsonPath("$.evolution_chain.url").saveAs(EVOLUTION_CHAIN_URL))
+                        ))
+                .doIf(session -> !session.isFailed()).then(
+                        exec(linked)
+                                .exec(ResponseTimeRegistry.span(ResponseTimeRegistry.breakdownName(group, "end-to-end"), TRAVERSAL_START)));
+    }
+
+    // One visit of a production-like user: operationsPerSession operations, each picked by its weight
+    // in the mix and followed by a think time drawn from the mix's distribution. Under a closed
+    // workload the visit ends with a think time too, so a replacing user does not start right away
+    public static ScenarioBuilder createTrafficMix(PokemonIdFeeder feeder, TrafficMix mix) {
+        List<Choice.WithWeight> operations = new ArrayList<>();
+        mix.percentages().forEach((operation, percentage) -> operations.add(percent(percentage).then(
+                // Operations succeed or fail on their own, an earlier failure must not cut a traversal short
+                exec(session -> {
+                    mix.picked(operation);
+                    return session.markAsSucceeded();
+                }).exec(mixOperation(operation, mix)))));
+
+        return grouped(TRAFFIC_MIX, exec(session -> {
+                    mix.sessionStarted();
+                    return session.set(MIX_START, System.nanoTime());
+                })
+                .repeat(mix.operationsPerSession()).on(
+                        feed(feeder)
+                                .randomSwitch().on(operations)
+                                .exec(session -> CoordinatedOmission.think(session, mix.think()))
+                                .pause(session -> Duration.ofMillis(session.getLong(CoordinatedOmission.EXPECTED_INTERVAL))))
+                .exec(session -> {
+                    mix.sessionFinished(session.getLong(MIX_START));
+                    return session.remove(MIX_START);
+                }));
+    }
+
+    private static ChainBuilder mixOperation(String operation, TrafficMix mix) {
+        return switch (operation) {
+            case "byId" -> Retries.send("Mix Get Pokemon by ID", getRandomPokemon(TRAFFIC_MIX, "Mix Get Pokemon by ID"));
+            case "byName" -> exec(session -> session.set(MIX_NAME, mix.nameOf(session.getInt(PokemonIdFeeder.ATTRIBUTE))))
+                    .exec(Retries.send("Mix Get Pokemon by Name",
+                            get(TRAFFIC_MIX, "Mix Get Pokemon by Name", POKEMON_BASE_PATH + "/#{" + MIX_NAME + "}")
+                                    .check(status().is(200))));
+            // The page holding the drawn Pokemon, so list offsets follow the feeder's distribution
+            case "list" -> exec(session -> session.set(MIX_OFFSET, (session.getInt(PokemonIdFeeder.ATTRIBUTE) - 1) / 20 * 20))
+                    .exec(Retries.send("Mix List Pokemon",
+                            listPokemonPage(TRAFFIC_MIX, "Mix List Pokemon", "?limit=20&offset=#{" + MIX_OFFSET + "}")));
+            case "abilities" -> exec(session -> session.remove(ABILITY_URLS))
+                    .exec(Retries.send("Mix Get Pokemon Abilities",
+                            getRandomPokemon(TRAFFIC_MIX, "Mix Get Pokemon Abilities")
+                                    .check(jsonPath("$.abilities[*].ability.url").findAll().saveAs(ABILITY_URLS))))
+                    .doIf(session -> session.contains(ABILITY_URLS)).then(
+                            Retries.send("Mix Get Ability",
+                                    get(TRAFFIC_MIX, "Mix Get Ability", "#{" + ABILITY_URLS + ".random()}")
+                                            .check(status().is(200))));
+            case "traversal" -> traversal(TRAFFIC_MIX, true);
+            default -> throw new IllegalArgumentException("Unknown mix operation: " + operation);
+        };
+    }
+
+    // Pages through the whole collection by following "next" links without think time, like a sync
+    // job. Latency, bytes and items are recorded per offset range, see OffsetCurve, and the whole
+    // walk as the "[full walk]" span of the group
+    public static ScenarioBuilder createPaginationWalk(TestConfig.PaginationConfig pagination) {
+        List<Integer> pageSizes = pagination == null || pagination.pageSizes() == null ? List.of(20, 100) : pagination.pageSizes();
+        int bucketSize = pagination == null || pagination.bucketSize() == null ? 100 : pagination.bucketSize();
+        int maxPages = pagination == null || pagination.maxPages() == null ? 1000 : pagination.maxPages();
+        OffsetCurve curve = OffsetCurve.register("Walk Page", bucketSize);
+
+        return grouped(PAGINATION_WALK, exec(session -> {
+                    int pageSize = pageSizes.get(ThreadLocalRandom.current().nextInt(pageSizes.size()));
+                    return session.set(WALK_START, System.nanoTime())
+                            .set(WALKED_PAGES, 0)
+                            .set(PAGE_URL, POKEMON_BASE_PATH + "?limit=" + pageSize + "&offset=0");
+                })
+                .asLongAs(session -> session.contains(PAGE_URL)).on(
+                        Retries.send("Walk Page",
+                                get(PAGINATION_WALK, "Walk Page", "#{" + PAGE_URL + "}")
+                                        .checkIf(curve.tap()).then(responseTimeInMillis().exists())
+                                        .check(status().is(200))
+                                        .check(jsonPath("$.results[*]").count().saveAs(PAGE_ITEMS))
+                                        .check(jsonPath("$.next").ofString().optional().saveAs(NEXT_PAGE_URL))
+                        )
+                        .exec(session -> {
+                            String next = session.contains(NEXT_PAGE_URL) ? session.getString(NEXT_PAGE_URL) : null;
+                            int pages = session.getInt(WALKED_PAGES) + 1;
+                            if (session.contains(PAGE_ITEMS)) {
+                                curve.recordItems(session.getString(PAGE_URL), session.getInt(PAGE_ITEMS));
+                            }
+                            // A failed page ends the walk, as it would end a sync job
+                            Session walked = session.remove(PAGE_URL).remove(NEXT_PAGE_URL).remove(PAGE_ITEMS)
+                                    .set(WALKED_PAGES, pages);
+                            boolean more = !session.isFailed() && next != null && !"null".equals(next) && pages < maxPages;
+                            return more ? walked.set(PAGE_URL, next) : walked;
+                        })
                 )
-                .pause(1, 2)
-                .feed(csv("pokemon-ids.csv").random())
-                .exec(
-                        http("Get Random Pokemon 2")
-                                .get(POKEMON_BASE_PATH + "/#{randomPokemon}")
+                .exec(ResponseTimeRegistry.span(ResponseTimeRegistry.breakdownName(PAGINATION_WALK, "full walk"), WALK_START))
+                .exec(think(1)));
+    }
+
+    // One user per replayed log line, sending that line's request once; the test type injects the
+    // users at the log's own arrival times, so the scenario has no think time
+    public static ScenarioBuilder createReplay(Iterator<Map<String, Object>> events) {
+        SCENARIO_GROUPS.put("replay", REPLAY);
+        Function<Session, String> name = session -> session.getString(AccessLog.REQUEST);
+        Function<Session, String> path = session -> session.getString(AccessLog.PATH);
+        return grouped(REPLAY, feed(events)
+                .doIfOrElse(session -> "HEAD".equals(session.getString(AccessLog.METHOD)))
+                .then(ResponseTimeRegistry.recorded(name, replayed(http(name).head(path))))
+                .orElse(ResponseTimeRegistry.recorded(name, replayed(http(name).get(path)))));
+    }
+
+    // One user per arrival fetching one Pokemon under the given Accept-Encoding; the encoding
+    // matrix runs one such scenario per encoding, each in a group of its own
+    public static ScenarioBuilder createEncodingFetch(PokemonIdFeeder feeder, EncodingMatrix matrix, ContentCoding coding) {
+        String group = ENCODING + " " + coding.token();
+        String requestName = EncodingMatrix.requestName(coding);
+        SCENARIO_GROUPS.put("encoding-" + coding.token(), group);
+        return grouped(group, feed(feeder)
+                .exec(Retries.send(requestName,
+                        get(group, requestName, POKEMON_BASE_PATH + "/#{randomPokemon}")
+                                .header("Accept-Encoding", coding.token())
+                                .checkIf(matrix.tap(coding)).then(responseTimeInMillis().exists())
                                 .check(status().is(200))
-                );
+                )));
+    }
+
+    // Fetches under a random one of the codings. Deliberately sent past the registry and the matrix,
+    // so the warm-up shows up in Gatling's report only
+    public static ScenarioBuilder createEncodingWarmUp(PokemonIdFeeder feeder, List<ContentCoding> codings) {
+        List<String> tokens = codings.stream().map(ContentCoding::token).toList();
+        return grouped(ENCODING + " warm-up", feed(feeder)
+                .exec(session -> session.set(WARM_UP_CODING, tokens.get(ThreadLocalRandom.current().nextInt(tokens.size()))))
+                .exec(http("Encoding warm-up").get(POKEMON_BASE_PATH + "/#{randomPokemon}")
+                        .header("Accept-Encoding", "#{" + WARM_UP_CODING + "}")));
+    }
+
+    // One logical operation of the GraphQL comparison: a batch of Pokemon with the links of the
+    // variant's depth, fetched as one GraphQL query or by following the REST links of each Pokemon
+    // one request after the other. The operation is recorded as the "[logical]" span of the variant
+    public static ScenarioBuilder createGraphQlComparison(PokemonIdFeeder feeder, GraphQlComparison comparison,
+                                                          GraphQlComparison.Variant variant) {
+        String group = variant.name();
+        SCENARIO_GROUPS.put("graphql-" + variant.key(), group);
+        Function<HttpRequestActionBuilder, HttpRequestActionBuilder> tapped = request -> request
+                .checkIf(comparison.tap(variant)).then(responseTimeInMillis().exists());
+
+        ChainBuilder fetch;
+        if (variant.mode() == GraphQlComparison.Mode.GRAPHQL) {
+            fetch = exec(session -> session.set(GRAPHQL_BODY, comparison.body(variant, session.getList(BATCH_IDS))))
+                    .exec(Retries.send("GraphQL Query", tapped.apply(post(group, "GraphQL Query", comparison.url()))
+                            .body(StringBody(session -> session.getString(GRAPHQL_BODY))).asJson()
+                            .check(status().is(200))
+                            .check(jsonPath("$.errors").notExists())
+                            .check(jsonPath("$.data.pokemon_v2_pokemon[*]").count()
+                                    .is(session -> session.getList(BATCH_IDS).size()))));
+        } else {
+            HttpRequestActionBuilder pokemon = tapped.apply(get(group, "Fan-out Pokemon", POKEMON_BASE_PATH + "/#{fanOutId}"))
+                    .check(status().is(200));
+            if (variant.depth() >= 2) {
+                pokemon = pokemon
+                        .check(jsonPath("$.species.url").saveAs(SPECIES_URL))
+                        .check(jsonPath("$.abilities[*].ability.url").findAll().saveAs(ABILITY_URLS));
+            }
+            HttpRequestActionBuilder species = tapped.apply(get(group, "Fan-out Species", "#{" + SPECIES_URL + "}"))
+                    .check(status().is(200));
+            if (variant.depth() >= 3) {
+                species = species.check(jsonPath("$.evolution_chain.url").saveAs(EVOLUTION_CHAIN_URL));
+            }
+            ChainBuilder links = exec(session -> session.remove(SPECIES_URL).remove(ABILITY_URLS).remove(EVOLUTION_CHAIN_URL))
+                    .exec(Retries.send("Fan-out Pokemon", pokemon));
+            if (variant.depth() >= 2) {
+                links = links
+                        .doIf(session -> session.contains(SPECIES_URL)).then(Retries.send("Fan-out Species", species))
+                        .doIf(session -> session.contains(ABILITY_URLS)).then(
+                                foreach("#{" + ABILITY_URLS + "}", "abilityUrl").on(Retries.send("Fan-out Ability",
+                                        tapped.apply(get(group, "Fan-out Ability", "#{abilityUrl}")).check(status().is(200)))));
+            }
+            if (variant.depth() >= 3) {
+                links = links.doIf(session -> session.contains(EVOLUTION_CHAIN_URL)).then(
+                        Retries.send("Fan-out Evolution Chain",
+                                tapped.apply(get(group, "Fan-out Evolution Chain", "#{" + EVOLUTION_CHAIN_URL + "}"))
+                                        .check(status().is(200))));
+            }
+            fetch = foreach("#{" + BATCH_IDS + "}", "fanOutId").on(links);
+        }
+
+        return grouped(group, exec(session -> session
+                        .set(BATCH_IDS, GraphQlComparison.drawIds(feeder, variant.batchSize()))
+                        .set(BATCH_START, System.nanoTime()))
+                .exec(fetch)
+                .exec(ResponseTimeRegistry.span(GraphQlComparison.logicalName(variant), BATCH_START))
+                .exec(session -> {
+                    comparison.finished(variant, session.isFailed());
+                    return session;
+                }));
+    }
+
+    // Same request mix as the mixed operations scenario without think time: every admitted
+    // arrival sends exactly one request and reports its outcome to the controller
+    public static ChainBuilder createBreakpointProbe(BreakpointController controller, PokemonIdFeeder feeder) {
+        return feed(feeder)
+                .randomSwitch().on(
+                        percent(66.7).then(ResponseTimeRegistry.recorded("Breakpoint Get Pokemon",
+                                getRandomPokemon(null, "Breakpoint Get Pokemon"))),
+                        percent(33.3).then(ResponseTimeRegistry.recorded("Breakpoint List Pokemon",
+                                listPokemonPage(null, "Breakpoint List Pokemon", "?limit=10")))
+                )
+                .exec(session -> {
+                    // The registry's checks saved the response time; a request without a response has none
+                    long responseTime = session.contains(ResponseTimeRegistry.RESPONSE_TIME)
+                            ? session.getLong(ResponseTimeRegistry.RESPONSE_TIME) : -1;
+                    controller.record(responseTime, !session.isFailed());
+                    return session.markAsSucceeded();
+                });
+    }
+
+    private static ScenarioBuilder grouped(String name, ChainBuilder chain) {
+        return scenario(name).exec(CoordinatedOmission::start).exec(group(name).on(chain));
+    }
+
+    private static ChainBuilder think(int seconds) {
+        return think(seconds, seconds);
+    }
+
+    // Drawn here rather than by Gatling, so the coordinated-omission correction knows the think
+    // time as the user's intended interval between requests
+    private static ChainBuilder think(int minSeconds, int maxSeconds) {
+        return exec(session -> CoordinatedOmission.think(session,
+                        ThreadLocalRandom.current().nextLong(minSeconds * 1000L, maxSeconds * 1000L + 1)))
+                .pause(session -> Duration.ofMillis(session.getLong(CoordinatedOmission.EXPECTED_INTERVAL)));
+    }
+
+    private static HttpRequestActionBuilder getRandomPokemon(String group, String requestName) {
+        return get(group, requestName, POKEMON_BASE_PATH + "/#{randomPokemon}")
+                .check(status().is(200));
+    }
+
+    private static HttpRequestActionBuilder listPokemonPage(String group, String requestName, String query) {
+        return get(group, requestName, POKEMON_BASE_PATH + query)
+                .check(status().is(200));
+    }
+
+    private static HttpRequestActionBuilder replayed(HttpRequestActionBuilder request) {
+        return request
+                .check(ResponseTimeRegistry.checks())
+                .check(status().is(session -> session.getInt(AccessLog.EXPECTED_STATUS)));
+    }
+
+    private static HttpRequestActionBuilder cached(String group, String requestName, String path) {
+        return get(group, requestName, path)
+                .checkIf(CacheStatus.tap(requestName)).then(responseTimeInMillis().exists());
+    }
+
+    private static HttpRequestActionBuilder get(String group, String requestName, String path) {
+        ResponseTimeRegistry.expects(requestName, path);
+        return tapped(group, requestName, http(requestName).get(path));
+    }
+
+    // Gatling sends resources alongside their parent request with no step after them, so only
+    // their responses are recorded: a resource that times out or fails to connect is not
+    private static HttpRequestActionBuilder resource(String group, String requestName, String path) {
+        named(group, requestName);
+        return http(requestName).get(path)
+                .checkIf(ResponseTimeRegistry.tap(requestName)).then(responseTimeInMillis().exists());
+    }
+
+    private static HttpRequestActionBuilder post(String group, String requestName, String url) {
+        return tapped(group, requestName, http(requestName).post(url));
+    }
+
+    // Every request goes through here, and is then sent by Retries.send or ResponseTimeRegistry.recorded,
+    // so it reaches the metrics registry. Its response time and status are saved ahead of the caller's
+    // checks, which stop at the first failure, so a failed content check still has both recorded
+    // and Retries can tell a retryable status from it. A null group is a top-level request
+    private static HttpRequestActionBuilder tapped(String group, String requestName, HttpRequestActionBuilder sent) {
+        named(group, requestName);
+        return sent.check(ResponseTimeRegistry.checks());
+    }
+
+    private static void named(String group, String requestName) {
+        REQUEST_PATHS.computeIfAbsent(requestName, name -> ConcurrentHashMap.newKeySet())
+                .add(group == null ? List.of(requestName) : List.of(group, requestName));
     }
-}
\ No newline at end of file
+}
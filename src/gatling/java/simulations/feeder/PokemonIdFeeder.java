@@ -0,0 +1,136 @@
+package simulations.feeder;
+
+import simulations.config.TestConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Endless id feeder over a contiguous id range. One immutable record is built per id up front,
+ * so {@link #next()} only draws an index from the configured distribution and hands back the
+ * shared record: no per-feed map, boxing or string formatting.
+ */
+public class PokemonIdFeeder implements Iterator<Map<String, Object>> {
+
+    public static final String ATTRIBUTE = "randomPokemon";
+
+    private enum Distribution { UNIFORM, ZIPF, HOTSPOT, SEQUENTIAL }
+
+    private final Distribution distribution;
+    private final List<Map<String, Object>> records;
+    // Zipf: cumulative probability of ranks 0..i
+    private final double[] cumulative;
+    // Hotspot: the first hotCount records (after optional shuffling) form the hot set
+    private final int hotCount;
+    private final double hotProbability;
+    private final AtomicLong sequence = new AtomicLong();
+
+    // The config has passed TestConfig.validate, which checks its ranges and distribution
+    private PokemonIdFeeder(TestConfig.FeederConfig config) {
+        this.distribution = parse(config.distribution());
+
+        int minId = config.minId() == null ? 1 : config.minId();
+        int maxId = config.maxId() == null ? minId : config.maxId();
+        int size = maxId - minId + 1;
+
+        int[] ids = new int[size];
+        for (int i = 0; i < size; i++) {
+            ids[i] = minId + i;
+        }
+        if (Boolean.TRUE.equals(config.shuffle())) {
+            // Hot ranks land on arbitrary ids instead of the lowest ones
+            Random random = config.seed() == null ? new Random() : new Random(config.seed());
+            for (int i = size - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = ids[i];
+                ids[i] = ids[j];
+                ids[j] = swap;
+            }
+        }
+
+        List<Map<String, Object>> built = new ArrayList<>(size);
+        for (int id : ids) {
+            built.add(Map.of(ATTRIBUTE, id));
+        }
+        this.records = List.copyOf(built);
+
+        this.cumulative = distribution == Distribution.ZIPF ? zipfCumulative(size, config.exponent()) : null;
+
+        if (distribution == Distribution.HOTSPOT) {
+            double hotFraction = config.hotFraction() == null ? 0.1 : config.hotFraction();
+            this.hotProbability = config.hotProbability() == null ? 0.9 : config.hotProbability();
+            this.hotCount = Math.max(1, Math.min(size - 1, (int) Math.round(size * hotFraction)));
+        } else {
+            this.hotCount = 0;
+            this.hotProbability = 0;
+        }
+    }
+
+    public static PokemonIdFeeder from(TestConfig.FeederConfig config) {
+        return new PokemonIdFeeder(config);
+    }
+
+    @Override
+    public boolean hasNext() {
+        return true;
+    }
+
+    @Override
+    public Map<String, Object> next() {
+        return records.get(nextIndex());
+    }
+
+    public int nextId() {
+        return (Integer) records.get(nextIndex()).get(ATTRIBUTE);
+    }
+
+    private int nextIndex() {
+        switch (distribution) {
+            case ZIPF -> {
+                int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+                // binarySearch returns (-(insertion point) - 1) when the key is not an exact match
+                return Math.min(index >= 0 ? index : -index - 1, records.size() - 1);
+            }
+            case HOTSPOT -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                return random.nextDouble() < hotProbability
+                        ? random.nextInt(hotCount)
+                        : hotCount + random.nextInt(records.size() - hotCount);
+            }
+            case SEQUENTIAL -> {
+                return (int) Math.floorMod(sequence.getAndIncrement(), (long) records.size());
+            }
+            default -> {
+                return ThreadLocalRandom.current().nextInt(records.size());
+            }
+        }
+    }
+
+    private static double[] zipfCumulative(int size, Double exponent) {
+        double s = exponent == null ? 1.0 : exponent;
+        double[] cumulative = new double[size];
+        double sum = 0;
+        for (int rank = 1; rank <= size; rank++) {
+            sum += 1.0 / Math.pow(rank, s);
+            cumulative[rank - 1] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static Distribution parse(String name) {
+        if (name == null) {
+            return Distribution.UNIFORM;
+        }
+        return Distribution.valueOf(name.toUpperCase(Locale.ROOT));
+    }
+}
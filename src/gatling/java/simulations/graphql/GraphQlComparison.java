@@ -0,0 +1,252 @@
+package simulations.graphql;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.gatling.http.response.Response;
+import io.gatling.javaapi.core.Session;
+import org.HdrHistogram.Histogram;
+import simulations.config.TestConfig;
+import simulations.feeder.PokemonIdFeeder;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.report.Reports;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * The same data fetched two ways: one batched GraphQL query per logical operation, or the REST
+ * fan-out an aggregation service sends for it, one request per Pokemon and linked resource. Every
+ * batch size and depth runs as a REST phase followed by a GraphQL phase at the same rate of logical
+ * operations, and each logical operation, from its first request to its last response, is recorded
+ * as the {@code "<variant> [logical]"} span. Bytes are response bodies as the client decoded them
+ * plus request bodies, headers left out on both sides.
+ */
+public class GraphQlComparison {
+
+    private static final String OPERATION_NAME = "Pokemon";
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public enum Mode {
+        REST, GRAPHQL;
+
+        public String label() {
+            return this == REST ? "REST" : "GraphQL";
+        }
+    }
+
+    public record Variant(Mode mode, int batchSize, int depth) {
+        public String name() {
+            return mode.label() + " batch " + batchSize + " depth " + depth;
+        }
+
+        public String key() {
+            return mode.name().toLowerCase() + "-" + batchSize + "-" + depth;
+        }
+    }
+
+    public record Row(
+            String variant,
+            String mode,
+            int batchSize,
+            int depth,
+            long operations,
+            long failedOperations,
+            double operationsPerSecond,
+            long requests,
+            long failedRequests,
+            double requestsPerOperation,
+            double responseBytesPerOperation,
+            double requestBytesPerOperation,
+            // Logical operation, first request to last response
+            double mean,
+            long percentile50,
+            long percentile95,
+            long percentile99,
+            long max
+    ) {}
+
+    // GraphQL against REST for the same batch size and depth; ratios above 1 favour GraphQL
+    public record Comparison(int batchSize, int depth, double roundTripsSaved, double responseBytesRatio,
+                             double percentile50Ratio, double percentile99Ratio) {}
+
+    public record Result(String testType, String url, double rate, int duration, List<Row> rows, List<Comparison> comparisons) {}
+
+    private record Phase(LongAdder operations, LongAdder failedOperations, LongAdder requests, LongAdder failedRequests,
+                         LongAdder responseBytes, LongAdder requestBytes, AtomicLong firstMillis, AtomicLong lastMillis) {}
+
+    private final Map<Variant, Phase> phases = new LinkedHashMap<>();
+    private final String url;
+    private final double rate;
+    private final int duration;
+
+    public GraphQlComparison(TestConfig.GraphQlConfig config) {
+        List<Integer> batchSizes = config.batchSizes() == null ? List.of(1, 5, 20) : config.batchSizes();
+        List<Integer> depths = config.depths() == null ? TestConfig.GraphQlConfig.DEPTHS : config.depths();
+        for (int batchSize : batchSizes) {
+            for (int depth : depths) {
+                for (Mode mode : Mode.values()) {
+                    phases.put(new Variant(mode, batchSize, depth), new Phase(new LongAdder(), new LongAdder(),
+                            new LongAdder(), new LongAdder(), new LongAdder(), new LongAdder(),
+                            new AtomicLong(Long.MAX_VALUE), new AtomicLong(Long.MIN_VALUE)));
+                }
+            }
+        }
+        this.url = System.getProperty("graphqlUrl", config.url() == null ? TestConfig.GraphQlConfig.DEFAULT_URL : config.url());
+        this.rate = config.rate() == null ? 2 : config.rate();
+        this.duration = config.duration() == null ? 60 : config.duration();
+    }
+
+    public List<Variant> variants() {
+        return new ArrayList<>(phases.keySet());
+    }
+
+    public String url() {
+        return url;
+    }
+
+    public double rate() {
+        return rate;
+    }
+
+    public int duration() {
+        return duration;
+    }
+
+    public static String logicalName(Variant variant) {
+        return ResponseTimeRegistry.breakdownName(variant.name(), "logical");
+    }
+
+    // Up to batchSize distinct ids; an aggregation service asks for a Pokemon once per batch
+    public static List<Integer> drawIds(Iterator<Map<String, Object>> feeder, int batchSize) {
+        Set<Integer> ids = new LinkedHashSet<>();
+        for (int draws = 0; ids.size() < batchSize && draws < batchSize * 10; draws++) {
+            ids.add((Integer) feeder.next().get(PokemonIdFeeder.ATTRIBUTE));
+        }
+        return new ArrayList<>(ids);
+    }
+
+    // The selection follows the links the REST fan-out of the same depth fetches. The Pokemon
+    // document's fields come first, then the species and abilities, then the evolution chain
+    public static String query(int depth) {
+        String ability = depth >= 2
+                ? "pokemon_v2_ability { id name pokemon_v2_abilityeffecttexts(where: {language_id: {_eq: 9}}) { effect short_effect } }"
+                : "pokemon_v2_ability { id name }";
+        String species = depth >= 2
+                ? " pokemon_v2_pokemonspecy { id name capture_rate base_happiness is_legendary is_mythical"
+                + " evolves_from_species_id evolution_chain_id"
+                + (depth >= 3 ? " pokemon_v2_evolutionchain { id pokemon_v2_pokemonspecies { id name evolves_from_species_id } }" : "")
+                + " }"
+                : "";
+        return "query " + OPERATION_NAME + "($ids: [Int!]) { pokemon_v2_pokemon(where: {id: {_in: $ids}}) {"
+                + " id name height weight base_experience"
+                + " pokemon_v2_pokemontypes { slot pokemon_v2_type { name } }"
+                + " pokemon_v2_pokemonabilities { slot is_hidden " + ability + " }"
+                + " pokemon_v2_pokemonstats { base_stat effort pokemon_v2_stat { name } }"
+                + species + " } }";
+    }
+
+    // The request body of a batch, counted towards the variant's request bytes
+    public String body(Variant variant, List<Integer> ids) {
+        try {
+            String body = MAPPER.writeValueAsString(Map.of(
+                    "query", query(variant.depth()),
+                    "variables", Map.of("ids", ids),
+                    "operationName", OPERATION_NAME));
+            phases.get(variant).requestBytes().add(body.getBytes(StandardCharsets.UTF_8).length);
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to render GraphQL request", e);
+        }
+    }
+
+    // Like ResponseTimeRegistry.tap, counting the variant's requests and response bytes
+    public BiFunction<Response, Session, Boolean> tap(Variant variant) {
+        Phase phase = phases.get(variant);
+        return (response, session) -> {
+            phase.requests().increment();
+            if (response.status().code() >= 400) {
+                phase.failedRequests().increment();
+            }
+            phase.responseBytes().add(response.body().length());
+            phase.firstMillis().accumulateAndGet(response.startTimestamp(), Math::min);
+            phase.lastMillis().accumulateAndGet(response.endTimestamp(), Math::max);
+            return false;
+        };
+    }
+
+    public void finished(Variant variant, boolean failed) {
+        Phase phase = phases.get(variant);
+        phase.operations().increment();
+        if (failed) {
+            phase.failedOperations().increment();
+        }
+    }
+
+    public void complete(String testType) {
+        List<Row> rows = new ArrayList<>();
+        phases.forEach((variant, phase) -> rows.add(row(variant, phase)));
+        List<Comparison> comparisons = new ArrayList<>();
+        for (int i = 0; i + 1 < rows.size(); i += 2) {
+            Row rest = rows.get(i);
+            Row graphql = rows.get(i + 1);
+            if (rest.operations() > 0 && graphql.operations() > 0) {
+                comparisons.add(new Comparison(rest.batchSize(), rest.depth(),
+                        rest.requestsPerOperation() - graphql.requestsPerOperation(),
+                        ratio(rest.responseBytesPerOperation(), graphql.responseBytesPerOperation()),
+                        ratio(rest.percentile50(), graphql.percentile50()), ratio(rest.percentile99(), graphql.percentile99())));
+            }
+        }
+        write(new Result(testType, url, rate, duration, rows, comparisons));
+    }
+
+    private static Row row(Variant variant, Phase phase) {
+        ResponseTimeRegistry.Entry entry = ResponseTimeRegistry.entries().get(logicalName(variant));
+        Histogram logical = entry == null ? new Histogram(3) : entry.cumulative();
+        long operations = phase.operations().sum();
+        long requests = phase.requests().sum();
+        double seconds = requests == 0 ? 0 : Math.max(1e-3, (phase.lastMillis().get() - phase.firstMillis().get()) / 1000.0);
+        return new Row(variant.name(), variant.mode().label(), variant.batchSize(), variant.depth(), operations,
+                phase.failedOperations().sum(), seconds == 0 ? 0 : operations / seconds, requests, phase.failedRequests().sum(),
+                ratio(requests, operations), ratio(phase.responseBytes().sum(), operations),
+                ratio(phase.requestBytes().sum(), operations), logical.getMean(), logical.getValueAtPercentile(50),
+                logical.getValueAtPercentile(95), logical.getValueAtPercentile(99), logical.getMaxValue());
+    }
+
+    private static double ratio(double numerator, double denominator) {
+        return denominator == 0 ? 0 : numerator / denominator;
+    }
+
+    private static void write(Result result) {
+        System.out.printf("%nGraphQL vs REST fan-out against %s (%.1f operations/s for %d s per phase)%n",
+                result.url(), result.rate(), result.duration());
+        System.out.printf("%-28s %7s %5s %9s %12s %10s %8s %6s %6s %7s%n", "Variant", "Ops", "KO", "Reqs/op",
+                "Resp B/op", "Req B/op", "Mean", "p50", "p95", "p99");
+        for (Row row : result.rows()) {
+            System.out.printf("%-28s %7d %5d %9.1f %12.0f %10.0f %8.1f %6d %6d %7d%n", row.variant(), row.operations(),
+                    row.failedOperations(), row.requestsPerOperation(), row.responseBytesPerOperation(),
+                    row.requestBytesPerOperation(), row.mean(), row.percentile50(), row.percentile95(), row.percentile99());
+        }
+        if (!result.comparisons().isEmpty()) {
+            System.out.printf("%nGraphQL against REST per logical operation (x: REST / GraphQL)%n");
+            System.out.printf("%6s %6s %18s %12s %9s %9s%n", "Batch", "Depth", "Round trips saved", "Resp bytes",
+                    "p50", "p99");
+            for (Comparison comparison : result.comparisons()) {
+                System.out.printf("%6d %6d %18.1f %11.1fx %8.2fx %8.2fx%n", comparison.batchSize(), comparison.depth(),
+                        comparison.roundTripsSaved(), comparison.responseBytesRatio(), comparison.percentile50Ratio(),
+                        comparison.percentile99Ratio());
+            }
+        }
+
+        Reports.write("graphql", "graphql-" + result.testType() + "-" + Reports.timestamp(),
+                result, "GraphQL comparison");
+    }
+}
@@ -0,0 +1,111 @@
+package simulations.metrics;
+
+import io.gatling.http.response.Response;
+import io.gatling.javaapi.core.Session;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.HdrHistogram.Histogram;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Edge cache outcome of a response, read from the cache status headers CDNs add. Gatling names a
+ * request before its response arrives, so the split is kept in the {@link ResponseTimeRegistry}
+ * instead: a tapped request also records into the breakdown entries {@code "<request> [hit]"} and
+ * {@code "[miss]"}, which then show up in live metrics, baselines and distributed reports.
+ */
+public enum CacheStatus {
+    HIT, MISS, UNKNOWN;
+
+    private record Tapped(Map<CacheStatus, ResponseTimeRegistry.Entry> entries, Map<CacheStatus, LongAdder> notModified) {}
+
+    private static final Map<String, Tapped> TAPPED = new ConcurrentHashMap<>();
+
+    public static CacheStatus of(HttpHeaders headers) {
+        String cfStatus = headers.get("CF-Cache-Status");
+        if (cfStatus != null) {
+            // Cloudflare: HIT, STALE, UPDATING and REVALIDATED are served from the edge
+            return switch (cfStatus.trim().toUpperCase(Locale.ROOT)) {
+                case "HIT", "STALE", "UPDATING", "REVALIDATED" -> HIT;
+                case "MISS", "EXPIRED", "BYPASS", "DYNAMIC" -> MISS;
+                default -> UNKNOWN;
+            };
+        }
+        String xCache = headers.get("X-Cache");
+        if (xCache != null) {
+            String value = xCache.toUpperCase(Locale.ROOT);
+            return value.contains("HIT") ? HIT : value.contains("MISS") ? MISS : UNKNOWN;
+        }
+        String age = headers.get("Age");
+        if (age != null) {
+            return "0".equals(age.trim()) ? MISS : HIT;
+        }
+        return UNKNOWN;
+    }
+
+    public String entryName(String requestName) {
+        return ResponseTimeRegistry.breakdownName(requestName, name().toLowerCase(Locale.ROOT));
+    }
+
+    // Like ResponseTimeRegistry.tap, with the response also recorded under its cache status
+    public static BiFunction<Response, Session, Boolean> tap(String requestName) {
+        Tapped tapped = TAPPED.computeIfAbsent(requestName, name -> {
+            Map<CacheStatus, ResponseTimeRegistry.Entry> entries = new EnumMap<>(CacheStatus.class);
+            Map<CacheStatus, LongAdder> notModified = new EnumMap<>(CacheStatus.class);
+            for (CacheStatus status : values()) {
+                entries.put(status, ResponseTimeRegistry.entry(status.entryName(name)));
+                notModified.put(status, new LongAdder());
+            }
+            return new Tapped(entries, notModified);
+        });
+        return (response, session) -> {
+            CacheStatus status = of(response.headers());
+            int code = response.status().code();
+            tapped.entries().get(status).record(Math.max(0, response.endTimestamp() - response.startTimestamp()), code >= 400);
+            if (code == 304) {
+                tapped.notModified().get(status).increment();
+            }
+            return false;
+        };
+    }
+
+    static void reset() {
+        TAPPED.clear();
+    }
+
+    public static void printSummary() {
+        // Every scenario is built, injected or not, so a tapped request may have seen no response
+        boolean recorded = TAPPED.values().stream().anyMatch(tapped -> tapped.entries().values().stream()
+                .anyMatch(entry -> entry.cumulative().getTotalCount() > 0));
+        if (!recorded) {
+            return;
+        }
+        System.out.printf("%nResponse times by edge cache status (ms)%n");
+        System.out.printf("%-36s %8s %7s %7s %6s %6s %6s %7s%n", "Request", "Count", "Share", "304s", "p50", "p95", "p99", "Max");
+        new TreeMap<>(TAPPED).forEach((request, tapped) -> {
+            Map<CacheStatus, Histogram> histograms = new EnumMap<>(CacheStatus.class);
+            long total = 0;
+            for (CacheStatus status : values()) {
+                Histogram histogram = tapped.entries().get(status).cumulative();
+                histograms.put(status, histogram);
+                total += histogram.getTotalCount();
+            }
+            for (CacheStatus status : values()) {
+                Histogram histogram = histograms.get(status);
+                if (histogram.getTotalCount() == 0) {
+                    continue;
+                }
+                System.out.printf("%-36s %8d %6.1f%% %7d %6d %6d %6d %7d%n",
+                        status.entryName(request), histogram.getTotalCount(), 100.0 * histogram.getTotalCount() / total,
+                        tapped.notModified().get(status).sum(),
+                        histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(95),
+                        histogram.getValueAtPercentile(99), histogram.getMaxValue());
+            }
+        });
+    }
+}
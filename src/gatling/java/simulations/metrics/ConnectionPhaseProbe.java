@@ -0,0 +1,261 @@
+package simulations.metrics;
+
+import org.HdrHistogram.Histogram;
+import simulations.config.TestConfig;
+import simulations.report.Reports;
+
+import javax.net.ssl.SSLSocket;
+import javax.net.ssl.SSLSocketFactory;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splits request latency into its connection phases, which Gatling only reports as one response
+ * time. Next to the load, a single probe thread periodically resolves the target, opens a new
+ * connection, completes the TLS handshake, sends one request and then a second one over the same
+ * connection. The cold request's total time minus the reused one's is what connection churn costs
+ * every virtual user that cannot reuse a connection.
+ *
+ * <p>The probe speaks HTTP/1.1 over its own socket with keep-alive and TLS session resumption, so it
+ * shows one reference connection to the target. The connection profile the load runs with, and its
+ * HTTP/2, keep-alive and pool settings, do not apply to it.
+ */
+public class ConnectionPhaseProbe {
+
+    private static final List<String> PHASES = List.of("dns", "connect", "tls", "coldTtfb", "coldTotal", "warmTtfb", "warmTotal");
+
+    public record Phase(String phase, long samples, double mean, double percentile50, double percentile95,
+                        double percentile99, double max) {}
+
+    public record Result(String testType, String target, long probes, long failures, List<Phase> phases) {}
+
+    private final String testType;
+    private final URI target;
+    private final int intervalMillis;
+    private final int timeoutMillis;
+    private final Map<String, Histogram> phases = new LinkedHashMap<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "connection-probe");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private long probes;
+    private long failures;
+
+    private ConnectionPhaseProbe(String testType, TestConfig.HttpConfig http) {
+        TestConfig.ConnectionProbeConfig config = http.connectionProbe();
+        String path = config == null || config.path() == null ? "/pokemon/25" : config.path();
+        this.testType = testType;
+        this.target = URI.create(http.baseUrl() + path);
+        this.intervalMillis = config == null || config.interval() == null ? 1000 : config.interval();
+        this.timeoutMillis = config == null || config.timeout() == null ? 5000 : config.timeout();
+        // Microseconds, so sub-millisecond phases against a local target stay visible
+        PHASES.forEach(phase -> phases.put(phase, new Histogram(3)));
+    }
+
+    public static boolean isEnabled(TestConfig.ConnectionProbeConfig config) {
+        String override = System.getProperty("connectionProbe");
+        if (override != null) {
+            return Boolean.parseBoolean(override);
+        }
+        return config != null && Boolean.TRUE.equals(config.enabled());
+    }
+
+    public static ConnectionPhaseProbe create(String testType, TestConfig.HttpConfig http) {
+        return new ConnectionPhaseProbe(testType, http);
+    }
+
+    // Called once injection starts, so every sample is taken under load
+    public void start() {
+        scheduler.scheduleWithFixedDelay(this::sample, 0, intervalMillis, TimeUnit.MILLISECONDS);
+        System.out.printf("Connection phase probe on %s every %d ms%n", target, intervalMillis);
+    }
+
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(timeoutMillis * 2L, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        write(result());
+    }
+
+    private void sample() {
+        boolean https = "https".equalsIgnoreCase(target.getScheme());
+        int port = target.getPort() != -1 ? target.getPort() : https ? 443 : 80;
+        Map<String, Long> sample = new LinkedHashMap<>();
+        try {
+            long start = System.nanoTime();
+            InetAddress address = InetAddress.getByName(target.getHost());
+            long resolved = System.nanoTime();
+            sample.put("dns", resolved - start);
+
+            Socket socket = new Socket();
+            try {
+                socket.connect(new InetSocketAddress(address, port), timeoutMillis);
+                socket.setSoTimeout(timeoutMillis);
+                socket.setTcpNoDelay(true);
+                long connected = System.nanoTime();
+                sample.put("connect", connected - resolved);
+
+                long requestStart = connected;
+                if (https) {
+                    SSLSocket tls = (SSLSocket) ((SSLSocketFactory) SSLSocketFactory.getDefault())
+                            .createSocket(socket, target.getHost(), port, true);
+                    tls.startHandshake();
+                    requestStart = System.nanoTime();
+                    sample.put("tls", requestStart - connected);
+                    socket = tls;
+                }
+
+                InputStream in = new BufferedInputStream(socket.getInputStream());
+                OutputStream out = socket.getOutputStream();
+                long[] cold = exchange(in, out, requestStart);
+                sample.put("coldTtfb", cold[0]);
+                sample.put("coldTotal", requestStart - start + cold[1]);
+                if (cold[2] == 1) {
+                    long[] warm = exchange(in, out, System.nanoTime());
+                    sample.put("warmTtfb", warm[0]);
+                    sample.put("warmTotal", warm[1]);
+                }
+            } finally {
+                socket.close();
+            }
+        } catch (IOException | RuntimeException e) {
+            synchronized (this) {
+                failures++;
+            }
+            return;
+        }
+        synchronized (this) {
+            probes++;
+            sample.forEach((phase, nanos) -> phases.get(phase).recordValue(Math.max(0, nanos / 1000)));
+        }
+    }
+
+    // {time to first byte, time to last byte, 1 if the connection stays open}
+    private long[] exchange(InputStream in, OutputStream out, long requestStart) throws IOException {
+        String request = "GET " + target.getRawPath() + (target.getRawQuery() == null ? "" : "?" + target.getRawQuery()) + " HTTP/1.1\r\n"
+                + "Host: " + target.getHost() + "\r\n"
+                + "Accept: application/json\r\n"
+                + "Accept-Encoding: identity\r\n"
+                + "User-Agent: Gatling Connection Probe\r\n"
+                + "Connection: keep-alive\r\n\r\n";
+        out.write(request.getBytes(StandardCharsets.US_ASCII));
+        out.flush();
+
+        int first = in.read();
+        long firstByte = System.nanoTime();
+        if (first == -1) {
+            throw new IOException("Connection closed before the response");
+        }
+        Map<String, String> headers = readHeaders(in, (char) first);
+        String length = headers.get("content-length");
+        if (length != null) {
+            in.skipNBytes(Long.parseLong(length.trim()));
+        } else if ("chunked".equalsIgnoreCase(headers.getOrDefault("transfer-encoding", ""))) {
+            skipChunks(in);
+        } else {
+            in.transferTo(OutputStream.nullOutputStream());
+        }
+        long end = System.nanoTime();
+        boolean open = length != null || headers.containsKey("transfer-encoding");
+        open &= !"close".equalsIgnoreCase(headers.getOrDefault("connection", ""));
+        return new long[]{firstByte - requestStart, end - requestStart, open ? 1 : 0};
+    }
+
+    private static Map<String, String> readHeaders(InputStream in, char first) throws IOException {
+        Map<String, String> headers = new LinkedHashMap<>();
+        String status = first + readLine(in);
+        if (!status.startsWith("HTTP/")) {
+            throw new IOException("Not an HTTP response: " + status);
+        }
+        for (String line = readLine(in); !line.isEmpty(); line = readLine(in)) {
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.put(line.substring(0, colon).trim().toLowerCase(Locale.ROOT), line.substring(colon + 1).trim());
+            }
+        }
+        return headers;
+    }
+
+    private static void skipChunks(InputStream in) throws IOException {
+        while (true) {
+            String size = readLine(in);
+            int extension = size.indexOf(';');
+            long length = Long.parseLong((extension < 0 ? size : size.substring(0, extension)).trim(), 16);
+            if (length == 0) {
+                // Trailers up to the empty line
+                while (!readLine(in).isEmpty()) {
+                    // skip
+                }
+                return;
+            }
+            in.skipNBytes(length);
+            readLine(in);
+        }
+    }
+
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        for (int b = in.read(); b != '\n'; b = in.read()) {
+            if (b == -1) {
+                throw new IOException("Connection closed mid-response");
+            }
+            if (b != '\r') {
+                line.write(b);
+            }
+        }
+        return line.toString(StandardCharsets.US_ASCII);
+    }
+
+    private synchronized Result result() {
+        List<Phase> summary = new ArrayList<>();
+        phases.forEach((name, histogram) -> {
+            if (histogram.getTotalCount() > 0) {
+                summary.add(new Phase(name, histogram.getTotalCount(), histogram.getMean() / 1000,
+                        histogram.getValueAtPercentile(50) / 1000.0, histogram.getValueAtPercentile(95) / 1000.0,
+                        histogram.getValueAtPercentile(99) / 1000.0, histogram.getMaxValue() / 1000.0));
+            }
+        });
+        return new Result(testType, target.toString(), probes, failures, summary);
+    }
+
+    private static void write(Result result) {
+        System.out.printf("%nConnection phases of one reference HTTP/1.1 connection to %s (%d probes, %d failed, ms)%n",
+                result.target(), result.probes(), result.failures());
+        System.out.printf("%-10s %8s %9s %9s %9s %9s %9s%n", "Phase", "Samples", "Mean", "p50", "p95", "p99", "Max");
+        Map<String, Phase> byName = new LinkedHashMap<>();
+        for (Phase phase : result.phases()) {
+            byName.put(phase.phase(), phase);
+            System.out.printf("%-10s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n", phase.phase(), phase.samples(),
+                    phase.mean(), phase.percentile50(), phase.percentile95(), phase.percentile99(), phase.max());
+        }
+        Phase cold = byName.get("coldTotal");
+        Phase warm = byName.get("warmTotal");
+        if (cold != null && warm != null && cold.mean() > 0) {
+            System.out.printf("A new connection adds %.2f ms to the mean request (%.2f ms cold vs %.2f ms reused)%n",
+                    cold.mean() - warm.mean(), cold.mean(), warm.mean());
+        }
+
+        Reports.write("connection", "connection-" + result.testType() + "-" + Reports.timestamp(),
+                result, "connection phase report");
+    }
+}
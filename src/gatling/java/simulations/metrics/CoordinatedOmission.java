@@ -0,0 +1,154 @@
+package simulations.metrics;
+
+import io.gatling.javaapi.core.Session;
+import org.HdrHistogram.Histogram;
+import simulations.config.TestConfig;
+import simulations.report.Reports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Coordinated-omission correction for users with think time. A user waiting on a stalled response
+ * sends none of the requests it would have sent meanwhile, so the stall ends up in one sample
+ * instead of many. Scenarios keep the intended send time of the user's next request and the think
+ * time before it in the session; a request sent right after another one is intended to go out when
+ * that one ended. Every sent request, answered or timed out, is then also recorded as
+ * {@code "<request> [corrected]"}: measured from the intended rather than the actual send time, and
+ * back-filled with HdrHistogram's expected-interval correction using the think time as interval.
+ */
+public final class CoordinatedOmission {
+
+    public static final String INTENDED_SEND = "intendedSendMillis";
+    public static final String EXPECTED_INTERVAL = "expectedIntervalMillis";
+
+    private static final String ALL_REQUESTS = "All Requests";
+
+    public record Row(
+            String request,
+            long requests,
+            long correctedSamples,
+            long percentile50,
+            long percentile99,
+            long max,
+            long correctedPercentile50,
+            long correctedPercentile99,
+            long correctedMax,
+            // Relative gap between corrected and raw p99, 0.25 = corrected is 25% higher
+            double gap,
+            boolean warning
+    ) {}
+
+    public record Result(String testType, double warnRatio, int warnDeltaMillis, List<Row> rows) {}
+
+    private static volatile boolean enabled = true;
+    private static volatile double warnRatio = 0.10;
+    private static volatile int warnDeltaMillis = 50;
+
+    private CoordinatedOmission() {
+    }
+
+    // Must run before scenarios are built, since taps decide at build time whether to correct
+    public static void configure(TestConfig.CoordinatedOmissionConfig config) {
+        String override = System.getProperty("coordinatedOmission");
+        enabled = override != null ? Boolean.parseBoolean(override) : config == null || !Boolean.FALSE.equals(config.enabled());
+        warnRatio = config == null || config.warnRatio() == null ? 0.10 : config.warnRatio();
+        warnDeltaMillis = config == null || config.warnDeltaMillis() == null ? 50 : config.warnDeltaMillis();
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static String correctedName(String requestName) {
+        return ResponseTimeRegistry.breakdownName(requestName, "corrected");
+    }
+
+    // The user's first request is intended to go out as soon as the user starts
+    public static Session start(Session session) {
+        return session.set(INTENDED_SEND, System.currentTimeMillis());
+    }
+
+    // The next request is intended to go out once the think time has passed
+    public static Session think(Session session, long thinkMillis) {
+        return session.set(INTENDED_SEND, System.currentTimeMillis() + thinkMillis)
+                .set(EXPECTED_INTERVAL, thinkMillis);
+    }
+
+    // A request chained right behind another one is intended to go out once that one ended, with
+    // a response or without
+    static Session chained(Session session) {
+        return session.set(INTENDED_SEND, System.currentTimeMillis());
+    }
+
+    static void record(ResponseTimeRegistry.Entry corrected, Session session, long sentMillis,
+                       long responseTimeMillis, boolean error) {
+        long lag = 0;
+        if (session.contains(INTENDED_SEND)) {
+            lag = Math.max(0, sentMillis - session.getLong(INTENDED_SEND));
+        }
+        long expectedInterval = session.contains(EXPECTED_INTERVAL) ? session.getLong(EXPECTED_INTERVAL) : 0;
+        corrected.recordCorrected(responseTimeMillis + lag, expectedInterval, error);
+    }
+
+    public static void writeReport(String testType) {
+        if (!enabled) {
+            return;
+        }
+        Histogram allRaw = new Histogram(3);
+        Histogram allCorrected = new Histogram(3);
+        List<Row> rows = new ArrayList<>();
+        for (Map.Entry<String, ResponseTimeRegistry.Entry> entry : new TreeMap<>(ResponseTimeRegistry.entries()).entrySet()) {
+            ResponseTimeRegistry.Entry corrected = ResponseTimeRegistry.entries().get(correctedName(entry.getKey()));
+            if (ResponseTimeRegistry.isBreakdown(entry.getKey()) || corrected == null) {
+                continue;
+            }
+            Histogram raw = entry.getValue().cumulative();
+            if (raw.getTotalCount() == 0) {
+                continue;
+            }
+            Histogram correctedHistogram = corrected.cumulative();
+            allRaw.add(raw);
+            allCorrected.add(correctedHistogram);
+            rows.add(row(entry.getKey(), raw, correctedHistogram));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        rows.add(0, row(ALL_REQUESTS, allRaw, allCorrected));
+        write(new Result(testType, warnRatio, warnDeltaMillis, rows));
+    }
+
+    private static Row row(String request, Histogram raw, Histogram corrected) {
+        long rawP99 = raw.getValueAtPercentile(99);
+        long correctedP99 = corrected.getValueAtPercentile(99);
+        double gap = rawP99 > 0 ? (double) (correctedP99 - rawP99) / rawP99 : 0;
+        boolean warning = gap > warnRatio && correctedP99 - rawP99 >= warnDeltaMillis;
+        return new Row(request, raw.getTotalCount(), corrected.getTotalCount(),
+                raw.getValueAtPercentile(50), rawP99, raw.getMaxValue(),
+                corrected.getValueAtPercentile(50), correctedP99, corrected.getMaxValue(), gap, warning);
+    }
+
+    private static void write(Result result) {
+        System.out.printf("%nCoordinated-omission corrected latency (ms)%n");
+        System.out.printf("%-32s %8s %9s %6s %6s %7s %8s %8s %8s %8s%n",
+                "Request", "Count", "Corrected", "p50", "p99", "Max", "CO p50", "CO p99", "CO Max", "Gap");
+        for (Row row : result.rows()) {
+            System.out.printf("%-32s %8d %9d %6d %6d %7d %8d %8d %8d %+7.1f%%%s%n",
+                    row.request(), row.requests(), row.correctedSamples(), row.percentile50(), row.percentile99(),
+                    row.max(), row.correctedPercentile50(), row.correctedPercentile99(), row.correctedMax(),
+                    row.gap() * 100, row.warning() ? "  WARNING" : "");
+        }
+        long warnings = result.rows().stream().filter(Row::warning).count();
+        if (warnings > 0) {
+            System.out.printf("WARNING: corrected p99 exceeds raw p99 by more than %.0f%% for %d row(s); "
+                            + "raw percentiles of this run understate the latency users would have seen%n",
+                    result.warnRatio() * 100, warnings);
+        }
+
+        Reports.write("latency", "coordinated-omission-" + result.testType() + "-" + Reports.timestamp(),
+                result, "corrected latency report");
+    }
+}
@@ -0,0 +1,358 @@
+package simulations.metrics;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import simulations.config.TestConfig;
+import simulations.distributed.WorkerShard;
+import simulations.report.Reports;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Health of the load generator's own JVM, sampled on the same wall-clock timeline as the request
+ * metrics: GC pauses, allocation rate, CPU and scheduler lag. Scheduler lag is measured the way
+ * jHiccup does it, by a thread that asks to sleep 1 ms and records how much later it woke up; a
+ * safepoint, GC pause or starved CPU that stalls it stalls Gatling's event loops just the same.
+ * <p>
+ * An interval that breaches a threshold is saturated. From the moment a breach is seen until an
+ * interval passes without one, every response is also recorded as
+ * {@code "<request> [generator-saturated]"}: latency measured while the injector itself was
+ * choking, which says more about the generator than about the target. A JFR recording of the run
+ * is kept next to the report for the details.
+ */
+public final class GeneratorHealth {
+
+    public static final String SATURATED_PART = "generator-saturated";
+
+    private static final String REPORT_DIR = "health";
+    private static final long PROBE_SLEEP_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    public record Sample(
+            long timestampMillis,
+            double gcPauseMillis,
+            double maxGcPauseMillis,
+            long gcPauses,
+            double allocationMbPerSecond,
+            long heapUsedMb,
+            double processCpu,
+            double systemCpu,
+            // Scheduler lag in microseconds
+            long lagPercentile99Micros,
+            long maxLagMicros,
+            List<String> breaches
+    ) {
+        public boolean saturated() {
+            return !breaches.isEmpty();
+        }
+    }
+
+    public record Thresholds(double maxGcPauseMillis, double maxProcessCpu, double maxSchedulerLagMillis,
+                             Double maxAllocationMbPerSecond) {}
+
+    public record Flagged(String request, long responses, long saturatedResponses, double share) {}
+
+    public record Result(String testType, boolean generatorSaturated, int intervalMillis, Thresholds thresholds,
+                         long intervals, long saturatedIntervals, String jfrFile, List<Flagged> requests,
+                         List<Sample> timeline) {}
+
+    private static volatile boolean monitoring;
+    private static volatile boolean saturated;
+    private static volatile Sample latest;
+
+    private final String testType;
+    private final int intervalMillis;
+    private final Thresholds thresholds;
+    private final String fileStem;
+    private final Recording recording;
+    private final Recorder lag = new Recorder(3);
+    private final LongAdder gcPauses = new LongAdder();
+    private final LongAdder gcPauseMicros = new LongAdder();
+    private final AtomicLong maxGcPauseMicros = new AtomicLong();
+    private final List<Sample> timeline = new ArrayList<>();
+    private final List<Runnable> unsubscribe = new ArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "generator-health");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Thread lagProbe = new Thread(this::probeLag, "generator-lag-probe");
+    private final com.sun.management.ThreadMXBean threads =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final com.sun.management.OperatingSystemMXBean os =
+            (com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean();
+    private final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+
+    private volatile boolean running = true;
+    private volatile boolean generatorSaturated;
+    private long lastAllocatedBytes;
+    private long lastSampleNanos;
+
+    private GeneratorHealth(TestConfig.GeneratorHealthConfig config, String testType) throws IOException {
+        this.testType = testType;
+        this.intervalMillis = config.interval() == null ? 1000 : config.interval();
+        this.thresholds = new Thresholds(
+                config.maxGcPauseMillis() == null ? 100 : config.maxGcPauseMillis(),
+                config.maxProcessCpu() == null ? 0.9 : config.maxProcessCpu(),
+                config.maxSchedulerLagMillis() == null ? 50 : config.maxSchedulerLagMillis(),
+                config.maxAllocationMbPerSecond());
+        WorkerShard shard = WorkerShard.current();
+        this.fileStem = "generator-" + testType + "-" + Reports.timestamp()
+                + (shard.isWorker() ? "-worker-" + shard.index() : "");
+        this.recording = Boolean.FALSE.equals(config.jfr()) ? null : recording(config.jfrSettings());
+    }
+
+    public static boolean isEnabled(TestConfig.GeneratorHealthConfig config) {
+        String override = System.getProperty("generatorHealth");
+        if (override != null) {
+            return Boolean.parseBoolean(override);
+        }
+        return config != null && Boolean.TRUE.equals(config.enabled());
+    }
+
+    // Must run before scenarios are built, since taps decide at build time whether to flag responses
+    public static GeneratorHealth start(TestConfig.GeneratorHealthConfig config, String testType) throws IOException {
+        GeneratorHealth health = new GeneratorHealth(
+                config == null ? new TestConfig.GeneratorHealthConfig(true, null, null, null, null, null, null, null) : config,
+                testType);
+        monitoring = true;
+        health.listenToGc();
+        if (health.recording != null) {
+            health.recording.start();
+        }
+        health.lastAllocatedBytes = health.threads.getTotalThreadAllocatedBytes();
+        health.lastSampleNanos = System.nanoTime();
+        health.lagProbe.setDaemon(true);
+        health.lagProbe.start();
+        health.scheduler.scheduleAtFixedRate(health::sample, health.intervalMillis, health.intervalMillis, TimeUnit.MILLISECONDS);
+        System.out.printf("Generator health sampled every %d ms%s%n", health.intervalMillis,
+                health.recording == null ? "" : ", JFR recording with \"" + health.recording.getName() + "\" settings");
+        return health;
+    }
+
+    public static boolean isMonitoring() {
+        return monitoring;
+    }
+
+    public static boolean isSaturated() {
+        return saturated;
+    }
+
+    // Latest interval, for exporters that publish it next to the request metrics
+    public static Sample latest() {
+        return latest;
+    }
+
+    public static String saturatedName(String requestName) {
+        return ResponseTimeRegistry.breakdownName(requestName, SATURATED_PART);
+    }
+
+    public static boolean isSaturatedName(String name) {
+        return name.endsWith(" [" + SATURATED_PART + "]");
+    }
+
+    private static Recording recording(String settings) throws IOException {
+        try {
+            Recording recording = new Recording(Configuration.getConfiguration(settings == null ? "profile" : settings));
+            recording.setName(settings == null ? "profile" : settings);
+            return recording;
+        } catch (ParseException e) {
+            throw new IOException("Invalid JFR settings " + settings, e);
+        }
+    }
+
+    private void listenToGc() {
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            // Concurrent cycles run next to the application; only stop-the-world pauses stall it
+            if (gc.getName().contains("Concurrent") || gc.getName().contains("Cycles")
+                    || !(gc instanceof NotificationEmitter emitter)) {
+                continue;
+            }
+            NotificationListener listener = (notification, handback) -> {
+                if (GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+                    long micros = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData())
+                            .getGcInfo().getDuration() * 1000;
+                    gcPauses.increment();
+                    gcPauseMicros.add(micros);
+                    maxGcPauseMicros.accumulateAndGet(micros, Math::max);
+                    if (micros > thresholds.maxGcPauseMillis() * 1000) {
+                        saturated = true;
+                    }
+                }
+            };
+            emitter.addNotificationListener(listener, null, null);
+            unsubscribe.add(() -> {
+                try {
+                    emitter.removeNotificationListener(listener);
+                } catch (Exception e) {
+                    // Already gone with the JVM's collector beans
+                }
+            });
+        }
+    }
+
+    private void probeLag() {
+        long thresholdMicros = (long) (thresholds.maxSchedulerLagMillis() * 1000);
+        while (running) {
+            long start = System.nanoTime();
+            LockSupport.parkNanos(PROBE_SLEEP_NANOS);
+            long lagMicros = Math.max(0, System.nanoTime() - start - PROBE_SLEEP_NANOS) / 1000;
+            lag.recordValue(lagMicros);
+            if (lagMicros > thresholdMicros) {
+                saturated = true;
+            }
+        }
+    }
+
+    private synchronized void sample() {
+        long now = System.nanoTime();
+        double elapsedSeconds = Math.max(1e-3, (now - lastSampleNanos) / 1e9);
+        lastSampleNanos = now;
+        long allocated = threads.getTotalThreadAllocatedBytes();
+        double allocationMbPerSecond = (allocated - lastAllocatedBytes) / 1048576.0 / elapsedSeconds;
+        lastAllocatedBytes = allocated;
+        Histogram lagHistogram = lag.getIntervalHistogram();
+        long pauses = gcPauses.sumThenReset();
+        double pauseMillis = gcPauseMicros.sumThenReset() / 1000.0;
+        double maxPauseMillis = maxGcPauseMicros.getAndSet(0) / 1000.0;
+        double processCpu = Math.max(0, os.getProcessCpuLoad());
+
+        List<String> breaches = new ArrayList<>();
+        if (maxPauseMillis > thresholds.maxGcPauseMillis()) {
+            breaches.add(String.format("gc pause %.0f ms", maxPauseMillis));
+        }
+        if (processCpu > thresholds.maxProcessCpu()) {
+            breaches.add(String.format("cpu %.0f%%", processCpu * 100));
+        }
+        if (lagHistogram.getMaxValue() > thresholds.maxSchedulerLagMillis() * 1000) {
+            breaches.add(String.format("scheduler lag %.1f ms", lagHistogram.getMaxValue() / 1000.0));
+        }
+        if (thresholds.maxAllocationMbPerSecond() != null && allocationMbPerSecond > thresholds.maxAllocationMbPerSecond()) {
+            breaches.add(String.format("allocation %.0f MB/s", allocationMbPerSecond));
+        }
+
+        Sample sample = new Sample(System.currentTimeMillis(), pauseMillis, maxPauseMillis, pauses,
+                allocationMbPerSecond, memory.getHeapMemoryUsage().getUsed() / 1048576,
+                processCpu, Math.max(0, os.getCpuLoad()),
+                lagHistogram.getValueAtPercentile(99), lagHistogram.getMaxValue(), List.copyOf(breaches));
+        timeline.add(sample);
+        latest = sample;
+        saturated = sample.saturated();
+    }
+
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(intervalMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Last partial interval
+        sample();
+        running = false;
+        unsubscribe.forEach(Runnable::run);
+        monitoring = false;
+        saturated = false;
+
+        String jfrFile = null;
+        if (recording != null) {
+            try {
+                Path file = Reports.directory(REPORT_DIR).resolve(fileStem + ".jfr");
+                Files.createDirectories(file.getParent());
+                recording.stop();
+                recording.dump(file);
+                jfrFile = file.toAbsolutePath().toString();
+            } catch (IOException e) {
+                System.err.println("Failed to write JFR recording: " + e.getMessage());
+            } finally {
+                recording.close();
+            }
+        }
+        Result result = result(jfrFile);
+        generatorSaturated = result.generatorSaturated();
+        write(result);
+    }
+
+    private synchronized Result result(String jfrFile) {
+        List<Flagged> requests = new ArrayList<>();
+        for (Map.Entry<String, ResponseTimeRegistry.Entry> entry : new TreeMap<>(ResponseTimeRegistry.entries()).entrySet()) {
+            ResponseTimeRegistry.Entry flagged = ResponseTimeRegistry.entries().get(saturatedName(entry.getKey()));
+            if (ResponseTimeRegistry.isBreakdown(entry.getKey()) || flagged == null) {
+                continue;
+            }
+            long responses = entry.getValue().cumulative().getTotalCount();
+            long saturatedResponses = flagged.cumulative().getTotalCount();
+            if (saturatedResponses > 0) {
+                requests.add(new Flagged(entry.getKey(), responses, saturatedResponses,
+                        responses == 0 ? 0 : (double) saturatedResponses / responses));
+            }
+        }
+        long saturatedIntervals = timeline.stream().filter(Sample::saturated).count();
+        return new Result(testType, saturatedIntervals > 0 || !requests.isEmpty(), intervalMillis, thresholds,
+                timeline.size(), saturatedIntervals, jfrFile, requests, List.copyOf(timeline));
+    }
+
+    private void write(Result result) {
+        Histogram lagMicros = new Histogram(3);
+        double maxPause = 0;
+        double maxCpu = 0;
+        double allocation = 0;
+        for (Sample sample : result.timeline()) {
+            lagMicros.recordValue(sample.maxLagMicros());
+            maxPause = Math.max(maxPause, sample.maxGcPauseMillis());
+            maxCpu = Math.max(maxCpu, sample.processCpu());
+            allocation += sample.allocationMbPerSecond();
+        }
+        System.out.printf("%nGenerator health (%d intervals of %d ms)%n", result.intervals(), result.intervalMillis());
+        System.out.printf("Max GC pause %.1f ms, max process CPU %.0f%%, mean allocation %.0f MB/s, "
+                        + "scheduler lag p99 of interval maxima %.1f ms%n",
+                maxPause, maxCpu * 100, result.timeline().isEmpty() ? 0 : allocation / result.timeline().size(),
+                lagMicros.getValueAtPercentile(99) / 1000.0);
+        if (result.generatorSaturated()) {
+            System.out.printf("GENERATOR-SATURATED: %d of %d intervals breached a threshold%n",
+                    result.saturatedIntervals(), result.intervals());
+            for (Sample sample : result.timeline()) {
+                if (sample.saturated()) {
+                    System.out.printf("  %s  %s%n", Instant.ofEpochMilli(sample.timestampMillis()),
+                            String.join(", ", sample.breaches()));
+                }
+            }
+            System.out.printf("%-32s %9s %9s %7s%n", "Request", "Responses", "Saturated", "Share");
+            for (Flagged flagged : result.requests()) {
+                System.out.printf("%-32s %9d %9d %6.1f%%%n", flagged.request(), flagged.responses(),
+                        flagged.saturatedResponses(), flagged.share() * 100);
+            }
+            System.out.println("Latencies measured while saturated reflect the generator, not the target");
+        }
+
+        if (Reports.write(REPORT_DIR, fileStem, result, "generator health report") != null && result.jfrFile() != null) {
+            System.out.println("JFR recording written to " + result.jfrFile());
+        }
+    }
+
+    public boolean wasSaturated() {
+        return generatorSaturated;
+    }
+}
@@ -0,0 +1,291 @@
+package simulations.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.HdrHistogram.Histogram;
+import simulations.config.TestConfig;
+import simulations.distributed.WorkerShard;
+import simulations.report.Reports;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * Publishes the {@link ResponseTimeRegistry} while the run is in progress. Every interval the
+ * registry is drained into one snapshot per request, which is appended to a line-protocol file and
+ * served as Prometheus text on {@code /metrics} until the next snapshot replaces it.
+ */
+public class MetricsExporter {
+
+    private static final String ALL_REQUESTS = "all";
+    private static final double[] QUANTILES = {50, 95, 99, 99.9};
+
+    public record Sample(
+            String request,
+            long count,
+            long errors,
+            double throughput,
+            long percentile50,
+            long percentile95,
+            long percentile99,
+            long percentile999,
+            long max,
+            long totalCount,
+            long totalErrors
+    ) {}
+
+    private final String testType;
+    private final int intervalSeconds;
+    private final HttpServer server;
+    private final Path lineProtocolFile;
+    private final BufferedWriter lineProtocol;
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "metrics-exporter");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Map<String, long[]> totals = new TreeMap<>();
+
+    private volatile List<Sample> latest = List.of();
+    private long lastExportNanos = System.nanoTime();
+
+    private MetricsExporter(TestConfig.MetricsConfig config, String testType) throws IOException {
+        this.testType = testType;
+        this.intervalSeconds = config.interval() == null ? 5 : config.interval();
+
+        // Workers of a distributed run share the host, so each takes the next port and its own file
+        WorkerShard shard = WorkerShard.current();
+        String host = config.host() == null ? "127.0.0.1" : config.host();
+        int port = Integer.getInteger("metricsPort", config.port() == null ? 9464 : config.port());
+        if (port != 0 && shard.isWorker()) {
+            port += shard.index();
+        }
+        this.server = HttpServer.create(new InetSocketAddress(host, port), 0);
+        server.createContext("/metrics", this::serve);
+
+        Path outputDir = config.outputDir() == null ? Reports.directory("metrics") : Path.of(config.outputDir());
+        Files.createDirectories(outputDir);
+        String suffix = shard.isWorker() ? "-worker-" + shard.index() : "";
+        this.lineProtocolFile = outputDir.resolve(testType + "-" + Reports.timestamp() + suffix + ".lp");
+        this.lineProtocol = Files.newBufferedWriter(lineProtocolFile, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+    public static boolean isEnabled(TestConfig.MetricsConfig config) {
+        String override = System.getProperty("metrics");
+        if (override != null) {
+            return Boolean.parseBoolean(override);
+        }
+        return config != null && Boolean.TRUE.equals(config.enabled());
+    }
+
+    public static MetricsExporter start(TestConfig.MetricsConfig config, String testType) throws IOException {
+        MetricsExporter exporter = new MetricsExporter(
+                config == null ? new TestConfig.MetricsConfig(true, null, null, null, null) : config, testType);
+
+        // Started from a daemon thread so the dispatcher cannot keep a crashed run alive
+        Thread starter = new Thread(exporter.server::start, "metrics-server-starter");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting metrics endpoint", e);
+        }
+        exporter.scheduler.scheduleAtFixedRate(exporter::export, exporter.intervalSeconds, exporter.intervalSeconds, TimeUnit.SECONDS);
+
+        System.out.printf("Live metrics on http://%s:%d/metrics, appended to %s every %ds%n",
+                exporter.server.getAddress().getHostString(), exporter.server.getAddress().getPort(),
+                exporter.lineProtocolFile.toAbsolutePath(), exporter.intervalSeconds);
+        return exporter;
+    }
+
+    public void stop() {
+        // Not shutdownNow: interrupting an export would close the line-protocol file under it
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(intervalSeconds, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Last partial interval
+        export();
+        server.stop(0);
+        try {
+            lineProtocol.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close " + lineProtocolFile + ": " + e.getMessage());
+        }
+    }
+
+    private synchronized void export() {
+        long timestampNanos = TimeUnit.MILLISECONDS.toNanos(System.currentTimeMillis());
+        long now = System.nanoTime();
+        double elapsedSeconds = Math.max(1e-3, (now - lastExportNanos) / 1e9);
+        lastExportNanos = now;
+        List<Sample> samples = new ArrayList<>();
+        Histogram all = new Histogram(3);
+        long allErrors = 0;
+
+        for (Map.Entry<String, ResponseTimeRegistry.Entry> entry : new TreeMap<>(ResponseTimeRegistry.entries()).entrySet()) {
+            ResponseTimeRegistry.Interval interval = entry.getValue().drain();
+            if (!ResponseTimeRegistry.isBreakdown(entry.getKey())) {
+                all.add(interval.histogram());
+                allErrors += interval.errors();
+            }
+            long[] total = totals.computeIfAbsent(entry.getKey(), name -> new long[2]);
+            total[0] += interval.histogram().getTotalCount();
+            total[1] += interval.errors();
+            // Requests of scenarios that are not injected stay silent
+            if (total[0] > 0) {
+                samples.add(sample(entry.getKey(), interval, total, elapsedSeconds));
+            }
+        }
+        long[] total = totals.computeIfAbsent(ALL_REQUESTS, name -> new long[2]);
+        total[0] += all.getTotalCount();
+        total[1] += allErrors;
+        samples.add(0, sample(ALL_REQUESTS, new ResponseTimeRegistry.Interval(all, allErrors), total, elapsedSeconds));
+
+        latest = List.copyOf(samples);
+        GeneratorHealth.Sample health = GeneratorHealth.latest();
+        try {
+            for (Sample sample : samples) {
+                lineProtocol.write(lineProtocol(sample, timestampNanos));
+                lineProtocol.newLine();
+            }
+            // Same timestamp as the request snapshot, so generator stalls line up with latency spikes
+            if (GeneratorHealth.isMonitoring() && health != null) {
+                lineProtocol.write(lineProtocol(health, timestampNanos));
+                lineProtocol.newLine();
+            }
+            lineProtocol.flush();
+        } catch (IOException e) {
+            System.err.println("Failed to append metrics to " + lineProtocolFile + ": " + e.getMessage());
+        }
+    }
+
+    private static Sample sample(String request, ResponseTimeRegistry.Interval interval, long[] total, double elapsedSeconds) {
+        Histogram histogram = interval.histogram();
+        return new Sample(
+                request,
+                histogram.getTotalCount(),
+                interval.errors(),
+                histogram.getTotalCount() / elapsedSeconds,
+                histogram.getValueAtPercentile(QUANTILES[0]),
+                histogram.getValueAtPercentile(QUANTILES[1]),
+                histogram.getValueAtPercentile(QUANTILES[2]),
+                histogram.getValueAtPercentile(QUANTILES[3]),
+                histogram.getMaxValue(),
+                total[0],
+                total[1]
+        );
+    }
+
+    private String lineProtocol(Sample sample, long timestampNanos) {
+        return "gatling_requests,test_type=" + escapeTag(testType) + ",request=" + escapeTag(sample.request())
+                + " count=" + sample.count() + "i"
+                + ",errors=" + sample.errors() + "i"
+                + ",throughput=" + sample.throughput()
+                + ",p50=" + sample.percentile50() + "i"
+                + ",p95=" + sample.percentile95() + "i"
+                + ",p99=" + sample.percentile99() + "i"
+                + ",p999=" + sample.percentile999() + "i"
+                + ",max=" + sample.max() + "i"
+                + " " + timestampNanos;
+    }
+
+    private String lineProtocol(GeneratorHealth.Sample health, long timestampNanos) {
+        return "generator_health,test_type=" + escapeTag(testType)
+                + " gc_pause_ms=" + health.gcPauseMillis()
+                + ",max_gc_pause_ms=" + health.maxGcPauseMillis()
+                + ",allocation_mb_per_s=" + health.allocationMbPerSecond()
+                + ",heap_used_mb=" + health.heapUsedMb() + "i"
+                + ",process_cpu=" + health.processCpu()
+                + ",scheduler_lag_p99_us=" + health.lagPercentile99Micros() + "i"
+                + ",scheduler_lag_max_us=" + health.maxLagMicros() + "i"
+                + ",saturated=" + health.saturated()
+                + " " + timestampNanos;
+    }
+
+    private void serve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            List<Sample> samples = latest;
+            StringBuilder body = new StringBuilder();
+            body.append("# HELP gatling_response_time_ms Response time quantiles over the last interval in milliseconds\n");
+            body.append("# TYPE gatling_response_time_ms gauge\n");
+            for (Sample sample : samples) {
+                String labels = labels(sample.request());
+                body.append("gatling_response_time_ms{").append(labels).append(",quantile=\"0.5\"} ").append(sample.percentile50()).append('\n');
+                body.append("gatling_response_time_ms{").append(labels).append(",quantile=\"0.95\"} ").append(sample.percentile95()).append('\n');
+                body.append("gatling_response_time_ms{").append(labels).append(",quantile=\"0.99\"} ").append(sample.percentile99()).append('\n');
+                body.append("gatling_response_time_ms{").append(labels).append(",quantile=\"0.999\"} ").append(sample.percentile999()).append('\n');
+                body.append("gatling_response_time_ms{").append(labels).append(",quantile=\"1\"} ").append(sample.max()).append('\n');
+            }
+            appendFamily(body, samples, "gatling_throughput_rps", "gauge", "Responses per second over the last interval",
+                    sample -> String.valueOf(sample.throughput()));
+            appendFamily(body, samples, "gatling_requests_total", "counter", "Requests recorded since the start of the run",
+                    sample -> String.valueOf(sample.totalCount()));
+            appendFamily(body, samples, "gatling_errors_total", "counter", "Failed requests (KO) since the start of the run",
+                    sample -> String.valueOf(sample.totalErrors()));
+
+            GeneratorHealth.Sample health = GeneratorHealth.latest();
+            if (GeneratorHealth.isMonitoring() && health != null) {
+                String labels = "test_type=\"" + escapeLabel(testType) + "\"";
+                appendGauge(body, "generator_gc_pause_max_ms", "Longest GC pause of the generator over its last interval", labels, health.maxGcPauseMillis());
+                appendGauge(body, "generator_allocation_mb_per_second", "Generator allocation rate over its last interval", labels, health.allocationMbPerSecond());
+                appendGauge(body, "generator_process_cpu", "Generator process CPU load between 0 and 1", labels, health.processCpu());
+                appendGauge(body, "generator_scheduler_lag_max_us", "Longest scheduler stall of the generator over its last interval", labels, health.maxLagMicros());
+                appendGauge(body, "generator_saturated", "1 while the generator breaches a health threshold", labels, health.saturated() ? 1 : 0);
+            }
+
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    private void appendFamily(StringBuilder body, List<Sample> samples, String name, String type, String help,
+                              Function<Sample, String> value) {
+        body.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        body.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+        for (Sample sample : samples) {
+            body.append(name).append('{').append(labels(sample.request())).append("} ").append(value.apply(sample)).append('\n');
+        }
+    }
+
+    private static void appendGauge(StringBuilder body, String name, String help, String labels, double value) {
+        body.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        body.append("# TYPE ").append(name).append(" gauge\n");
+        body.append(name).append('{').append(labels).append("} ").append(value).append('\n');
+    }
+
+    private String labels(String request) {
+        return "test_type=\"" + escapeLabel(testType) + "\",request=\"" + escapeLabel(request) + "\"";
+    }
+
+    private static String escapeLabel(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n");
+    }
+
+    private static String escapeTag(String value) {
+        return value.replace("\\", "\\\\").replace(",", "\\,").replace("=", "\\=").replace(" ", "\\ ");
+    }
+}
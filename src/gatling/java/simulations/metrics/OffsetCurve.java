@@ -0,0 +1,149 @@
+package simulations.metrics;
+
+import io.gatling.http.response.Response;
+import io.gatling.javaapi.core.Session;
+import org.HdrHistogram.Histogram;
+import simulations.report.Reports;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+
+/**
+ * Latency, bytes and items of a paged request by the offset of the page. Each offset range is a
+ * breakdown entry {@code "<request> [offset <from>-<to>]"} of the {@link ResponseTimeRegistry}, so
+ * the curve also reaches live metrics and baselines, and the regression gate can catch a deep page
+ * getting slower while the first pages stay fast.
+ */
+public class OffsetCurve {
+
+    private static final Map<String, OffsetCurve> CURVES = new ConcurrentHashMap<>();
+
+    public record Point(long fromOffset, long toOffset, long pages, long errors, long items, double meanBytes,
+                        double mean, long percentile50, long percentile95, long percentile99, long max,
+                        // Items one sequential walker receives per second at this depth
+                        double itemsPerSecond) {}
+
+    public record Result(String testType, String request, int bucketSize, long pages, long items, long bytes,
+                         // Items across all concurrent walkers per second of walking
+                         double itemsPerSecond, List<Point> curve) {}
+
+    private record Bucket(ResponseTimeRegistry.Entry entry, LongAdder items, LongAdder bytes, LongAdder latencyMillis) {}
+
+    private final String requestName;
+    private final int bucketSize;
+    private final Map<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+    private final AtomicLong firstMillis = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastMillis = new AtomicLong(Long.MIN_VALUE);
+
+    private OffsetCurve(String requestName, int bucketSize) {
+        this.requestName = requestName;
+        this.bucketSize = bucketSize;
+    }
+
+    public static OffsetCurve register(String requestName, int bucketSize) {
+        return CURVES.computeIfAbsent(requestName, name -> new OffsetCurve(name, bucketSize));
+    }
+
+    // Like ResponseTimeRegistry.tap, recording latency and body size under the page's offset range
+    public BiFunction<Response, Session, Boolean> tap() {
+        return (response, session) -> {
+            long responseTimeMillis = Math.max(0, response.endTimestamp() - response.startTimestamp());
+            Bucket bucket = bucket(offsetOf(response.request().getUri().getQuery()));
+            bucket.entry().record(responseTimeMillis, response.status().code() >= 400);
+            bucket.bytes().add(response.body().length());
+            bucket.latencyMillis().add(responseTimeMillis);
+            firstMillis.accumulateAndGet(response.startTimestamp(), Math::min);
+            lastMillis.accumulateAndGet(response.endTimestamp(), Math::max);
+            return false;
+        };
+    }
+
+    // Items are only known once the page has been parsed, so scenarios add them after the request
+    public void recordItems(String url, long items) {
+        int query = url.indexOf('?');
+        bucket(offsetOf(query < 0 ? null : url.substring(query + 1))).items().add(items);
+    }
+
+    private Bucket bucket(long offset) {
+        return buckets.computeIfAbsent(Math.max(offset, 0) / bucketSize * bucketSize, from -> new Bucket(
+                ResponseTimeRegistry.entry(ResponseTimeRegistry.breakdownName(requestName,
+                        "offset " + from + "-" + (from + bucketSize - 1))),
+                new LongAdder(), new LongAdder(), new LongAdder()));
+    }
+
+    private static long offsetOf(String query) {
+        if (query == null) {
+            return 0;
+        }
+        for (String pair : query.split("&")) {
+            if (pair.startsWith("offset=")) {
+                try {
+                    return Long.parseLong(pair.substring("offset=".length()));
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 0;
+    }
+
+    static void reset() {
+        CURVES.clear();
+    }
+
+    public static void writeReports(String testType) {
+        new TreeMap<>(CURVES).forEach((name, curve) -> {
+            if (!curve.buckets.isEmpty()) {
+                write(curve.result(testType));
+            }
+        });
+    }
+
+    private Result result(String testType) {
+        List<Point> points = new ArrayList<>();
+        long pages = 0;
+        long items = 0;
+        long bytes = 0;
+        for (Map.Entry<Long, Bucket> entry : buckets.entrySet()) {
+            Bucket bucket = entry.getValue();
+            Histogram histogram = bucket.entry().cumulative();
+            long bucketPages = histogram.getTotalCount();
+            long bucketItems = bucket.items().sum();
+            long latencyMillis = bucket.latencyMillis().sum();
+            points.add(new Point(entry.getKey(), entry.getKey() + bucketSize - 1, bucketPages,
+                    bucket.entry().cumulativeErrors(), bucketItems,
+                    bucketPages == 0 ? 0 : (double) bucket.bytes().sum() / bucketPages,
+                    histogram.getMean(), histogram.getValueAtPercentile(50), histogram.getValueAtPercentile(95),
+                    histogram.getValueAtPercentile(99), histogram.getMaxValue(),
+                    latencyMillis == 0 ? 0 : bucketItems * 1000.0 / latencyMillis));
+            pages += bucketPages;
+            items += bucketItems;
+            bytes += bucket.bytes().sum();
+        }
+        double seconds = Math.max(1e-3, (lastMillis.get() - firstMillis.get()) / 1000.0);
+        return new Result(testType, requestName, bucketSize, pages, items, bytes, items / seconds, points);
+    }
+
+    private static void write(Result result) {
+        System.out.printf("%nLatency by offset of %s (%d pages, %d items, %.0f items/s overall, ms)%n",
+                result.request(), result.pages(), result.items(), result.itemsPerSecond());
+        System.out.printf("%-14s %7s %5s %8s %9s %8s %6s %6s %6s %7s %9s%n",
+                "Offset", "Pages", "KO", "Items", "Bytes", "Mean", "p50", "p95", "p99", "Max", "Items/s");
+        for (Point point : result.curve()) {
+            System.out.printf("%-14s %7d %5d %8d %9.0f %8.1f %6d %6d %6d %7d %9.0f%n",
+                    point.fromOffset() + "-" + point.toOffset(), point.pages(), point.errors(), point.items(),
+                    point.meanBytes(), point.mean(), point.percentile50(), point.percentile95(),
+                    point.percentile99(), point.max(), point.itemsPerSecond());
+        }
+
+        Reports.write("pagination", "pagination-" + result.testType() + "-" + Reports.timestamp(),
+                result, "pagination report");
+    }
+}
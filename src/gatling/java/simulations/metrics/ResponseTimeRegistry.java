@@ -0,0 +1,270 @@
+package simulations.metrics;
+
+import io.gatling.http.response.Response;
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.CheckBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.gatling.javaapi.core.CoreDsl.exec;
+import static io.gatling.javaapi.core.CoreDsl.responseTimeInMillis;
+import static io.gatling.javaapi.http.HttpDsl.status;
+
+/**
+ * Response time histograms per request name. A request is recorded by the step right after it,
+ * which reads what the request's first checks saved and so also sees the requests no check ever
+ * runs for: timeouts, connection errors and requests that could not be built. Every request
+ * Gatling marks KO counts as an error. Resources, which have no step after them, are recorded by a
+ * tap: a {@code checkIf} condition that records the response and always answers {@code false}.
+ * <p>
+ * The response path only touches {@link Recorder}s and {@link LongAdder}s, all lock-free and
+ * allocation-free once warm: one pair the metrics exporter drains per interval, one pair drained
+ * into the cumulative histogram every other reader sees.
+ * <p>
+ * A breakdown entry, named {@code "<request> [<part>]"}, holds a subset of another request's
+ * responses, or the span of several requests, and is therefore left out of every all-requests total.
+ */
+public final class ResponseTimeRegistry {
+
+    public record Interval(Histogram histogram, long errors) {}
+
+    // How a recorded request ended
+    public enum Outcome {
+        RESPONSE, NO_RESPONSE, NOT_SENT
+    }
+
+    // Saved by the first checks of every recorded request, see checks()
+    public static final String RESPONSE_TIME = "responseTimeMillis";
+    public static final String STATUS = "responseStatus";
+    // Outcome of the request recorded last
+    public static final String OUTCOME = "requestOutcome";
+
+    // The exporter drains its own recorder, so reading the cumulative totals during the run does
+    // not take samples out of the interval it exports next
+    public static final class Entry {
+        private final Recorder interval = new Recorder(3);
+        private final LongAdder intervalErrors = new LongAdder();
+        private final Recorder total = new Recorder(3);
+        private final LongAdder totalErrors = new LongAdder();
+        private final Histogram cumulative = new Histogram(3);
+
+        void record(long responseTimeMillis, boolean error) {
+            interval.recordValue(responseTimeMillis);
+            total.recordValue(responseTimeMillis);
+            if (error) {
+                intervalErrors.increment();
+                totalErrors.increment();
+            }
+        }
+
+        // Also records the samples a user would have taken at expectedInterval while waiting
+        void recordCorrected(long responseTimeMillis, long expectedIntervalMillis, boolean error) {
+            interval.recordValueWithExpectedInterval(responseTimeMillis, expectedIntervalMillis);
+            total.recordValueWithExpectedInterval(responseTimeMillis, expectedIntervalMillis);
+            if (error) {
+                intervalErrors.increment();
+                totalErrors.increment();
+            }
+        }
+
+        // Everything recorded since the previous drain; only the metrics exporter drains
+        public Interval drain() {
+            return new Interval(interval.getIntervalHistogram(), intervalErrors.sumThenReset());
+        }
+
+        public synchronized Histogram cumulative() {
+            cumulative.add(total.getIntervalHistogram());
+            return cumulative.copy();
+        }
+
+        public long cumulativeErrors() {
+            return totalErrors.sum();
+        }
+    }
+
+    private static final Map<String, Entry> ENTRIES = new ConcurrentHashMap<>();
+    private static final Set<String> SPANS = ConcurrentHashMap.newKeySet();
+    // Session attributes the expressions of a request read, one set per way the name is sent
+    private static final Map<String, Set<Set<String>>> ATTRIBUTES = new ConcurrentHashMap<>();
+    private static final Pattern EXPRESSION_ATTRIBUTE = Pattern.compile("#\\{([^}.(]+)");
+    private static final String SENT = "requestSentMillis";
+    private static final String SENDABLE = "requestSendable";
+    private static final String FAILED_BEFORE = "requestFailedBefore";
+
+    private ResponseTimeRegistry() {
+    }
+
+    // Must come first, since checks stop at the first failure
+    public static CheckBuilder[] checks() {
+        return new CheckBuilder[]{responseTimeInMillis().saveAs(RESPONSE_TIME), status().saveAs(STATUS)};
+    }
+
+    // A request that reads an attribute missing from the session cannot be built, so it fails
+    // without being sent; several expressions of one name are the different ways it is sent
+    public static void expects(String requestName, String expression) {
+        Set<String> attributes = new HashSet<>();
+        Matcher matcher = EXPRESSION_ATTRIBUTE.matcher(expression);
+        while (matcher.find()) {
+            attributes.add(matcher.group(1));
+        }
+        ATTRIBUTES.computeIfAbsent(requestName, name -> ConcurrentHashMap.newKeySet()).add(Set.copyOf(attributes));
+    }
+
+    // Sends the request and records how it ended. A request without a response is recorded at the
+    // time it took to fail, one that could not be built at 0 ms like Gatling records it
+    public static ChainBuilder recorded(String requestName, HttpRequestActionBuilder request) {
+        Taps taps = taps(requestName);
+        return recorded(session -> requestName, session -> taps, request);
+    }
+
+    // For a request whose name comes from the session, e.g. a replayed log line
+    public static ChainBuilder recorded(Function<Session, String> requestName, HttpRequestActionBuilder request) {
+        Map<String, Taps> byName = new ConcurrentHashMap<>();
+        return recorded(requestName, session -> byName.computeIfAbsent(requestName.apply(session), ResponseTimeRegistry::taps),
+                request);
+    }
+
+    // The request starts unfailed, so its own outcome can be told apart from an earlier failure
+    private static ChainBuilder recorded(Function<Session, String> requestName, Function<Session, Taps> taps,
+                                         HttpRequestActionBuilder request) {
+        return exec(session -> session.set(FAILED_BEFORE, session.isFailed())
+                        .set(SENDABLE, isSendable(requestName.apply(session), session))
+                        .set(SENT, System.currentTimeMillis())
+                        .remove(RESPONSE_TIME)
+                        .remove(STATUS)
+                        .markAsSucceeded())
+                .exec(request)
+                .exec(session -> {
+                    Session recorded = taps.apply(session).record(session);
+                    return session.getBoolean(FAILED_BEFORE) ? recorded.markAsFailed() : recorded;
+                });
+    }
+
+    private static boolean isSendable(String requestName, Session session) {
+        Set<Set<String>> alternatives = ATTRIBUTES.get(requestName);
+        return alternatives == null || alternatives.stream().anyMatch(attributes -> attributes.stream().allMatch(session::contains));
+    }
+
+    // For a resource, whose responses are all this sees
+    public static BiFunction<Response, Session, Boolean> tap(String requestName) {
+        Taps taps = taps(requestName);
+        return (response, session) -> {
+            taps.record(Math.max(0, response.endTimestamp() - response.startTimestamp()), response.status().code() >= 400);
+            return false;
+        };
+    }
+
+    // Entries a request is recorded in, decided when the request is built
+    private record Taps(Entry entry, Entry corrected, Entry saturated) {
+
+        Session record(Session session) {
+            boolean failed = session.isFailed();
+            long sent = session.getLong(SENT);
+            Outcome outcome;
+            long responseTime;
+            if (session.contains(RESPONSE_TIME)) {
+                outcome = Outcome.RESPONSE;
+                responseTime = session.getLong(RESPONSE_TIME);
+            } else if (!session.getBoolean(SENDABLE)) {
+                outcome = Outcome.NOT_SENT;
+                responseTime = 0;
+            } else {
+                outcome = failed ? Outcome.NO_RESPONSE : Outcome.RESPONSE;
+                responseTime = Math.max(0, System.currentTimeMillis() - sent);
+            }
+            record(responseTime, failed);
+            // A timeout or refused connection stalls the user as long as a slow response does
+            if (corrected != null && outcome != Outcome.NOT_SENT) {
+                CoordinatedOmission.record(corrected, session, sent, responseTime, failed);
+            }
+            return CoordinatedOmission.chained(session)
+                    .set(OUTCOME, outcome).remove(SENT).remove(SENDABLE).remove(FAILED_BEFORE);
+        }
+
+        void record(long responseTimeMillis, boolean error) {
+            entry.record(responseTimeMillis, error);
+            if (saturated != null && GeneratorHealth.isSaturated()) {
+                saturated.record(responseTimeMillis, error);
+            }
+        }
+    }
+
+    private static Taps taps(String requestName) {
+        return new Taps(entry(requestName),
+                CoordinatedOmission.isEnabled() ? entry(CoordinatedOmission.correctedName(requestName)) : null,
+                GeneratorHealth.isMonitoring() ? entry(GeneratorHealth.saturatedName(requestName)) : null);
+    }
+
+    public static String breakdownName(String requestName, String part) {
+        return requestName + " [" + part + "]";
+    }
+
+    public static boolean isBreakdown(String name) {
+        return name.endsWith("]") && name.contains(" [");
+    }
+
+    // Records the time since startAttribute was set to System.nanoTime(), e.g. across one pass of
+    // a group whose requests overlap, and clears the attribute
+    public static Function<Session, Session> span(String name, String startAttribute) {
+        Entry entry = entry(name);
+        SPANS.add(name);
+        return session -> {
+            if (session.contains(startAttribute)) {
+                long elapsedNanos = System.nanoTime() - session.getLong(startAttribute);
+                entry.record(TimeUnit.NANOSECONDS.toMillis(elapsedNanos), session.isFailed());
+            }
+            return session.remove(startAttribute);
+        };
+    }
+
+    public static void printSpans() {
+        List<String> recorded = SPANS.stream()
+                .filter(name -> ENTRIES.get(name).cumulative().getTotalCount() > 0)
+                .sorted()
+                .toList();
+        if (recorded.isEmpty()) {
+            return;
+        }
+        System.out.printf("%nEnd-to-end spans (ms)%n");
+        System.out.printf("%-44s %8s %6s %8s %6s %6s %6s %7s%n", "Span", "Count", "KO", "Mean", "p50", "p95", "p99", "Max");
+        for (String name : recorded) {
+            Entry entry = ENTRIES.get(name);
+            Histogram histogram = entry.cumulative();
+            System.out.printf("%-44s %8d %6d %8.1f %6d %6d %6d %7d%n", name, histogram.getTotalCount(),
+                    entry.cumulativeErrors(), histogram.getMean(), histogram.getValueAtPercentile(50),
+                    histogram.getValueAtPercentile(95), histogram.getValueAtPercentile(99), histogram.getMaxValue());
+        }
+    }
+
+    // Forgets every recorded response, for a JVM that runs several simulations one after another
+    public static void reset() {
+        ENTRIES.clear();
+        SPANS.clear();
+        CacheStatus.reset();
+        OffsetCurve.reset();
+        RetryStats.reset();
+    }
+
+    static Entry entry(String name) {
+        return ENTRIES.computeIfAbsent(name, key -> new Entry());
+    }
+
+    public static Map<String, Entry> entries() {
+        return Collections.unmodifiableMap(ENTRIES);
+    }
+}
@@ -0,0 +1,236 @@
+package simulations.metrics;
+
+import org.HdrHistogram.Histogram;
+import simulations.report.Reports;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Attempts behind the logical requests of a retried request. Every attempt is still recorded under
+ * the request's own name; the logical request, from its first attempt to its final outcome, is the
+ * {@code "<request> [final]"} span. The amplification factor, attempts sent per logical request, is
+ * also kept per second, so a retry storm shows up as the seconds where it climbs during a spike.
+ */
+public final class RetryStats {
+
+    private static final String ALL_REQUESTS = "All Requests";
+    private static final Map<String, RetryStats> STATS = new ConcurrentHashMap<>();
+    // Keyed by epoch second
+    private static final Map<Long, Second> TIMELINE = new ConcurrentSkipListMap<>();
+
+    public enum Outcome {
+        FIRST_ATTEMPT, RECOVERED, EXHAUSTED, BUDGET_DENIED, NOT_RETRYABLE
+    }
+
+    public record Row(
+            String request,
+            long logical,
+            long attempts,
+            // Attempts per logical request
+            double amplification,
+            // Logical requests by the number of attempts they took, index 0 is one attempt
+            long[] attemptsPerRequest,
+            long failedAttempts,
+            // Failed attempts that got no response: timeouts and connection errors
+            long noResponse,
+            long firstAttempt,
+            long recovered,
+            long exhausted,
+            long budgetDenied,
+            long notRetryable,
+            double attemptSuccessRate,
+            double finalSuccessRate,
+            long attemptPercentile50,
+            long attemptPercentile99,
+            long attemptMax,
+            long finalPercentile50,
+            long finalPercentile99,
+            long finalMax
+    ) {}
+
+    public record Point(long second, long logical, long attempts, long retries, long budgetDenied, double amplification) {}
+
+    public record Result(String testType, List<Row> rows, List<Point> timeline) {}
+
+    private record Second(LongAdder logical, LongAdder attempts, LongAdder denied) {}
+
+    private final String requestName;
+    private final AtomicLongArray attemptsPerRequest;
+    private final LongAdder logical = new LongAdder();
+    private final LongAdder attempts = new LongAdder();
+    private final LongAdder failedAttempts = new LongAdder();
+    private final LongAdder noResponse = new LongAdder();
+    private final Map<Outcome, LongAdder> outcomes = new EnumMap<>(Outcome.class);
+
+    private RetryStats(String requestName, int maxAttempts) {
+        this.requestName = requestName;
+        this.attemptsPerRequest = new AtomicLongArray(maxAttempts);
+        for (Outcome outcome : Outcome.values()) {
+            outcomes.put(outcome, new LongAdder());
+        }
+    }
+
+    public static RetryStats register(String requestName, int maxAttempts) {
+        return STATS.computeIfAbsent(requestName, name -> new RetryStats(name, maxAttempts));
+    }
+
+    public static String finalName(String requestName) {
+        return ResponseTimeRegistry.breakdownName(requestName, "final");
+    }
+
+    public void start() {
+        logical.increment();
+        second().logical().increment();
+    }
+
+    // Counted as it is sent, so the timeline has it in the second it added load
+    public void attempt() {
+        attempts.increment();
+        second().attempts().increment();
+    }
+
+    public void failed(boolean withoutResponse) {
+        failedAttempts.increment();
+        if (withoutResponse) {
+            noResponse.increment();
+        }
+    }
+
+    public void finish(int attemptCount, Outcome outcome) {
+        attemptsPerRequest.incrementAndGet(Math.min(attemptCount, attemptsPerRequest.length()) - 1);
+        outcomes.get(outcome).increment();
+        if (outcome == Outcome.BUDGET_DENIED) {
+            second().denied().increment();
+        }
+    }
+
+    private static Second second() {
+        return TIMELINE.computeIfAbsent(System.currentTimeMillis() / 1000,
+                second -> new Second(new LongAdder(), new LongAdder(), new LongAdder()));
+    }
+
+    static void reset() {
+        STATS.clear();
+        TIMELINE.clear();
+    }
+
+    public static void writeReport(String testType) {
+        List<Row> rows = new ArrayList<>();
+        new TreeMap<>(STATS).forEach((name, stats) -> {
+            if (stats.logical.sum() > 0) {
+                rows.add(stats.row());
+            }
+        });
+        if (rows.isEmpty()) {
+            return;
+        }
+        rows.add(0, total(rows));
+        write(new Result(testType, rows, timeline()));
+    }
+
+    private Row row() {
+        Histogram attempt = histogram(requestName);
+        Histogram logicalHistogram = histogram(finalName(requestName));
+        long[] perRequest = new long[attemptsPerRequest.length()];
+        for (int i = 0; i < perRequest.length; i++) {
+            perRequest[i] = attemptsPerRequest.get(i);
+        }
+        long logicalCount = logical.sum();
+        long attemptCount = attempts.sum();
+        long succeeded = outcomes.get(Outcome.FIRST_ATTEMPT).sum() + outcomes.get(Outcome.RECOVERED).sum();
+        return new Row(requestName, logicalCount, attemptCount, ratio(attemptCount, logicalCount), perRequest,
+                failedAttempts.sum(), noResponse.sum(),
+                outcomes.get(Outcome.FIRST_ATTEMPT).sum(), outcomes.get(Outcome.RECOVERED).sum(),
+                outcomes.get(Outcome.EXHAUSTED).sum(), outcomes.get(Outcome.BUDGET_DENIED).sum(),
+                outcomes.get(Outcome.NOT_RETRYABLE).sum(),
+                ratio(attemptCount - failedAttempts.sum(), attemptCount), ratio(succeeded, logicalCount),
+                attempt.getValueAtPercentile(50), attempt.getValueAtPercentile(99), attempt.getMaxValue(),
+                logicalHistogram.getValueAtPercentile(50), logicalHistogram.getValueAtPercentile(99),
+                logicalHistogram.getMaxValue());
+    }
+
+    private static Row total(List<Row> rows) {
+        Histogram attempt = new Histogram(3);
+        Histogram logicalHistogram = new Histogram(3);
+        int maxAttempts = rows.stream().mapToInt(row -> row.attemptsPerRequest().length).max().orElse(1);
+        long[] perRequest = new long[maxAttempts];
+        long logical = 0, attempts = 0, failed = 0, noResponse = 0, first = 0, recovered = 0, exhausted = 0,
+                denied = 0, notRetryable = 0;
+        for (Row row : rows) {
+            attempt.add(histogram(row.request()));
+            logicalHistogram.add(histogram(finalName(row.request())));
+            for (int i = 0; i < row.attemptsPerRequest().length; i++) {
+                perRequest[i] += row.attemptsPerRequest()[i];
+            }
+            logical += row.logical();
+            attempts += row.attempts();
+            failed += row.failedAttempts();
+            noResponse += row.noResponse();
+            first += row.firstAttempt();
+            recovered += row.recovered();
+            exhausted += row.exhausted();
+            denied += row.budgetDenied();
+            notRetryable += row.notRetryable();
+        }
+        return new Row(ALL_REQUESTS, logical, attempts, ratio(attempts, logical), perRequest, failed, noResponse,
+                first, recovered, exhausted, denied, notRetryable,
+                ratio(attempts - failed, attempts), ratio(first + recovered, logical),
+                attempt.getValueAtPercentile(50), attempt.getValueAtPercentile(99), attempt.getMaxValue(),
+                logicalHistogram.getValueAtPercentile(50), logicalHistogram.getValueAtPercentile(99),
+                logicalHistogram.getMaxValue());
+    }
+
+    // Retries of a second are the attempts beyond the logical requests that started in it, so
+    // retries of requests started in an earlier second count towards the second they were sent in
+    private static List<Point> timeline() {
+        List<Point> points = new ArrayList<>();
+        long first = -1;
+        for (Map.Entry<Long, Second> entry : TIMELINE.entrySet()) {
+            if (first < 0) {
+                first = entry.getKey();
+            }
+            long logical = entry.getValue().logical().sum();
+            long attempts = entry.getValue().attempts().sum();
+            points.add(new Point(entry.getKey() - first, logical, attempts, Math.max(0, attempts - logical),
+                    entry.getValue().denied().sum(), ratio(attempts, logical)));
+        }
+        return points;
+    }
+
+    private static Histogram histogram(String name) {
+        ResponseTimeRegistry.Entry entry = ResponseTimeRegistry.entries().get(name);
+        return entry == null ? new Histogram(3) : entry.cumulative();
+    }
+
+    private static double ratio(long numerator, long denominator) {
+        return denominator == 0 ? 0 : (double) numerator / denominator;
+    }
+
+    private static void write(Result result) {
+        System.out.printf("%nRetries: attempts per logical request and final outcome (ms)%n");
+        System.out.printf("%-32s %8s %8s %6s %9s %9s %7s %7s %7s %8s %7s %9s %9s%n", "Request", "Logical", "Attempts",
+                "Ampl.", "Recovered", "Exhausted", "Denied", "No resp", "Try OK", "Final OK", "Try p99", "Final p99", "Final max");
+        for (Row row : result.rows()) {
+            System.out.printf("%-32s %8d %8d %5.2fx %9d %9d %7d %7d %6.1f%% %7.1f%% %7d %9d %9d%n",
+                    row.request(), row.logical(), row.attempts(), row.amplification(), row.recovered(), row.exhausted(),
+                    row.budgetDenied(), row.noResponse(), row.attemptSuccessRate() * 100, row.finalSuccessRate() * 100,
+                    row.attemptPercentile99(), row.finalPercentile99(), row.finalMax());
+        }
+        result.timeline().stream()
+                .filter(point -> point.retries() > 0)
+                .max((a, b) -> Long.compare(a.retries(), b.retries()))
+                .ifPresent(peak -> System.out.printf("Most retries in one second: %d at second %d, %d attempts for "
+                                + "%d new logical requests (%.2fx)%n",
+                        peak.retries(), peak.second(), peak.attempts(), peak.logical(), peak.amplification()));
+
+        Reports.write("retry", "retry-" + result.testType() + "-" + Reports.timestamp(), result, "retry report");
+    }
+}
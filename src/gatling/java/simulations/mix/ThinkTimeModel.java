@@ -0,0 +1,71 @@
+package simulations.mix;
+
+import simulations.config.TestConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Think time between the operations of a user visit. Like the stub's latency model, the log-normal
+ * parameters are derived from the configured mean and standard deviation, so a config states the
+ * think time it wants rather than the parameters of the underlying normal distribution.
+ */
+public class ThinkTimeModel {
+
+    private final String distribution;
+    private final double mean;
+    private final double min;
+    private final double max;
+    private final double[] samples;
+    private final double mu;
+    private final double sigma;
+
+    private ThinkTimeModel(String distribution, double mean, double stddev, double min, double max, double[] samples) {
+        this.distribution = distribution;
+        this.mean = mean;
+        this.min = min;
+        this.max = max;
+        this.samples = samples;
+
+        double variance = mean > 0 ? Math.log(1 + (stddev * stddev) / (mean * mean)) : 0;
+        this.sigma = Math.sqrt(variance);
+        this.mu = mean > 0 ? Math.log(mean) - variance / 2 : 0;
+    }
+
+    // Without a config users think one to two seconds, as in the mixed operations scenario
+    public static ThinkTimeModel from(TestConfig.ThinkTime think) {
+        if (think == null) {
+            return new ThinkTimeModel("uniform", 0, 0, 1000, 2000, new double[0]);
+        }
+        String distribution = think.distribution() == null ? "fixed" : think.distribution().toLowerCase();
+        double[] samples = think.samplesMs() == null ? new double[0]
+                : think.samplesMs().stream().mapToDouble(Double::doubleValue).toArray();
+        return new ThinkTimeModel(distribution,
+                think.meanMs() == null ? 0 : think.meanMs(),
+                think.stddevMs() == null ? 0 : think.stddevMs(),
+                think.minMs() == null ? 0 : think.minMs(),
+                think.maxMs() == null ? Double.MAX_VALUE : think.maxMs(),
+                samples);
+    }
+
+    public long sampleMillis() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        double millis = switch (distribution) {
+            case "uniform" -> min + random.nextDouble() * (max - min);
+            case "exponential" -> -mean * Math.log(1 - random.nextDouble());
+            case "lognormal" -> Math.exp(mu + random.nextGaussian() * sigma);
+            case "empirical" -> samples[random.nextInt(samples.length)];
+            default -> mean;
+        };
+
+        return Math.round(Math.min(Math.max(millis, min), max));
+    }
+
+    public String describe() {
+        return switch (distribution) {
+            case "uniform" -> String.format("uniform %.0f-%.0f ms", min, max);
+            case "empirical" -> String.format("empirical over %d samples", samples.length);
+            default -> String.format("%s, mean %.0f ms", distribution, mean);
+        };
+    }
+}
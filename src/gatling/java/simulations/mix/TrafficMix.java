@@ -0,0 +1,182 @@
+package simulations.mix;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import simulations.config.TestConfig;
+import simulations.report.Reports;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The production traffic mix: operations picked by weight within a user visit and the think time
+ * between them. The mix actually sent is reported against the configured weights, together with
+ * the session arrival rate and the mean number of concurrent sessions it produced. An open workload
+ * sets the former and a closed workload the latter; the other follows from the think time and the
+ * target's latency.
+ */
+public final class TrafficMix {
+
+    private static final String NAMES_RESOURCE = "stub/pokemon.json";
+    private static final Map<String, Double> DEFAULT_WEIGHTS = Map.of(
+            "byId", 50.0, "byName", 15.0, "list", 20.0, "abilities", 10.0, "traversal", 5.0);
+    private static volatile TrafficMix current;
+
+    public record Operation(String operation, double configuredShare, long count, double share) {}
+
+    public record Result(String testType, String think, int operationsPerSession, long sessions, long completedSessions,
+                         long operations, double seconds, double sessionsPerSecond, double operationsPerSecond,
+                         double meanSessionSeconds,
+                         // Sessions in progress on average, by Little's law from the summed session time
+                         double meanConcurrentSessions,
+                         // Share of session time spent thinking rather than waiting for responses
+                         double thinkShare,
+                         long thinkCount, double thinkMean, long thinkPercentile50, long thinkPercentile95,
+                         long thinkPercentile99, long thinkMax,
+                         List<Operation> mix) {}
+
+    private final Map<String, Double> percentages = new LinkedHashMap<>();
+    private final Map<String, LongAdder> counts = new LinkedHashMap<>();
+    private final int operationsPerSession;
+    private final ThinkTimeModel think;
+    private final List<String> names;
+    private final LongAdder sessions = new LongAdder();
+    private final LongAdder completedSessions = new LongAdder();
+    private final LongAdder sessionNanos = new LongAdder();
+    private final Histogram thinkMillis = new ConcurrentHistogram(3);
+    private final AtomicLong firstMillis = new AtomicLong(Long.MAX_VALUE);
+    private final AtomicLong lastMillis = new AtomicLong(Long.MIN_VALUE);
+
+    private TrafficMix(TestConfig.MixConfig config) {
+        Map<String, Double> weights = config == null || config.weights() == null ? DEFAULT_WEIGHTS : config.weights();
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+        // Gatling's random switch rejects percentages summing to more than 100, so rounding only goes down
+        for (String operation : TestConfig.MixConfig.OPERATIONS) {
+            Double weight = weights.get(operation);
+            if (weight != null && weight > 0) {
+                percentages.put(operation, Math.floor(weight / total * 100 * 1e6) / 1e6);
+                counts.put(operation, new LongAdder());
+            }
+        }
+        operationsPerSession = config == null || config.operationsPerSession() == null ? 5 : config.operationsPerSession();
+        think = ThinkTimeModel.from(config == null ? null : config.think());
+        names = loadNames();
+    }
+
+    // The mix of the simulation being built; its report is written when the simulation ends
+    public static TrafficMix create(TestConfig.MixConfig config) {
+        TrafficMix mix = new TrafficMix(config);
+        current = mix;
+        return mix;
+    }
+
+    // Operation to percentage of picks, in OPERATIONS order
+    public Map<String, Double> percentages() {
+        return percentages;
+    }
+
+    public int operationsPerSession() {
+        return operationsPerSession;
+    }
+
+    // PokeAPI names the first 151 Pokemon like the stub fixtures do; other ids map onto them, so the
+    // by-name operation follows the id distribution of its feeder
+    public String nameOf(int id) {
+        if (names.isEmpty()) {
+            return String.valueOf(id);
+        }
+        return names.get(Math.floorMod(id - 1, names.size()));
+    }
+
+    public void sessionStarted() {
+        sessions.increment();
+        firstMillis.accumulateAndGet(System.currentTimeMillis(), Math::min);
+    }
+
+    public void sessionFinished(long startNanos) {
+        completedSessions.increment();
+        sessionNanos.add(System.nanoTime() - startNanos);
+        lastMillis.accumulateAndGet(System.currentTimeMillis(), Math::max);
+    }
+
+    public void picked(String operation) {
+        counts.get(operation).increment();
+    }
+
+    public long think() {
+        long millis = think.sampleMillis();
+        thinkMillis.recordValue(millis);
+        return millis;
+    }
+
+    private static List<String> loadNames() {
+        List<String> names = new ArrayList<>();
+        try (InputStream in = TrafficMix.class.getClassLoader().getResourceAsStream(NAMES_RESOURCE)) {
+            if (in != null) {
+                for (JsonNode pokemon : new ObjectMapper().readTree(in)) {
+                    names.add(pokemon.get("name").asText());
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to read Pokemon names, the mix fetches by id instead: " + e.getMessage());
+            names.clear();
+        }
+        return names;
+    }
+
+    public static void writeReport(String testType) {
+        TrafficMix mix = current;
+        if (mix == null || mix.sessions.sum() == 0) {
+            return;
+        }
+        mix.write(mix.result(testType));
+    }
+
+    private Result result(String testType) {
+        long operations = counts.values().stream().mapToLong(LongAdder::sum).sum();
+        double seconds = lastMillis.get() > firstMillis.get() ? (lastMillis.get() - firstMillis.get()) / 1000.0 : 0;
+        long completed = completedSessions.sum();
+        double sessionSeconds = sessionNanos.sum() / 1e9;
+        List<Operation> mix = new ArrayList<>();
+        percentages.forEach((operation, percentage) -> {
+            long count = counts.get(operation).sum();
+            mix.add(new Operation(operation, percentage, count, operations == 0 ? 0 : count * 100.0 / operations));
+        });
+        return new Result(testType, think.describe(), operationsPerSession, sessions.sum(), completed, operations,
+                seconds, rate(sessions.sum(), seconds), rate(operations, seconds),
+                completed == 0 ? 0 : sessionSeconds / completed, rate(sessionSeconds, seconds),
+                sessionSeconds == 0 ? 0 : Math.min(1, thinkMillis.getTotalCount() * thinkMillis.getMean() / 1000 / sessionSeconds),
+                thinkMillis.getTotalCount(), thinkMillis.getMean(), thinkMillis.getValueAtPercentile(50),
+                thinkMillis.getValueAtPercentile(95), thinkMillis.getValueAtPercentile(99), thinkMillis.getMaxValue(), mix);
+    }
+
+    private static double rate(double amount, double seconds) {
+        return seconds == 0 ? 0 : amount / seconds;
+    }
+
+    private void write(Result result) {
+        System.out.printf("%nTraffic mix: %d operations per session, think time %s%n",
+                result.operationsPerSession(), result.think());
+        System.out.printf("%-12s %10s %10s %8s%n", "Operation", "Configured", "Sent", "Count");
+        for (Operation operation : result.mix()) {
+            System.out.printf("%-12s %9.1f%% %9.1f%% %8d%n",
+                    operation.operation(), operation.configuredShare(), operation.share(), operation.count());
+        }
+        System.out.printf("Sessions: %d (%.2f/s), operations %.2f/s, mean session %.1f s, %.1f concurrent on average, "
+                        + "%.0f%% of session time thinking%n",
+                result.sessions(), result.sessionsPerSecond(), result.operationsPerSecond(), result.meanSessionSeconds(),
+                result.meanConcurrentSessions(), result.thinkShare() * 100);
+        System.out.printf("Think time (ms): mean %.0f, p50 %d, p95 %d, p99 %d, max %d%n", result.thinkMean(),
+                result.thinkPercentile50(), result.thinkPercentile95(), result.thinkPercentile99(), result.thinkMax());
+
+        Reports.write("mix", "mix-" + result.testType() + "-" + Reports.timestamp(), result, "traffic mix report");
+    }
+}
@@ -0,0 +1,396 @@
+package simulations.replay;
+
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * An nginx access log in the combined format, read through memory-mapped windows of the file so a
+ * multi-gigabyte log never lands on the heap. Lines are parsed straight from the mapped bytes into a
+ * reused buffer; only the replayed path becomes a string.
+ * <p>
+ * The log is read twice: {@link #profile()} counts the replayed lines per logged second, which
+ * becomes the injection profile, and {@link #events()} streams the same lines as feeder records in
+ * log order. Both passes apply the same filters, so every injected user gets exactly one line.
+ */
+public final class AccessLog {
+
+    public static final String METHOD = "replayMethod";
+    public static final String PATH = "replayPath";
+    public static final String REQUEST = "replayRequest";
+    public static final String EXPECTED_STATUS = "replayExpectedStatus";
+
+    private static final long WINDOW_BYTES = 1L << 28;
+    private static final String OTHER_REQUESTS = "other";
+    private static final List<String> MONTHS = List.of("Jan", "Feb", "Mar", "Apr", "May", "Jun",
+            "Jul", "Aug", "Sep", "Oct", "Nov", "Dec");
+
+    public record Profile(long firstSecond, int[] perSecond, long events, long skipped, long unparsable,
+                          Map<String, Long> requests) {
+
+        public int peakPerSecond() {
+            return Arrays.stream(perSecond).max().orElse(0);
+        }
+    }
+
+    private final Path file;
+    private final String pathPrefix;
+    private final List<String> methods;
+    private final Integer maxDuration;
+    private final int maxRequestNames;
+    // Request names are fixed by the first pass, so the capped set is the same in both passes
+    private final Map<String, String> requestNames = new HashMap<>();
+
+    private AccessLog(Path file, TestConfig.ReplayConfig config) {
+        this.file = file;
+        this.pathPrefix = config.pathPrefix() == null ? "" : config.pathPrefix();
+        this.methods = config.methods() == null ? TestConfig.ReplayConfig.METHODS : config.methods();
+        this.maxDuration = config.maxDuration();
+        this.maxRequestNames = config.maxRequestNames() == null ? 50 : config.maxRequestNames();
+    }
+
+    public static AccessLog open(TestConfig.ReplayConfig config) throws IOException {
+        String logFile = System.getProperty("replayLog", config.logFile());
+        if (logFile == null) {
+            throw new IOException("No access log to replay, set replay.logFile or -DreplayLog");
+        }
+        Path file = Path.of(logFile);
+        if (!Files.isRegularFile(file)) {
+            throw new IOException("Access log not found: " + file.toAbsolutePath());
+        }
+        return new AccessLog(file, config);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public Profile profile() throws IOException {
+        Map<String, Long> requests = new HashMap<>();
+        int[] perSecond = new int[3600];
+        long firstSecond = Long.MIN_VALUE;
+        long events = 0;
+        long skipped = 0;
+        long unparsable = 0;
+        try (Lines lines = new Lines(file)) {
+            Line line = new Line();
+            while (lines.next(line)) {
+                if (!line.parse()) {
+                    unparsable++;
+                    continue;
+                }
+                if (firstSecond == Long.MIN_VALUE) {
+                    firstSecond = line.epochSecond;
+                }
+                if (!accepts(line, firstSecond)) {
+                    skipped++;
+                    continue;
+                }
+                // nginx logs a request when it completes, so lines can be a little out of order
+                int offset = (int) Math.max(0, line.epochSecond - firstSecond);
+                if (offset >= perSecond.length) {
+                    perSecond = Arrays.copyOf(perSecond, Math.max(offset + 1, perSecond.length * 2));
+                }
+                perSecond[offset]++;
+                events++;
+                String path = line.path(pathPrefix);
+                String name = requestNames.computeIfAbsent(line.method + " " + template(path),
+                        template -> requestNames.size() < maxRequestNames ? template : line.method + " " + OTHER_REQUESTS);
+                requests.merge(name, 1L, Long::sum);
+            }
+        }
+        int seconds = perSecond.length;
+        while (seconds > 0 && perSecond[seconds - 1] == 0) {
+            seconds--;
+        }
+        return new Profile(firstSecond, Arrays.copyOf(perSecond, seconds), events, skipped, unparsable, requests);
+    }
+
+    // Feeder over the lines counted by profile(), which must have run first
+    public Iterator<Map<String, Object>> events() throws IOException {
+        return new Events(new Lines(file));
+    }
+
+    private boolean accepts(Line line, long firstSecond) {
+        return methods.contains(line.method)
+                && line.startsWith(pathPrefix)
+                && (maxDuration == null || line.epochSecond - firstSecond < maxDuration);
+    }
+
+    // The resource and, when present, "{id}" for the id or name after it: /pokemon/25/encounters
+    // becomes /pokemon/{id}/encounters, so request names stay few however many keys the log hits
+    static String template(String path) {
+        int query = path.indexOf('?');
+        String[] segments = (query < 0 ? path : path.substring(0, query)).split("/", -1);
+        StringBuilder template = new StringBuilder();
+        for (int i = 1; i < segments.length; i++) {
+            if (segments[i].isEmpty() && i == segments.length - 1) {
+                break;
+            }
+            template.append('/').append(i == 2 ? "{id}" : segments[i]);
+        }
+        return template.isEmpty() ? "/" : template.toString();
+    }
+
+    // 2xx and 3xx lines were served, so a cold replay without validators expects a 200; client
+    // errors are expected again; server errors were the target's fault and should not repeat
+    static int expectedStatus(int loggedStatus) {
+        return loggedStatus >= 400 && loggedStatus < 500 && loggedStatus != 499 ? loggedStatus : 200;
+    }
+
+    private final class Events implements Iterator<Map<String, Object>> {
+        private final Lines lines;
+        private final Line line = new Line();
+        private long firstSecond = Long.MIN_VALUE;
+        private Map<String, Object> next;
+
+        Events(Lines lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public synchronized boolean hasNext() {
+            if (next == null) {
+                next = advance();
+            }
+            return next != null;
+        }
+
+        @Override
+        public synchronized Map<String, Object> next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException("Access log " + file + " has no more lines to replay");
+            }
+            Map<String, Object> event = next;
+            next = null;
+            return event;
+        }
+
+        private Map<String, Object> advance() {
+            try {
+                while (lines.next(line)) {
+                    if (!line.parse()) {
+                        continue;
+                    }
+                    if (firstSecond == Long.MIN_VALUE) {
+                        firstSecond = line.epochSecond;
+                    }
+                    if (accepts(line, firstSecond)) {
+                        String path = line.path(pathPrefix);
+                        String name = requestNames.getOrDefault(line.method + " " + template(path),
+                                line.method + " " + OTHER_REQUESTS);
+                        return Map.of(METHOD, line.method, PATH, path, REQUEST, name,
+                                EXPECTED_STATUS, expectedStatus(line.status));
+                    }
+                }
+                lines.close();
+                return null;
+            } catch (IOException e) {
+                throw new IllegalStateException("Failed to read " + file, e);
+            }
+        }
+    }
+
+    // Lines of a file through memory-mapped windows; a line crossing the end of a window is read
+    // again from a window starting at that line
+    private static final class Lines implements AutoCloseable {
+        private final FileChannel channel;
+        private final long size;
+        private MappedByteBuffer window;
+        private long windowStart;
+        private long position;
+
+        Lines(Path file) throws IOException {
+            this.channel = FileChannel.open(file, StandardOpenOption.READ);
+            this.size = channel.size();
+        }
+
+        boolean next(Line line) throws IOException {
+            while (position < size) {
+                if (window == null || position >= windowStart + window.limit()) {
+                    map(position);
+                }
+                int start = (int) (position - windowStart);
+                int end = start;
+                int limit = window.limit();
+                while (end < limit && window.get(end) != '\n') {
+                    end++;
+                }
+                boolean lastWindow = windowStart + limit >= size;
+                if (end == limit && !lastWindow) {
+                    if (start == 0) {
+                        throw new IOException("Line at byte " + position + " is longer than " + WINDOW_BYTES + " bytes");
+                    }
+                    map(position);
+                    continue;
+                }
+                line.load(window, start, end);
+                position = windowStart + Math.min(end + 1, limit);
+                if (end > start) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void map(long from) throws IOException {
+            windowStart = from;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(WINDOW_BYTES, size - from));
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+
+    // One line in a reused buffer and the fields parse() found in it
+    private static final class Line {
+        private byte[] bytes = new byte[512];
+        private int length;
+        private long epochSecond;
+        private String method;
+        private int pathStart;
+        private int pathEnd;
+        private int status;
+        private final byte[] cachedDate = new byte[11];
+        private long cachedEpochDay = Long.MIN_VALUE;
+
+        void load(MappedByteBuffer window, int start, int end) {
+            length = end - start;
+            if (length > 0 && window.get(end - 1) == '\r') {
+                length--;
+            }
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            window.get(start, bytes, 0, length);
+        }
+
+        // $remote_addr - $remote_user [$time_local] "$request" $status $body_bytes_sent ...
+        boolean parse() {
+            int open = indexOf('[', 0);
+            if (open < 0 || open + 27 > length || bytes[open + 27] != ']' || !parseTime(open + 1)) {
+                return false;
+            }
+            int quote = indexOf('"', open + 28);
+            int space = quote < 0 ? -1 : indexOf(' ', quote + 1);
+            int secondSpace = space < 0 ? -1 : indexOf(' ', space + 1);
+            int close = secondSpace < 0 ? -1 : indexOf('"', secondSpace + 1);
+            if (close < 0 || close + 5 > length) {
+                return false;
+            }
+            method = method(quote + 1, space);
+            pathStart = space + 1;
+            pathEnd = secondSpace;
+            status = 0;
+            for (int i = close + 2; i < close + 5; i++) {
+                if (bytes[i] < '0' || bytes[i] > '9') {
+                    return false;
+                }
+                status = status * 10 + bytes[i] - '0';
+            }
+            return method != null && pathEnd > pathStart && bytes[pathStart] == '/';
+        }
+
+        boolean startsWith(String prefix) {
+            if (pathEnd - pathStart < prefix.length()) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length(); i++) {
+                if (bytes[pathStart + i] != prefix.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        String path(String prefix) {
+            int start = pathStart + prefix.length();
+            return start == pathEnd ? "/" : new String(bytes, start, pathEnd - start, StandardCharsets.US_ASCII);
+        }
+
+        // 10/Oct/2000:13:55:36 -0700
+        private boolean parseTime(int at) {
+            if (!Arrays.equals(bytes, at, at + 11, cachedDate, 0, 11)) {
+                int month = MONTHS.indexOf(new String(bytes, at + 3, 3, StandardCharsets.US_ASCII));
+                int day = digits(at, 2);
+                int year = digits(at + 7, 4);
+                if (month < 0 || day < 1 || day > 31 || year < 0) {
+                    return false;
+                }
+                try {
+                    cachedEpochDay = LocalDate.of(year, month + 1, day).toEpochDay();
+                } catch (DateTimeException e) {
+                    // 31/Apr or 29/Feb of a common year: the line is unparsable like any other bad timestamp
+                    return false;
+                }
+                System.arraycopy(bytes, at, cachedDate, 0, 11);
+            }
+            int hours = digits(at + 12, 2);
+            int minutes = digits(at + 15, 2);
+            int seconds = digits(at + 18, 2);
+            int zoneHours = digits(at + 22, 2);
+            int zoneMinutes = digits(at + 24, 2);
+            if (hours < 0 || minutes < 0 || seconds < 0 || zoneHours < 0 || zoneMinutes < 0) {
+                return false;
+            }
+            int zone = (zoneHours * 3600 + zoneMinutes * 60) * (bytes[at + 21] == '-' ? -1 : 1);
+            epochSecond = cachedEpochDay * 86400 + hours * 3600L + minutes * 60L + seconds - zone;
+            return true;
+        }
+
+        private int digits(int at, int count) {
+            int value = 0;
+            for (int i = at; i < at + count; i++) {
+                if (bytes[i] < '0' || bytes[i] > '9') {
+                    return -1;
+                }
+                value = value * 10 + bytes[i] - '0';
+            }
+            return value;
+        }
+
+        // Interned, so the common methods cost no allocation per line
+        private String method(int start, int end) {
+            for (String method : List.of("GET", "HEAD", "POST", "PUT", "DELETE", "PATCH", "OPTIONS")) {
+                if (end - start == method.length() && matches(start, method)) {
+                    return method;
+                }
+            }
+            return null;
+        }
+
+        private boolean matches(int at, String text) {
+            for (int i = 0; i < text.length(); i++) {
+                if (bytes[at + i] != text.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private int indexOf(char c, int from) {
+            for (int i = Math.max(from, 0); i < length; i++) {
+                if (bytes[i] == c) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package simulations.report;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Where and how the simulation writes its reports: one directory per kind of report under
+ * {@code build/reports}, files stamped with the time they were written, JSON indented.
+ */
+public final class Reports {
+
+    private static final Path ROOT = Path.of("build", "reports");
+    private static final DateTimeFormatter TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+    private static final ObjectMapper MAPPER = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    private Reports() {
+    }
+
+    public static Path directory(String name) {
+        return ROOT.resolve(name);
+    }
+
+    public static String timestamp() {
+        return LocalDateTime.now().format(TIMESTAMP);
+    }
+
+    public static void writeJson(Path file, Object report, String description) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        MAPPER.writeValue(file.toFile(), report);
+        System.out.println(Character.toUpperCase(description.charAt(0)) + description.substring(1)
+                + " written to " + file.toAbsolutePath());
+    }
+
+    // A report that cannot be written must not fail the run it describes, so the failure is only
+    // logged and null returned
+    public static Path write(String directory, String stem, Object report, String description) {
+        Path file = directory(directory).resolve(stem + ".json");
+        try {
+            writeJson(file, report, description);
+            return file;
+        } catch (IOException e) {
+            System.err.println("Failed to write " + description + ": " + e.getMessage());
+            return null;
+        }
+    }
+}
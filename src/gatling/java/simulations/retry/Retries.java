@@ -0,0 +1,153 @@
+package simulations.retry;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.http.HttpRequestActionBuilder;
+import simulations.config.TestConfig;
+import simulations.metrics.CoordinatedOmission;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.metrics.RetryStats;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Per-request timeouts and retries the way production clients send requests. A request with a
+ * policy is sent in a loop: a failed attempt is sent again after an exponential backoff with jitter
+ * while attempts remain, the failure is retryable and the retry budget, shared by all requests like
+ * a client's, has room for it. Retryable are attempts without a response, i.e. timeouts and
+ * connection errors, and responses with a status in the policy's retryOn; a request that cannot be
+ * built is not retryable.
+ */
+public final class Retries {
+
+    private static final String ATTEMPTS = "retryAttempts";
+    private static final String START = "retryStart";
+    private static final String BACKOFF = "retryBackoffMillis";
+    private static final String DONE = "retryDone";
+    private static final String FAILED_BEFORE = "retryFailedBefore";
+    private static final List<Integer> DEFAULT_RETRY_ON = List.of(429, 500, 502, 503, 504);
+
+    public record Policy(Duration timeout, int maxAttempts, long backoffMillis, long maxBackoffMillis, String jitter,
+                         Set<Integer> retryOn) {
+
+        // Backoff before the given retry, the first retry being 1
+        long backoff(int retry) {
+            long cap = Math.min(maxBackoffMillis, backoffMillis << Math.min(retry - 1, 30));
+            return switch (jitter) {
+                case "none" -> cap;
+                case "equal" -> cap / 2 + ThreadLocalRandom.current().nextLong(cap - cap / 2 + 1);
+                default -> ThreadLocalRandom.current().nextLong(cap + 1);
+            };
+        }
+    }
+
+    private static volatile TestConfig.RetryConfig config;
+    private static volatile RetryBudget budget;
+
+    private Retries() {
+    }
+
+    // Must run before scenarios are built, since requests get their policy when they are built
+    public static void configure(TestConfig.RetryConfig retry) {
+        config = "false".equalsIgnoreCase(System.getProperty("retry")) ? null : retry;
+        budget = config == null || config.budget() == null ? null : new RetryBudget(config.budget());
+    }
+
+    // Null for a request that is sent once with Gatling's default timeout
+    public static Policy policy(String requestName) {
+        TestConfig.RetryConfig retry = config;
+        if (retry == null) {
+            return null;
+        }
+        TestConfig.RetryPolicy merged = retry.defaults() == null
+                ? new TestConfig.RetryPolicy(null, null, null, null, null, null) : retry.defaults();
+        if (retry.requests() != null) {
+            merged = merged.merge(retry.requests().get(requestName));
+        }
+        int maxAttempts = merged.maxAttempts() == null ? 1 : merged.maxAttempts();
+        if (merged.timeout() == null && maxAttempts == 1) {
+            return null;
+        }
+        return new Policy(merged.timeout() == null ? null : Duration.ofMillis(merged.timeout()), maxAttempts,
+                merged.backoff() == null ? 100 : merged.backoff(),
+                merged.maxBackoff() == null ? 2000 : merged.maxBackoff(),
+                merged.jitter() == null ? "full" : merged.jitter(),
+                Set.copyOf(merged.retryOn() == null ? DEFAULT_RETRY_ON : merged.retryOn()));
+    }
+
+    // Sends the request under its policy. Each attempt is recorded under the request's name as
+    // before, the logical request from the first attempt to the final outcome, backoffs included,
+    // as the "[final]" span, and attempts and outcomes in RetryStats
+    public static ChainBuilder send(String requestName, HttpRequestActionBuilder request) {
+        Policy policy = policy(requestName);
+        if (policy == null) {
+            return ResponseTimeRegistry.recorded(requestName, request);
+        }
+        HttpRequestActionBuilder attempt = policy.timeout() == null ? request : request.requestTimeout(policy.timeout());
+        RetryStats stats = RetryStats.register(requestName, policy.maxAttempts());
+        RetryBudget limit = budget;
+
+        return exec(session -> {
+                    stats.start();
+                    if (limit != null) {
+                        limit.deposit();
+                    }
+                    return session.set(FAILED_BEFORE, session.isFailed())
+                            .set(ATTEMPTS, 0)
+                            .set(START, System.nanoTime());
+                })
+                .asLongAs(session -> !session.contains(DONE)).on(
+                        // Each attempt starts unfailed, so its own outcome can be told apart
+                        exec(session -> {
+                            stats.attempt();
+                            return session.markAsSucceeded();
+                        })
+                                .exec(ResponseTimeRegistry.recorded(requestName, attempt))
+                                .exec(session -> afterAttempt(session, policy, stats, limit))
+                                .doIf(session -> !session.contains(DONE)).then(
+                                        pause(session -> Duration.ofMillis(session.getLong(BACKOFF))))
+                )
+                .exec(ResponseTimeRegistry.span(RetryStats.finalName(requestName), START))
+                .exec(session -> {
+                    Session sent = session.remove(ATTEMPTS).remove(BACKOFF).remove(DONE).remove(FAILED_BEFORE);
+                    return session.getBoolean(FAILED_BEFORE) ? sent.markAsFailed() : sent;
+                });
+    }
+
+    private static Session afterAttempt(Session session, Policy policy, RetryStats stats, RetryBudget limit) {
+        int attempts = session.getInt(ATTEMPTS) + 1;
+        boolean failed = session.isFailed();
+        // A request that could not be built fails the same way on every attempt, so only a timeout
+        // or connection error is retried without a status
+        ResponseTimeRegistry.Outcome sent = session.get(ResponseTimeRegistry.OUTCOME);
+        boolean withoutResponse = failed && sent == ResponseTimeRegistry.Outcome.NO_RESPONSE;
+        if (failed) {
+            stats.failed(withoutResponse);
+        }
+        Session counted = session.set(ATTEMPTS, attempts);
+
+        RetryStats.Outcome outcome;
+        if (!failed) {
+            outcome = attempts == 1 ? RetryStats.Outcome.FIRST_ATTEMPT : RetryStats.Outcome.RECOVERED;
+        } else if (sent == ResponseTimeRegistry.Outcome.NOT_SENT
+                || !withoutResponse && !policy.retryOn().contains(session.getInt(ResponseTimeRegistry.STATUS))) {
+            outcome = RetryStats.Outcome.NOT_RETRYABLE;
+        } else if (attempts >= policy.maxAttempts()) {
+            outcome = RetryStats.Outcome.EXHAUSTED;
+        } else if (limit != null && !limit.withdraw()) {
+            outcome = RetryStats.Outcome.BUDGET_DENIED;
+        } else {
+            long backoff = policy.backoff(attempts);
+            // The retry is intended to go out once the backoff has passed, not when the failure arrived
+            return counted.set(BACKOFF, backoff)
+                    .set(CoordinatedOmission.INTENDED_SEND, System.currentTimeMillis() + backoff);
+        }
+        stats.finish(attempts, outcome);
+        return counted.set(DONE, true);
+    }
+}
@@ -0,0 +1,63 @@
+package simulations.retry;
+
+import simulations.config.TestConfig;
+
+/**
+ * Retries allowed across all requests, judged over a sliding window of seconds: at most ratio
+ * retries per logical request sent in the window plus minPerSecond for every second of it. Once
+ * the target fails most requests the budget caps the extra load retries add to a fixed share,
+ * instead of multiplying it by the attempts of every policy.
+ */
+final class RetryBudget {
+
+    private final double ratio;
+    private final int minPerSecond;
+    private final long[] seconds;
+    private final long[] requests;
+    private final long[] retries;
+
+    RetryBudget(TestConfig.RetryBudget config) {
+        ratio = config.ratio() == null ? 0.2 : config.ratio();
+        minPerSecond = config.minPerSecond() == null ? 10 : config.minPerSecond();
+        int window = config.window() == null ? 10 : config.window();
+        seconds = new long[window];
+        requests = new long[window];
+        retries = new long[window];
+    }
+
+    synchronized void deposit() {
+        requests[slot(now())]++;
+    }
+
+    synchronized boolean withdraw() {
+        long now = now();
+        int current = slot(now);
+        long windowRequests = 0;
+        long windowRetries = 0;
+        for (int i = 0; i < seconds.length; i++) {
+            if (seconds[i] > now - seconds.length) {
+                windowRequests += requests[i];
+                windowRetries += retries[i];
+            }
+        }
+        if (windowRetries >= ratio * windowRequests + (double) minPerSecond * seconds.length) {
+            return false;
+        }
+        retries[current]++;
+        return true;
+    }
+
+    private int slot(long second) {
+        int slot = (int) (second % seconds.length);
+        if (seconds[slot] != second) {
+            seconds[slot] = second;
+            requests[slot] = 0;
+            retries[slot] = 0;
+        }
+        return slot;
+    }
+
+    private static long now() {
+        return System.currentTimeMillis() / 1000;
+    }
+}
@@ -0,0 +1,64 @@
+package simulations.strategy;
+
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import simulations.breakpoint.BreakpointController;
+import simulations.config.TestConfig;
+import simulations.factory.ScenarioFactory;
+import simulations.feeder.PokemonIdFeeder;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+public class BreakpointTestStrategy implements TestStrategy {
+
+    private BreakpointController controller;
+
+    @Override
+    public List<PopulationBuilder> buildPopulation(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        var breakpoint = config.getBreakpoint();
+        if (breakpoint == null) {
+            throw new IllegalArgumentException("No breakpoint config");
+        }
+        controller = new BreakpointController(breakpoint);
+
+        // Arrivals come in at the ceiling rate and the controller admits the current target share
+        var search = scenario("Breakpoint Search")
+                .doIfOrElse(session -> controller.admit())
+                .then(ScenarioFactory.createBreakpointProbe(
+                        controller, PokemonIdFeeder.from(config.feederFor("breakpoint"))))
+                .orElse(
+                        doIf(session -> controller.isFinished()).then(
+                                crashLoadGeneratorIf(
+                                        "Highest sustainable rate is below minAcceptableRate",
+                                        session -> controller.isBelowAcceptableRate()
+                                ).stopLoadGenerator("Breakpoint search finished")
+                        )
+                );
+
+        return Collections.singletonList(
+                search.injectOpen(
+                        constantUsersPerSec(breakpoint.maxRate())
+                                .during(breakpoint.maxDuration())
+                                .randomized()
+                )
+        );
+    }
+
+    @Override
+    public void configureAssertions(Simulation.SetUp setUp, TestConfig config) {
+        // The search deliberately drives the target past its SLO, so the outcome is
+        // reported by the controller instead of global assertions
+    }
+
+    @Override
+    public void afterSimulation() {
+        if (controller != null) {
+            controller.complete();
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package simulations.strategy;
+
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import simulations.config.TestConfig;
+import simulations.encoding.ContentCoding;
+import simulations.encoding.EncodingMatrix;
+import simulations.factory.AssertionFactory;
+import simulations.factory.ScenarioFactory;
+import simulations.feeder.PokemonIdFeeder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Fetches the same Pokemon documents under every configured Accept-Encoding instead of the load
+ * patterns. The encodings run as consecutive phases at the same rate, so none of them competes
+ * with another for bandwidth or client CPU; see {@link EncodingMatrix} for what is reported. An
+ * unmeasured warm-up under all encodings comes first, so the first phase is not the one that pays
+ * for cold caches, connections and JIT compilation.
+ */
+public class EncodingTestStrategy implements TestStrategy {
+
+    private static final String FEEDER = "encodingFetch";
+
+    private EncodingMatrix matrix;
+
+    @Override
+    public List<PopulationBuilder> buildPopulation(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        TestConfig.EncodingConfig encoding = config.getEncoding() != null ? config.getEncoding()
+                : new TestConfig.EncodingConfig(null, null, null, null, null, null);
+        matrix = new EncodingMatrix(encoding, config.getHttp().baseUrl(), PokemonIdFeeder.from(config.feederFor(FEEDER)));
+        if (matrix.codings().isEmpty()) {
+            throw new IllegalArgumentException("The encoding test has no encoding it can run");
+        }
+
+        List<PopulationBuilder> phases = new ArrayList<>();
+        for (ContentCoding coding : matrix.codings()) {
+            phases.add(ScenarioFactory.createEncodingFetch(PokemonIdFeeder.from(config.feederFor(FEEDER)), matrix, coding)
+                    .injectOpen(constantUsersPerSec(matrix.rate()).during(matrix.duration())));
+        }
+        if (matrix.warmUp() > 0) {
+            phases.add(0, ScenarioFactory.createEncodingWarmUp(PokemonIdFeeder.from(config.feederFor(FEEDER)), matrix.codings())
+                    .injectOpen(constantUsersPerSec(matrix.rate()).during(matrix.warmUp())));
+        }
+        System.out.printf("Encoding matrix: %s, %.0f/s for %d s each after %d s of warm-up%n",
+                matrix.codings().stream().map(ContentCoding::token).toList(), matrix.rate(), matrix.duration(), matrix.warmUp());
+
+        // Each phase starts once every user of the previous one has finished
+        PopulationBuilder chain = phases.get(phases.size() - 1);
+        for (int i = phases.size() - 2; i >= 0; i--) {
+            chain = phases.get(i).andThen(chain);
+        }
+        return Collections.singletonList(chain);
+    }
+
+    @Override
+    public void configureAssertions(Simulation.SetUp setUp, TestConfig config) {
+        setUp.assertions(AssertionFactory.create(config, TestType.ENCODING.getName()));
+    }
+
+    @Override
+    public void afterSimulation() {
+        if (matrix != null) {
+            matrix.complete(TestType.ENCODING.getName());
+        }
+    }
+}
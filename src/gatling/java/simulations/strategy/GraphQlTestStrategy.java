@@ -0,0 +1,64 @@
+package simulations.strategy;
+
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import simulations.config.TestConfig;
+import simulations.factory.AssertionFactory;
+import simulations.factory.ScenarioFactory;
+import simulations.feeder.PokemonIdFeeder;
+import simulations.graphql.GraphQlComparison;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Fetches the same batches of Pokemon as batched GraphQL queries and as REST fan-outs instead of
+ * the load patterns. Every batch size and depth runs a REST phase and then a GraphQL phase at the
+ * same rate of logical operations, one phase after the other, so the two never share the target;
+ * see {@link GraphQlComparison} for what is reported.
+ */
+public class GraphQlTestStrategy implements TestStrategy {
+
+    private static final String FEEDER = "graphqlBatch";
+
+    private GraphQlComparison comparison;
+
+    @Override
+    public List<PopulationBuilder> buildPopulation(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        TestConfig.GraphQlConfig graphql = config.getGraphql() != null ? config.getGraphql()
+                : new TestConfig.GraphQlConfig(null, null, null, null, null);
+        comparison = new GraphQlComparison(graphql);
+
+        List<PopulationBuilder> phases = new ArrayList<>();
+        for (GraphQlComparison.Variant variant : comparison.variants()) {
+            phases.add(ScenarioFactory.createGraphQlComparison(PokemonIdFeeder.from(config.feederFor(FEEDER)), comparison, variant)
+                    .injectOpen(constantUsersPerSec(comparison.rate()).during(comparison.duration())));
+        }
+        System.out.printf("GraphQL comparison against %s: %d phases, %.1f operations/s for %d s each%n",
+                comparison.url(), phases.size(), comparison.rate(), comparison.duration());
+
+        // Each phase starts once every user of the previous one has finished
+        PopulationBuilder chain = phases.get(phases.size() - 1);
+        for (int i = phases.size() - 2; i >= 0; i--) {
+            chain = phases.get(i).andThen(chain);
+        }
+        return Collections.singletonList(chain);
+    }
+
+    @Override
+    public void configureAssertions(Simulation.SetUp setUp, TestConfig config) {
+        setUp.assertions(AssertionFactory.create(config, TestType.GRAPHQL.getName()));
+    }
+
+    @Override
+    public void afterSimulation() {
+        if (comparison != null) {
+            comparison.complete(TestType.GRAPHQL.getName());
+        }
+    }
+}
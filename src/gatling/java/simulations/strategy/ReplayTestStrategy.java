@@ -0,0 +1,105 @@
+package simulations.strategy;
+
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import simulations.config.TestConfig;
+import simulations.factory.AssertionFactory;
+import simulations.factory.ScenarioFactory;
+import simulations.replay.AccessLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * Replays an access log instead of the configured load patterns. Every logged second is injected
+ * as that second's requests spread evenly over it, so the log's bursts, gaps and key skew reach the
+ * target as they were, compressed in time by the replay speed.
+ */
+public class ReplayTestStrategy implements TestStrategy {
+
+    private static final int TOP_REQUESTS = 10;
+    private static final Duration ONE_SECOND = Duration.ofSeconds(1);
+
+    @Override
+    public List<PopulationBuilder> buildPopulation(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        if (config.getReplay() == null) {
+            throw new IllegalArgumentException("The replay test needs a replay config block");
+        }
+        String speedOverride = System.getProperty("replaySpeed");
+        double speed = speedOverride != null ? Double.parseDouble(speedOverride)
+                : config.getReplay().speed() == null ? 1 : config.getReplay().speed();
+        if (speed <= 0) {
+            throw new IllegalArgumentException("Replay speed must be positive, got " + speed);
+        }
+
+        try {
+            AccessLog log = AccessLog.open(config.getReplay());
+            AccessLog.Profile profile = log.profile();
+            if (profile.events() == 0) {
+                throw new IllegalArgumentException("Access log " + log.file() + " has no lines to replay");
+            }
+            printProfile(log, profile, speed);
+            return Collections.singletonList(ScenarioFactory.createReplay(log.events())
+                    .injectOpen(steps(profile.perSecond(), speed)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read the access log", e);
+        }
+    }
+
+    // Runs of seconds with the same count share one step, which keeps long logs to few steps
+    // without moving any request to another second. Gatling injects nobody from a ramp shorter
+    // than a second, so a compressed second that short starts its requests together instead
+    static List<OpenInjectionStep> steps(int[] perSecond, double speed) {
+        List<OpenInjectionStep> steps = new ArrayList<>();
+        Duration compressedSecond = Duration.ofNanos(Math.round(1e9 / speed));
+        int second = 0;
+        while (second < perSecond.length) {
+            int count = perSecond[second];
+            int run = 1;
+            while (second + run < perSecond.length && perSecond[second + run] == count) {
+                run++;
+            }
+            Duration duration = Duration.ofNanos(Math.round(run * 1e9 / speed));
+            if (count == 0) {
+                steps.add(nothingFor(duration));
+            } else if (duration.compareTo(ONE_SECOND) >= 0) {
+                steps.add(rampUsers(count * run).during(duration));
+            } else {
+                for (int i = 0; i < run; i++) {
+                    steps.add(atOnceUsers(count));
+                    steps.add(nothingFor(compressedSecond));
+                }
+            }
+            second += run;
+        }
+        return steps;
+    }
+
+    private static void printProfile(AccessLog log, AccessLog.Profile profile, double speed) {
+        int seconds = profile.perSecond().length;
+        System.out.printf("Replaying %d requests from %s: %d s of log at %.1fx speed take %.0f s, "
+                        + "mean %.1f/s, peak %d/s in the log (%d skipped, %d unparsable lines)%n",
+                profile.events(), log.file(), seconds, speed, seconds / speed,
+                (double) profile.events() / Math.max(1, seconds), profile.peakPerSecond(),
+                profile.skipped(), profile.unparsable());
+        profile.requests().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(TOP_REQUESTS)
+                .forEach(request -> System.out.printf("  %-40s %8d %6.1f%%%n", request.getKey(), request.getValue(),
+                        100.0 * request.getValue() / profile.events()));
+    }
+
+    @Override
+    public void configureAssertions(Simulation.SetUp setUp, TestConfig config) {
+        setUp.assertions(AssertionFactory.create(config, TestType.REPLAY.getName()));
+    }
+}
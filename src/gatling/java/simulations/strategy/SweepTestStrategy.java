@@ -0,0 +1,139 @@
+package simulations.strategy;
+
+import io.gatling.javaapi.core.ClosedInjectionStep;
+import io.gatling.javaapi.core.OpenInjectionStep;
+import io.gatling.javaapi.core.PopulationBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Simulation;
+import simulations.config.TestConfig;
+import simulations.sweep.SweepGrid;
+import simulations.sweep.SweepWindow;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+
+/**
+ * One point of a sweep grid, see {@link simulations.sweep.SweepRunner}. The point's total arrival
+ * rate or number of users is shared by the scenarios of the load patterns in proportion to the
+ * highest level each pattern reaches, so every point keeps the configured traffic mix.
+ */
+public class SweepTestStrategy implements TestStrategy {
+
+    private SweepGrid grid;
+    private SweepWindow window;
+
+    @Override
+    public List<PopulationBuilder> buildPopulation(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        if (config.getLoadPatterns() == null || config.getLoadPatterns().isEmpty()) {
+            throw new IllegalArgumentException("No loadPatterns configured");
+        }
+        grid = SweepGrid.from(config);
+        SweepGrid.Point point = grid.current();
+
+        Map<String, Double> weights = new LinkedHashMap<>();
+        config.getLoadPatterns().forEach((name, pattern) -> {
+            String scenarioName = pattern.scenarioName(name);
+            if (!scenarios.containsKey(scenarioName)) {
+                throw new IllegalArgumentException("loadPatterns." + name + ": unknown scenario \"" + scenarioName
+                        + "\", expected one of " + scenarios.keySet());
+            }
+            weights.merge(scenarioName, peakLevel(pattern), Double::sum);
+        });
+        double total = weights.values().stream().mapToDouble(Double::doubleValue).sum();
+
+        List<PopulationBuilder> populations = new ArrayList<>();
+        Map<String, Integer> users = point.isClosed() ? deal((int) point.level(), weights, total) : Map.of();
+        weights.forEach((scenarioName, weight) -> {
+            ScenarioBuilder scenario = scenarios.get(scenarioName);
+            if (point.isClosed()) {
+                int share = users.get(scenarioName);
+                if (share > 0) {
+                    populations.add(scenario.injectClosed(closedSteps(share)));
+                }
+            } else {
+                populations.add(scenario.injectOpen(openSteps(point.level() * weight / total)));
+            }
+        });
+        return populations;
+    }
+
+    private List<OpenInjectionStep> openSteps(double rate) {
+        List<OpenInjectionStep> steps = new ArrayList<>();
+        if (grid.rampUp() > 0) {
+            steps.add(rampUsersPerSec(0).to(rate).during(grid.rampUp()));
+        }
+        steps.add(constantUsersPerSec(rate).during(grid.settle() + grid.duration()));
+        return steps;
+    }
+
+    private List<ClosedInjectionStep> closedSteps(int users) {
+        List<ClosedInjectionStep> steps = new ArrayList<>();
+        if (grid.rampUp() > 0) {
+            steps.add(rampConcurrentUsers(0).to(users).during(grid.rampUp()));
+        }
+        steps.add(constantConcurrentUsers(users).during(grid.settle() + grid.duration()));
+        return steps;
+    }
+
+    // Highest rate or number of users any step of the pattern reaches
+    static double peakLevel(TestConfig.LoadPattern pattern) {
+        double peak = 0;
+        for (TestConfig.InjectionStep step : pattern.steps()) {
+            for (Number level : new Number[]{step.users(), step.rate(), step.from(), step.to()}) {
+                if (level != null) {
+                    peak = Math.max(peak, level.doubleValue());
+                }
+            }
+            if (step.from() != null && step.increment() != null && step.times() != null) {
+                peak = Math.max(peak, step.from() + step.increment() * step.times());
+            }
+        }
+        return peak > 0 ? peak : 1;
+    }
+
+    // Whole users in proportion to the weights, the remainders going to the largest fractions
+    static Map<String, Integer> deal(int users, Map<String, Double> weights, double total) {
+        Map<String, Integer> dealt = new LinkedHashMap<>();
+        Map<String, Double> fractions = new LinkedHashMap<>();
+        int left = users;
+        for (Map.Entry<String, Double> weight : weights.entrySet()) {
+            double exact = users * weight.getValue() / total;
+            dealt.put(weight.getKey(), (int) exact);
+            fractions.put(weight.getKey(), exact - (int) exact);
+            left -= (int) exact;
+        }
+        List<String> byFraction = fractions.entrySet().stream()
+                .sorted(Map.Entry.<String, Double>comparingByValue().reversed())
+                .map(Map.Entry::getKey)
+                .toList();
+        for (int i = 0; i < left; i++) {
+            dealt.merge(byFraction.get(i % byFraction.size()), 1, Integer::sum);
+        }
+        return dealt;
+    }
+
+    @Override
+    public void configureAssertions(Simulation.SetUp setUp, TestConfig config) {
+        // A sweep deliberately drives the target past saturation, so its outcome is the curve
+        // rather than assertions
+    }
+
+    @Override
+    public void beforeSimulation() {
+        if (grid != null) {
+            window = SweepWindow.start(grid.rampUp() + grid.settle(), grid.duration());
+        }
+    }
+
+    @Override
+    public void afterSimulation() {
+        if (window != null) {
+            window.finish();
+            window = null;
+        }
+    }
+}
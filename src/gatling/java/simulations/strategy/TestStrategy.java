@@ -4,18 +4,21 @@ package simulations.strategy;
 import io.gatling.javaapi.core.PopulationBuilder;
 import io.gatling.javaapi.core.ScenarioBuilder;
 import simulations.config.TestConfig;
+import simulations.factory.InjectionProfileFactory;
 
 import java.util.List;
+import java.util.Map;
 
 public interface TestStrategy {
-    List<PopulationBuilder> buildPopulation(
-            ScenarioBuilder getPokemonById,
-            ScenarioBuilder getPokemonByName,
-            ScenarioBuilder listPokemon,
-            ScenarioBuilder getPokemonAbilities,
-            ScenarioBuilder mixedOperations,
-            TestConfig config
-    );
+    default List<PopulationBuilder> buildPopulation(Map<String, ScenarioBuilder> scenarios, TestConfig config) {
+        return InjectionProfileFactory.create(scenarios, config);
+    }
 
     void configureAssertions(io.gatling.javaapi.core.Simulation.SetUp setUp, TestConfig config);
+
+    default void beforeSimulation() {
+    }
+
+    default void afterSimulation() {
+    }
 }
\ No newline at end of file
@@ -8,16 +8,37 @@ public enum TestType {
     STRESS("stress", new StressTestStrategy(), "stress-config.json"),
     SPIKE("spike", new SpikeTestStrategy(), "spike-config.json"),
     ENDURANCE("endurance", new EnduranceTestStrategy(), "endurance-config.json"),
-    VOLUME("volume", new VolumeTestStrategy(), "volume-config.json");
+    VOLUME("volume", new VolumeTestStrategy(), "volume-config.json"),
+    BREAKPOINT("breakpoint", new BreakpointTestStrategy(), "breakpoint-config.json",
+            "adapts its rate from live results"),
+    REPLAY("replay", new ReplayTestStrategy(), "replay-config.json",
+            "sends one access log in order"),
+    ENCODING("encoding", new EncodingTestStrategy(), "encoding-config.json",
+            "runs its encodings as consecutive phases of one generator"),
+    GRAPHQL("graphql", new GraphQlTestStrategy(), "graphql-config.json",
+            "runs its variants as consecutive phases of one generator"),
+    SWEEP("sweep", new SweepTestStrategy(), "sweep-config.json",
+            "runs its points through sweepTest");
 
     private final String name;
     private final TestStrategy strategy;
     private final String configFile;
+    // Why the distributed coordinator cannot split this test across workers, null when it can
+    private final String unshardableReason;
 
     TestType(String name, TestStrategy strategy, String configFile) {
+        this(name, strategy, configFile, null);
+    }
+
+    TestType(String name, TestStrategy strategy, String configFile, String unshardableReason) {
         this.name = name;
         this.strategy = strategy;
         this.configFile = configFile;
+        this.unshardableReason = unshardableReason;
+    }
+
+    public boolean isShardable() {
+        return unshardableReason == null;
     }
 
     public static TestType fromString(String name) {
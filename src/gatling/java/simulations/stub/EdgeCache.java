@@ -0,0 +1,51 @@
+package simulations.stub;
+
+import simulations.config.TestConfig;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A CDN edge in front of the stub: responses are cached per full URL for a fixed TTL, so repeated
+ * URLs are served at edge latency and cache-busting query parameters always reach the origin.
+ */
+class EdgeCache {
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final LatencyModel hitLatency;
+    // Full URL to the time it was cached
+    private final Map<String, Long> entries = new ConcurrentHashMap<>();
+
+    private EdgeCache(TestConfig.EdgeCache config) {
+        this.ttlNanos = TimeUnit.SECONDS.toNanos(config.ttlSeconds() == null ? 300 : config.ttlSeconds());
+        this.maxEntries = config.maxEntries() == null ? 100_000 : config.maxEntries();
+        this.hitLatency = LatencyModel.from(config.hitLatency());
+    }
+
+    static EdgeCache from(TestConfig.EdgeCache config) {
+        return config == null ? null : new EdgeCache(config);
+    }
+
+    // Age in seconds of a fresh cached copy, or -1 when the request has to go to the origin
+    long lookup(String url) {
+        Long cachedAt = entries.get(url);
+        if (cachedAt == null || System.nanoTime() - cachedAt > ttlNanos) {
+            return -1;
+        }
+        return TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - cachedAt);
+    }
+
+    void store(String url) {
+        // Cache-busting runs would otherwise grow the map for the whole run
+        if (entries.size() >= maxEntries) {
+            entries.clear();
+        }
+        entries.put(url, System.nanoTime());
+    }
+
+    long sampleHitNanos() {
+        return hitLatency.sampleNanos();
+    }
+}
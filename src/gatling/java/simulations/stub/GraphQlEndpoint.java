@@ -0,0 +1,324 @@
+package simulations.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import com.fasterxml.jackson.databind.node.NullNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * The slice of PokeAPI's Hasura-generated GraphQL API that the GraphQL comparison queries: the
+ * {@code pokemon_v2_pokemon} root field filtered with {@code where: {id: {_in: [...]}}} or
+ * {@code {_eq: ...}}, selecting any fields and relations of {@link PokeApiFixtures#graphPokemon}.
+ * Fragments, directives and mutations are not supported. Like Hasura, errors are answered with
+ * status 200 and an {@code errors} array instead of data.
+ */
+final class GraphQlEndpoint {
+
+    private static final String ROOT_FIELD = "pokemon_v2_pokemon";
+
+    record Result(byte[] body, int resolvedObjects) {}
+
+    private record Field(String alias, String name, JsonNode arguments, List<Field> selections) {}
+
+    private static final class GraphQlException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        GraphQlException(String message) {
+            super(message);
+        }
+    }
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final PokeApiFixtures fixtures;
+
+    GraphQlEndpoint(PokeApiFixtures fixtures) {
+        this.fixtures = fixtures;
+    }
+
+    Result execute(byte[] requestBody) {
+        int[] resolved = {0};
+        ObjectNode response = mapper.createObjectNode();
+        try {
+            JsonNode request = mapper.readTree(requestBody);
+            if (request == null || !request.path("query").isTextual()) {
+                throw new GraphQlException("the request has no query");
+            }
+            JsonNode variables = request.path("variables").isObject() ? request.get("variables") : mapper.createObjectNode();
+            ObjectNode data = mapper.createObjectNode();
+            for (Field root : new Parser(request.get("query").asText(), variables).operation()) {
+                if (!ROOT_FIELD.equals(root.name())) {
+                    throw new GraphQlException("field '" + root.name() + "' not found in type: 'query_root'");
+                }
+                ArrayNode rows = data.putArray(root.alias());
+                for (int id : ids(root.arguments())) {
+                    rows.add(project(fixtures.graphPokemon(id), root, resolved));
+                }
+            }
+            response.set("data", data);
+        } catch (IOException | GraphQlException e) {
+            ObjectNode error = response.putArray("errors").addObject();
+            error.put("message", e.getMessage());
+            error.putObject("extensions").put("code", e instanceof IOException ? "invalid-json" : "validation-failed");
+        }
+        try {
+            return new Result(mapper.writeValueAsBytes(response), resolved[0]);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to render GraphQL response", e);
+        }
+    }
+
+    // Pokemon of the where filter in id order, unknown ids left out
+    private TreeSet<Integer> ids(JsonNode arguments) {
+        JsonNode id = arguments.path("where").path("id");
+        if (id.isMissingNode()) {
+            throw new GraphQlException("'" + ROOT_FIELD + "' needs a where filter on id");
+        }
+        List<JsonNode> values = new ArrayList<>();
+        if (id.has("_in")) {
+            id.get("_in").forEach(values::add);
+        }
+        if (id.has("_eq")) {
+            values.add(id.get("_eq"));
+        }
+        TreeSet<Integer> ids = new TreeSet<>();
+        for (JsonNode value : values) {
+            if (!value.canConvertToInt()) {
+                throw new GraphQlException("expected an Int for id but got " + value);
+            }
+            Integer known = fixtures.resolvePokemonId(String.valueOf(value.asInt()));
+            if (known != null) {
+                ids.add(known);
+            }
+        }
+        return ids;
+    }
+
+    private JsonNode project(JsonNode source, Field parent, int[] resolved) {
+        resolved[0]++;
+        ObjectNode out = mapper.createObjectNode();
+        for (Field field : parent.selections()) {
+            JsonNode value = source.get(field.name());
+            if (value == null) {
+                throw new GraphQlException("field '" + field.name() + "' not found in type: '" + parent.name() + "'");
+            }
+            boolean composite = value.isObject() || (value.isArray() && !value.isEmpty() && value.get(0).isObject());
+            if (composite && field.selections().isEmpty()) {
+                throw new GraphQlException("field '" + field.name() + "' of type '" + parent.name() + "' must have a selection of subfields");
+            }
+            if (!composite && !field.selections().isEmpty() && !value.isArray()) {
+                throw new GraphQlException("field '" + field.name() + "' of type '" + parent.name() + "' must not have a selection since it is a scalar");
+            }
+            if (value.isArray()) {
+                ArrayNode items = out.putArray(field.alias());
+                for (JsonNode item : value) {
+                    items.add(item.isObject() ? project(item, field, resolved) : item);
+                }
+            } else {
+                out.set(field.alias(), value.isObject() ? project(value, field, resolved) : value);
+            }
+        }
+        return out;
+    }
+
+    // Recursive descent over the executable subset of the GraphQL grammar the comparison sends
+    private static final class Parser {
+        private final String text;
+        private final JsonNode variables;
+        private int pos;
+
+        Parser(String text, JsonNode variables) {
+            this.text = text;
+            this.variables = variables;
+        }
+
+        List<Field> operation() {
+            skipIgnored();
+            if (peek() != '{') {
+                String keyword = name();
+                if (!"query".equals(keyword)) {
+                    throw new GraphQlException("only queries are supported, got '" + keyword + "'");
+                }
+                skipIgnored();
+                if (peek() != '{' && peek() != '(') {
+                    name();
+                }
+                skipIgnored();
+                if (peek() == '(') {
+                    // Variable definitions; values are taken from the request's variables as given
+                    skipBalanced('(', ')');
+                }
+            }
+            List<Field> fields = selectionSet();
+            skipIgnored();
+            if (pos < text.length()) {
+                throw new GraphQlException("unexpected '" + text.charAt(pos) + "' after the operation");
+            }
+            return fields;
+        }
+
+        private List<Field> selectionSet() {
+            expect('{');
+            List<Field> fields = new ArrayList<>();
+            skipIgnored();
+            while (peek() != '}') {
+                fields.add(field());
+                skipIgnored();
+            }
+            expect('}');
+            return fields;
+        }
+
+        private Field field() {
+            String alias = name();
+            String name = alias;
+            skipIgnored();
+            if (peek() == ':') {
+                pos++;
+                skipIgnored();
+                name = name();
+                skipIgnored();
+            }
+            ObjectNode arguments = JsonNodeFactory.instance.objectNode();
+            if (peek() == '(') {
+                pos++;
+                skipIgnored();
+                while (peek() != ')') {
+                    String argument = name();
+                    skipIgnored();
+                    expect(':');
+                    arguments.set(argument, value());
+                    skipIgnored();
+                }
+                expect(')');
+                skipIgnored();
+            }
+            List<Field> selections = peek() == '{' ? selectionSet() : List.of();
+            return new Field(alias, name, arguments, selections);
+        }
+
+        private JsonNode value() {
+            skipIgnored();
+            char c = peek();
+            if (c == '$') {
+                pos++;
+                String variable = name();
+                return variables.has(variable) ? variables.get(variable) : NullNode.getInstance();
+            }
+            if (c == '{') {
+                pos++;
+                ObjectNode object = JsonNodeFactory.instance.objectNode();
+                skipIgnored();
+                while (peek() != '}') {
+                    String key = name();
+                    skipIgnored();
+                    expect(':');
+                    object.set(key, value());
+                    skipIgnored();
+                }
+                expect('}');
+                return object;
+            }
+            if (c == '[') {
+                pos++;
+                ArrayNode list = JsonNodeFactory.instance.arrayNode();
+                skipIgnored();
+                while (peek() != ']') {
+                    list.add(value());
+                    skipIgnored();
+                }
+                expect(']');
+                return list;
+            }
+            if (c == '"') {
+                int end = text.indexOf('"', pos + 1);
+                if (end < 0) {
+                    throw new GraphQlException("unterminated string");
+                }
+                String value = text.substring(pos + 1, end);
+                pos = end + 1;
+                return JsonNodeFactory.instance.textNode(value);
+            }
+            if (c == '-' || Character.isDigit(c)) {
+                int start = pos++;
+                while (pos < text.length() && (Character.isDigit(text.charAt(pos)) || ".eE+-".indexOf(text.charAt(pos)) >= 0)) {
+                    pos++;
+                }
+                String number = text.substring(start, pos);
+                try {
+                    return number.matches("-?\\d+") ? JsonNodeFactory.instance.numberNode(Long.parseLong(number))
+                            : JsonNodeFactory.instance.numberNode(Double.parseDouble(number));
+                } catch (NumberFormatException e) {
+                    throw new GraphQlException("invalid number '" + number + "'");
+                }
+            }
+            String word = name();
+            return switch (word) {
+                case "true" -> JsonNodeFactory.instance.booleanNode(true);
+                case "false" -> JsonNodeFactory.instance.booleanNode(false);
+                case "null" -> NullNode.getInstance();
+                default -> JsonNodeFactory.instance.textNode(word);
+            };
+        }
+
+        private String name() {
+            int start = pos;
+            while (pos < text.length() && (Character.isLetterOrDigit(text.charAt(pos)) || text.charAt(pos) == '_')) {
+                pos++;
+            }
+            if (start == pos) {
+                throw new GraphQlException(pos < text.length() ? "unexpected '" + text.charAt(pos) + "' at " + pos
+                        : "unexpected end of query");
+            }
+            return text.substring(start, pos);
+        }
+
+        private void skipBalanced(char open, char close) {
+            int nesting = 0;
+            do {
+                char c = peek();
+                if (c == 0) {
+                    throw new GraphQlException("unbalanced '" + open + "'");
+                }
+                nesting += c == open ? 1 : c == close ? -1 : 0;
+                pos++;
+            } while (nesting > 0);
+        }
+
+        private void expect(char expected) {
+            skipIgnored();
+            if (peek() != expected) {
+                throw new GraphQlException(pos < text.length()
+                        ? "expected '" + expected + "' but got '" + text.charAt(pos) + "' at " + pos
+                        : "expected '" + expected + "' but the query ended");
+            }
+            pos++;
+        }
+
+        // Whitespace, commas and comments are insignificant in GraphQL
+        private void skipIgnored() {
+            while (pos < text.length()) {
+                char c = text.charAt(pos);
+                if (c == '#') {
+                    while (pos < text.length() && text.charAt(pos) != '\n') {
+                        pos++;
+                    }
+                } else if (Character.isWhitespace(c) || c == ',' || c == '\uFEFF') {
+                    pos++;
+                } else {
+                    return;
+                }
+            }
+        }
+
+        private char peek() {
+            return pos < text.length() ? text.charAt(pos) : 0;
+        }
+    }
+}
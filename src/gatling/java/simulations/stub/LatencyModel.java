@@ -0,0 +1,68 @@
+package simulations.stub;
+
+import simulations.config.TestConfig;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+public class LatencyModel {
+
+    private final String distribution;
+    private final double mean;
+    private final double stddev;
+    private final double min;
+    private final double max;
+    // Log-normal parameters derived from the configured mean/stddev
+    private final double mu;
+    private final double sigma;
+
+    private LatencyModel(String distribution, double mean, double stddev, double min, double max) {
+        this.distribution = distribution;
+        this.mean = mean;
+        this.stddev = stddev;
+        this.min = min;
+        this.max = max;
+
+        double variance = mean > 0 ? Math.log(1 + (stddev * stddev) / (mean * mean)) : 0;
+        this.sigma = Math.sqrt(variance);
+        this.mu = mean > 0 ? Math.log(mean) - variance / 2 : 0;
+    }
+
+    public static LatencyModel from(TestConfig.Latency latency) {
+        if (latency == null) {
+            return new LatencyModel("fixed", 0, 0, 0, Double.MAX_VALUE);
+        }
+
+        String distribution = latency.distribution() == null ? "fixed" : latency.distribution().toLowerCase();
+        double mean = latency.meanMs() == null ? 0 : latency.meanMs();
+        double stddev = latency.stddevMs() == null ? 0 : latency.stddevMs();
+        double min = latency.minMs() == null ? 0 : latency.minMs();
+        double max = latency.maxMs() == null ? Double.MAX_VALUE : latency.maxMs();
+
+        switch (distribution) {
+            case "fixed", "uniform", "normal", "lognormal", "exponential" -> {
+            }
+            default -> throw new IllegalArgumentException("Unknown latency distribution: " + latency.distribution());
+        }
+        if ("uniform".equals(distribution) && latency.maxMs() == null) {
+            throw new IllegalArgumentException("Uniform latency requires maxMs");
+        }
+
+        return new LatencyModel(distribution, mean, stddev, min, max);
+    }
+
+    public long sampleNanos() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        double millis = switch (distribution) {
+            case "uniform" -> min + random.nextDouble() * (max - min);
+            case "normal" -> mean + random.nextGaussian() * stddev;
+            case "lognormal" -> mean > 0 ? Math.exp(mu + random.nextGaussian() * sigma) : 0;
+            case "exponential" -> -mean * Math.log(1 - random.nextDouble());
+            default -> mean;
+        };
+
+        millis = Math.min(Math.max(millis, min), max);
+        return (long) (millis * TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
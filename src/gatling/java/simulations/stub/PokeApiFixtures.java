@@ -0,0 +1,496 @@
+package simulations.stub;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Serves PokeAPI-shaped documents built from the bundled fixtures under {@code stub/}.
+ * Pokemon beyond the fixture set are synthesized up to {@code catalogSize} so that
+ * id feeders and pagination can use realistic ranges.
+ */
+public class PokeApiFixtures {
+
+    private static final String POKEMON_FIXTURE = "stub/pokemon.json";
+    private static final String ABILITY_FIXTURE = "stub/abilities.json";
+    private static final String MOVES_PLACEHOLDER = "\"__moves__\"";
+
+    private static final List<String> TYPES = List.of(
+            "normal", "fighting", "flying", "poison", "ground", "rock", "bug", "ghost", "steel",
+            "fire", "water", "grass", "electric", "psychic", "ice", "dragon", "dark", "fairy"
+    );
+    private static final List<String> COLORS = List.of(
+            "black", "blue", "brown", "gray", "green", "pink", "purple", "red", "white", "yellow"
+    );
+    private static final List<String> VERSION_GROUPS = List.of(
+            "red-blue", "yellow", "gold-silver", "crystal", "ruby-sapphire", "emerald",
+            "firered-leafgreen", "diamond-pearl", "platinum", "heartgold-soulsibling"
+    );
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final String baseUrl;
+    private final int catalogSize;
+    private final byte[] moves;
+
+    private final Map<Integer, JsonNode> pokemonFixtures = new HashMap<>();
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private final Map<Integer, JsonNode> abilityFixtures = new HashMap<>();
+    private final Map<String, Integer> abilityIdsByName = new HashMap<>();
+
+    private final Map<Integer, List<Integer>> evolvesTo = new HashMap<>();
+
+    private final Map<Integer, Document> pokemonDocuments = new ConcurrentHashMap<>();
+    private final Map<Integer, byte[]> abilityDocuments = new ConcurrentHashMap<>();
+    private final Map<Integer, byte[]> speciesDocuments = new ConcurrentHashMap<>();
+    private final Map<Integer, byte[]> evolutionChainDocuments = new ConcurrentHashMap<>();
+    private final Map<Integer, ObjectNode> graphPokemon = new ConcurrentHashMap<>();
+
+    public record Document(byte[] head, byte[] shared, byte[] tail) {
+        public int length() {
+            return head.length + shared.length + tail.length;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(head);
+            out.write(shared);
+            out.write(tail);
+        }
+
+        public byte[] toByteArray() {
+            byte[] bytes = new byte[length()];
+            System.arraycopy(head, 0, bytes, 0, head.length);
+            System.arraycopy(shared, 0, bytes, head.length, shared.length);
+            System.arraycopy(tail, 0, bytes, head.length + shared.length, tail.length);
+            return bytes;
+        }
+    }
+
+    public PokeApiFixtures(String baseUrl, int catalogSize, int pokemonPayloadBytes) throws IOException {
+        this.baseUrl = baseUrl.endsWith("/") ? baseUrl : baseUrl + "/";
+
+        for (JsonNode pokemon : readFixture(POKEMON_FIXTURE)) {
+            pokemonFixtures.put(pokemon.get("id").asInt(), pokemon);
+            idsByName.put(pokemon.get("name").asText(), pokemon.get("id").asInt());
+            if (pokemon.hasNonNull("evolvesFrom")) {
+                evolvesTo.computeIfAbsent(pokemon.get("evolvesFrom").asInt(), key -> new ArrayList<>())
+                        .add(pokemon.get("id").asInt());
+            }
+        }
+        for (JsonNode ability : readFixture(ABILITY_FIXTURE)) {
+            abilityFixtures.put(ability.get("id").asInt(), ability);
+            abilityIdsByName.put(ability.get("name").asText(), ability.get("id").asInt());
+        }
+
+        this.catalogSize = Math.max(catalogSize, pokemonFixtures.size());
+        this.moves = buildMoves(pokemonPayloadBytes);
+    }
+
+    public int getCatalogSize() {
+        return catalogSize;
+    }
+
+    public int getAbilityCount() {
+        return abilityFixtures.size();
+    }
+
+    public Integer resolvePokemonId(String idOrName) {
+        Integer id = resolve(idOrName, idsByName);
+        if (id == null && idOrName.startsWith("pokemon-")) {
+            id = resolve(idOrName.substring("pokemon-".length()), Map.of());
+        }
+        return id != null && id >= 1 && id <= catalogSize ? id : null;
+    }
+
+    public Integer resolveAbilityId(String idOrName) {
+        Integer id = resolve(idOrName, abilityIdsByName);
+        return id != null && abilityFixtures.containsKey(id) ? id : null;
+    }
+
+    // Evolution chains are numbered by the species at their root
+    public Integer resolveEvolutionChainId(String id) {
+        Integer chainId = resolve(id, Map.of());
+        return chainId != null && chainId >= 1 && chainId <= catalogSize && chainRoot(chainId) == chainId ? chainId : null;
+    }
+
+    public Document pokemon(int id) {
+        return pokemonDocuments.computeIfAbsent(id, this::buildPokemon);
+    }
+
+    public byte[] ability(int id) {
+        return abilityDocuments.computeIfAbsent(id, this::buildAbility);
+    }
+
+    public byte[] species(int id) {
+        return speciesDocuments.computeIfAbsent(id, this::buildSpecies);
+    }
+
+    public byte[] evolutionChain(int id) {
+        return evolutionChainDocuments.computeIfAbsent(id, this::buildEvolutionChain);
+    }
+
+    // The Pokemon as PokeAPI's GraphQL schema has it, every relation a query can select filled in.
+    // Values match the REST documents; the moves are left out, GraphQL clients select what they need
+    public ObjectNode graphPokemon(int id) {
+        return graphPokemon.computeIfAbsent(id, this::buildGraphPokemon);
+    }
+
+    public byte[] pokemonList(int offset, int limit) {
+        int start = Math.min(Math.max(offset, 0), catalogSize);
+        int end = Math.min(start + Math.max(limit, 0), catalogSize);
+
+        ObjectNode page = mapper.createObjectNode();
+        page.put("count", catalogSize);
+        if (end < catalogSize) {
+            page.put("next", baseUrl + "pokemon?offset=" + end + "&limit=" + limit);
+        } else {
+            page.putNull("next");
+        }
+        if (start > 0) {
+            page.put("previous", baseUrl + "pokemon?offset=" + Math.max(start - limit, 0) + "&limit=" + limit);
+        } else {
+            page.putNull("previous");
+        }
+        ArrayNode results = page.putArray("results");
+        for (int id = start + 1; id <= end; id++) {
+            results.add(namedResource(nameOf(id), "pokemon/" + id + "/"));
+        }
+        return write(page);
+    }
+
+    private Document buildPokemon(int id) {
+        JsonNode fixture = pokemonFixtures.get(id);
+        String name = nameOf(id);
+
+        ObjectNode doc = mapper.createObjectNode();
+        ArrayNode abilities = doc.putArray("abilities");
+        int slot = 1;
+        for (String ability : abilitiesOf(id, fixture)) {
+            ObjectNode entry = abilities.addObject();
+            entry.set("ability", namedResource(ability, "ability/" + abilityIdsByName.get(ability) + "/"));
+            entry.put("is_hidden", false);
+            entry.put("slot", slot++);
+        }
+        doc.put("base_experience", fixture != null ? fixture.get("baseExperience").asInt() : 50 + id % 250);
+        doc.putArray("forms").add(namedResource(name, "pokemon-form/" + id + "/"));
+        ArrayNode gameIndices = doc.putArray("game_indices");
+        for (String version : VERSION_GROUPS) {
+            ObjectNode entry = gameIndices.addObject();
+            entry.put("game_index", id);
+            entry.set("version", namedResource(version, "version/" + (VERSION_GROUPS.indexOf(version) + 1) + "/"));
+        }
+        doc.put("height", fixture != null ? fixture.get("height").asInt() : 5 + id % 20);
+        doc.putArray("held_items");
+        doc.put("id", id);
+        doc.put("is_default", true);
+        doc.put("location_area_encounters", baseUrl + "pokemon/" + id + "/encounters");
+        doc.put("moves", "__moves__");
+        doc.put("name", name);
+        doc.put("order", id);
+        doc.putArray("past_types");
+        doc.set("species", namedResource(name, "pokemon-species/" + id + "/"));
+        ObjectNode sprites = doc.putObject("sprites");
+        sprites.put("front_default", "https://raw.githubusercontent.com/PokeAPI/sprites/master/sprites/pokemon/" + id + ".png");
+        sprites.put("back_default", "https://raw.githubusercontent.com/PokeAPI/sprites/master/sprites/pokemon/back/" + id + ".png");
+        ArrayNode stats = doc.putArray("stats");
+        String[] statNames = {"hp", "attack", "defense", "special-attack", "special-defense", "speed"};
+        for (int i = 0; i < statNames.length; i++) {
+            ObjectNode stat = stats.addObject();
+            stat.put("base_stat", 40 + (id * (i + 7)) % 80);
+            stat.put("effort", i == id % statNames.length ? 1 : 0);
+            stat.set("stat", namedResource(statNames[i], "stat/" + (i + 1) + "/"));
+        }
+        ArrayNode types = doc.putArray("types");
+        slot = 1;
+        for (String type : typesOf(id, fixture)) {
+            ObjectNode entry = types.addObject();
+            entry.put("slot", slot++);
+            entry.set("type", namedResource(type, "type/" + (TYPES.indexOf(type) + 1) + "/"));
+        }
+        doc.put("weight", fixture != null ? fixture.get("weight").asInt() : 10 + id % 900);
+
+        // Split around the moves placeholder so the large shared array is stored once
+        String rendered = new String(write(doc), StandardCharsets.UTF_8);
+        int split = rendered.indexOf(MOVES_PLACEHOLDER);
+        return new Document(
+                rendered.substring(0, split).getBytes(StandardCharsets.UTF_8),
+                moves,
+                rendered.substring(split + MOVES_PLACEHOLDER.length()).getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private ObjectNode buildGraphPokemon(int id) {
+        JsonNode fixture = pokemonFixtures.get(id);
+
+        ObjectNode pokemon = mapper.createObjectNode();
+        pokemon.put("id", id);
+        pokemon.put("name", nameOf(id));
+        pokemon.put("height", fixture != null ? fixture.get("height").asInt() : 5 + id % 20);
+        pokemon.put("weight", fixture != null ? fixture.get("weight").asInt() : 10 + id % 900);
+        pokemon.put("base_experience", fixture != null ? fixture.get("baseExperience").asInt() : 50 + id % 250);
+        pokemon.put("order", id);
+        pokemon.put("is_default", true);
+        pokemon.put("pokemon_species_id", id);
+        ArrayNode types = pokemon.putArray("pokemon_v2_pokemontypes");
+        int slot = 1;
+        for (String type : typesOf(id, fixture)) {
+            ObjectNode entry = types.addObject();
+            entry.put("slot", slot++);
+            ObjectNode typeNode = entry.putObject("pokemon_v2_type");
+            typeNode.put("id", TYPES.indexOf(type) + 1);
+            typeNode.put("name", type);
+        }
+        ArrayNode abilities = pokemon.putArray("pokemon_v2_pokemonabilities");
+        slot = 1;
+        for (String ability : abilitiesOf(id, fixture)) {
+            ObjectNode entry = abilities.addObject();
+            entry.put("slot", slot++);
+            entry.put("is_hidden", false);
+            entry.set("pokemon_v2_ability", graphAbility(abilityIdsByName.get(ability)));
+        }
+        ArrayNode stats = pokemon.putArray("pokemon_v2_pokemonstats");
+        String[] statNames = {"hp", "attack", "defense", "special-attack", "special-defense", "speed"};
+        for (int i = 0; i < statNames.length; i++) {
+            ObjectNode stat = stats.addObject();
+            stat.put("base_stat", 40 + (id * (i + 7)) % 80);
+            stat.put("effort", i == id % statNames.length ? 1 : 0);
+            ObjectNode statNode = stat.putObject("pokemon_v2_stat");
+            statNode.put("id", i + 1);
+            statNode.put("name", statNames[i]);
+        }
+
+        ObjectNode species = pokemon.putObject("pokemon_v2_pokemonspecy");
+        species.put("id", id);
+        species.put("name", nameOf(id));
+        species.put("order", id);
+        species.put("base_happiness", 50);
+        species.put("capture_rate", 45 + id % 210);
+        species.put("is_legendary", false);
+        species.put("is_mythical", false);
+        if (fixture != null && fixture.hasNonNull("evolvesFrom")) {
+            species.put("evolves_from_species_id", fixture.get("evolvesFrom").asInt());
+        } else {
+            species.putNull("evolves_from_species_id");
+        }
+        int root = chainRoot(id);
+        species.put("evolution_chain_id", root);
+        ObjectNode chain = species.putObject("pokemon_v2_evolutionchain");
+        chain.put("id", root);
+        ArrayNode members = chain.putArray("pokemon_v2_pokemonspecies");
+        List<Integer> pending = new ArrayList<>(List.of(root));
+        while (!pending.isEmpty()) {
+            int member = pending.remove(0);
+            ObjectNode entry = members.addObject();
+            entry.put("id", member);
+            entry.put("name", nameOf(member));
+            JsonNode memberFixture = pokemonFixtures.get(member);
+            if (memberFixture != null && memberFixture.hasNonNull("evolvesFrom")) {
+                entry.put("evolves_from_species_id", memberFixture.get("evolvesFrom").asInt());
+            } else {
+                entry.putNull("evolves_from_species_id");
+            }
+            pending.addAll(evolvesTo.getOrDefault(member, List.of()));
+        }
+        return pokemon;
+    }
+
+    private ObjectNode graphAbility(int id) {
+        String name = abilityFixtures.get(id).get("name").asText();
+        ObjectNode ability = mapper.createObjectNode();
+        ability.put("id", id);
+        ability.put("name", name);
+        ability.put("is_main_series", true);
+        ObjectNode effect = ability.putArray("pokemon_v2_abilityeffecttexts").addObject();
+        effect.put("effect", "This Pokemon's " + name.replace('-', ' ') + " ability takes effect in battle.");
+        effect.put("short_effect", "Activates " + name.replace('-', ' ') + ".");
+        effect.put("language_id", 9);
+        return ability;
+    }
+
+    private byte[] buildAbility(int id) {
+        JsonNode fixture = abilityFixtures.get(id);
+        String name = fixture.get("name").asText();
+
+        ObjectNode doc = mapper.createObjectNode();
+        doc.putArray("effect_changes");
+        ObjectNode effect = doc.putArray("effect_entries").addObject();
+        effect.put("effect", "This Pokemon's " + name.replace('-', ' ') + " ability takes effect in battle.");
+        effect.set("language", namedResource("en", "language/9/"));
+        effect.put("short_effect", "Activates " + name.replace('-', ' ') + ".");
+        doc.putArray("flavor_text_entries");
+        doc.set("generation", namedResource(fixture.get("generation").asText(), "generation/3/"));
+        doc.put("id", id);
+        doc.put("is_main_series", true);
+        doc.put("name", name);
+        doc.putArray("names");
+        ArrayNode pokemon = doc.putArray("pokemon");
+        for (int pokemonId = 1; pokemonId <= catalogSize; pokemonId++) {
+            List<String> abilities = abilitiesOf(pokemonId, pokemonFixtures.get(pokemonId));
+            int slot = abilities.indexOf(name);
+            if (slot >= 0) {
+                ObjectNode entry = pokemon.addObject();
+                entry.put("is_hidden", false);
+                entry.set("pokemon", namedResource(nameOf(pokemonId), "pokemon/" + pokemonId + "/"));
+                entry.put("slot", slot + 1);
+            }
+        }
+        return write(doc);
+    }
+
+    private byte[] buildSpecies(int id) {
+        JsonNode fixture = pokemonFixtures.get(id);
+        String name = nameOf(id);
+
+        ObjectNode doc = mapper.createObjectNode();
+        doc.put("base_happiness", 50);
+        doc.put("capture_rate", 45 + id % 210);
+        doc.set("color", namedResource(COLORS.get(id % COLORS.size()), "pokemon-color/" + (id % COLORS.size() + 1) + "/"));
+        ObjectNode chain = doc.putObject("evolution_chain");
+        chain.put("url", baseUrl + "evolution-chain/" + chainRoot(id) + "/");
+        if (fixture != null && fixture.hasNonNull("evolvesFrom")) {
+            int parent = fixture.get("evolvesFrom").asInt();
+            doc.set("evolves_from_species", namedResource(nameOf(parent), "pokemon-species/" + parent + "/"));
+        } else {
+            doc.putNull("evolves_from_species");
+        }
+        ObjectNode flavor = doc.putArray("flavor_text_entries").addObject();
+        flavor.put("flavor_text", "A Pokemon known as " + name + ".");
+        flavor.set("language", namedResource("en", "language/9/"));
+        doc.set("generation", namedResource("generation-i", "generation/1/"));
+        doc.put("id", id);
+        doc.put("is_legendary", false);
+        doc.put("is_mythical", false);
+        doc.put("name", name);
+        doc.put("order", id);
+        ObjectNode variety = doc.putArray("varieties").addObject();
+        variety.put("is_default", true);
+        variety.set("pokemon", namedResource(name, "pokemon/" + id + "/"));
+        return write(doc);
+    }
+
+    private byte[] buildEvolutionChain(int id) {
+        ObjectNode doc = mapper.createObjectNode();
+        doc.putNull("baby_trigger_item");
+        doc.set("chain", chainLink(id));
+        doc.put("id", id);
+        return write(doc);
+    }
+
+    private ObjectNode chainLink(int id) {
+        ObjectNode link = mapper.createObjectNode();
+        ArrayNode details = link.putArray("evolution_details");
+        if (pokemonFixtures.containsKey(id) && pokemonFixtures.get(id).hasNonNull("evolvesFrom")) {
+            ObjectNode detail = details.addObject();
+            detail.put("min_level", 16 + id % 20);
+            detail.set("trigger", namedResource("level-up", "evolution-trigger/1/"));
+        }
+        ArrayNode next = link.putArray("evolves_to");
+        for (int child : evolvesTo.getOrDefault(id, List.of())) {
+            next.add(chainLink(child));
+        }
+        link.put("is_baby", false);
+        link.set("species", namedResource(nameOf(id), "pokemon-species/" + id + "/"));
+        return link;
+    }
+
+    private int chainRoot(int id) {
+        JsonNode fixture = pokemonFixtures.get(id);
+        while (fixture != null && fixture.hasNonNull("evolvesFrom")) {
+            id = fixture.get("evolvesFrom").asInt();
+            fixture = pokemonFixtures.get(id);
+        }
+        return id;
+    }
+
+    private byte[] buildMoves(int targetBytes) {
+        ArrayNode moveArray = mapper.createArrayNode();
+        ByteArrayOutputStream sizeProbe = new ByteArrayOutputStream();
+        int move = 1;
+        while (sizeProbe.size() < targetBytes) {
+            ObjectNode entry = moveArray.addObject();
+            entry.set("move", namedResource("move-" + move, "move/" + move + "/"));
+            ArrayNode details = entry.putArray("version_group_details");
+            for (String versionGroup : VERSION_GROUPS) {
+                ObjectNode detail = details.addObject();
+                detail.put("level_learned_at", move % 60);
+                detail.set("move_learn_method", namedResource("level-up", "move-learn-method/1/"));
+                detail.set("version_group", namedResource(versionGroup,
+                        "version-group/" + (VERSION_GROUPS.indexOf(versionGroup) + 1) + "/"));
+            }
+            move++;
+            // Entries are roughly the same size, so re-measure only periodically
+            if (move % 16 == 0 || targetBytes < 16_384) {
+                sizeProbe.reset();
+                sizeProbe.writeBytes(write(moveArray));
+            }
+        }
+        return write(moveArray);
+    }
+
+    private List<String> abilitiesOf(int id, JsonNode fixture) {
+        if (fixture != null) {
+            return mapper.convertValue(fixture.get("abilities"), mapper.getTypeFactory()
+                    .constructCollectionType(List.class, String.class));
+        }
+        return List.of(abilityFixtures.get(1 + id % abilityFixtures.size()).get("name").asText());
+    }
+
+    private List<String> typesOf(int id, JsonNode fixture) {
+        if (fixture != null) {
+            return mapper.convertValue(fixture.get("types"), mapper.getTypeFactory()
+                    .constructCollectionType(List.class, String.class));
+        }
+        return List.of(TYPES.get(id % TYPES.size()));
+    }
+
+    private String nameOf(int id) {
+        JsonNode fixture = pokemonFixtures.get(id);
+        return fixture != null ? fixture.get("name").asText() : "pokemon-" + id;
+    }
+
+    private ObjectNode namedResource(String name, String path) {
+        ObjectNode resource = mapper.createObjectNode();
+        resource.put("name", name);
+        resource.put("url", baseUrl + path);
+        return resource;
+    }
+
+    private byte[] write(JsonNode node) {
+        try {
+            return mapper.writeValueAsBytes(node);
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to render fixture document", e);
+        }
+    }
+
+    private JsonNode readFixture(String resource) throws IOException {
+        try (InputStream is = PokeApiFixtures.class.getClassLoader().getResourceAsStream(resource)) {
+            if (is == null) {
+                throw new IOException("Stub fixture not found: " + resource);
+            }
+            return mapper.readTree(is);
+        }
+    }
+
+    private static Integer resolve(String idOrName, Map<String, Integer> byName) {
+        if (!idOrName.isEmpty() && idOrName.chars().allMatch(Character::isDigit)) {
+            try {
+                return Integer.parseInt(idOrName);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return byName.get(idOrName.toLowerCase());
+    }
+}
@@ -0,0 +1,386 @@
+package simulations.stub;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.Getter;
+import simulations.config.TestConfig;
+import simulations.encoding.ContentCoding;
+import simulations.strategy.TestType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process stand-in for the public PokeAPI. Requests are accepted by the JDK NIO
+ * dispatcher and handled on virtual threads, so simulated latency costs a parked
+ * virtual thread rather than a platform thread per in-flight request.
+ */
+public class PokeApiStubServer {
+
+    private static final String API_PREFIX = "/api/v2";
+    // Where PokeAPI serves its GraphQL API, next to rather than below the REST API
+    private static final String GRAPHQL_PATH = "/graphql/v1beta";
+    private static final String JSON_CONTENT_TYPE = "application/json; charset=utf-8";
+    private static final int DEFAULT_LIST_LIMIT = 20;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final PokeApiFixtures fixtures;
+    private final LatencyModel latency;
+    private final EdgeCache edgeCache;
+    private final String lastModified;
+    private final long listOffsetNanos;
+    private final double errorRate;
+    private final int errorStatus;
+    private final long graphqlResolveNanos;
+    private final GraphQlEndpoint graphql;
+    private final Set<ContentCoding> encodings = EnumSet.noneOf(ContentCoding.class);
+    // Pokemon documents are large and fixed, so each is encoded once per coding, like a CDN's stored variants
+    private final Map<ContentCoding, Map<Integer, byte[]>> encodedPokemon = new EnumMap<>(ContentCoding.class);
+
+    @Getter
+    private final String baseUrl;
+    @Getter
+    private final String graphqlUrl;
+    @Getter
+    private final String profileName;
+
+    private PokeApiStubServer(TestConfig.StubConfig config) throws IOException {
+        // Without TCP_NODELAY small responses sit behind delayed ACKs and add ~40ms
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+
+        this.profileName = System.getProperty("stubProfile", config.profile());
+        TestConfig.StubProfile profile = config.profiles() == null ? null : config.profiles().get(profileName);
+        if (profile == null) {
+            throw new IllegalArgumentException("Unknown stub profile: " + profileName);
+        }
+
+        String host = config.host() == null ? "127.0.0.1" : config.host();
+        int port = Integer.getInteger("stubPort", config.port() == null ? 0 : config.port());
+        int backlog = config.backlog() == null ? 4096 : config.backlog();
+
+        this.latency = LatencyModel.from(profile.latency());
+        this.edgeCache = EdgeCache.from(profile.edgeCache());
+        // Fixtures never change while the stub runs
+        this.lastModified = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).withNano(0));
+        this.listOffsetNanos = profile.listOffsetMicros() == null ? 0 : Math.round(profile.listOffsetMicros() * 1000);
+        this.errorRate = profile.errorRate() == null ? 0 : profile.errorRate();
+        this.errorStatus = profile.errorStatus() == null ? 503 : profile.errorStatus();
+        this.graphqlResolveNanos = profile.graphqlResolveMicros() == null ? 0 : Math.round(profile.graphqlResolveMicros() * 1000);
+        if (profile.encodings() != null) {
+            for (String token : profile.encodings()) {
+                ContentCoding coding = ContentCoding.fromToken(token);
+                if (coding.isAvailable()) {
+                    encodings.add(coding);
+                    encodedPokemon.put(coding, new ConcurrentHashMap<>());
+                } else {
+                    System.err.println("Stub cannot serve " + token + " on this platform, offering the other encodings");
+                }
+            }
+        }
+
+        this.server = HttpServer.create(new InetSocketAddress(host, port), backlog);
+        this.baseUrl = "http://" + host + ":" + server.getAddress().getPort() + API_PREFIX;
+        this.graphqlUrl = "http://" + host + ":" + server.getAddress().getPort() + GRAPHQL_PATH;
+        this.fixtures = new PokeApiFixtures(
+                baseUrl,
+                config.catalogSize() == null ? 0 : config.catalogSize(),
+                profile.pokemonPayloadBytes() == null ? 0 : profile.pokemonPayloadBytes()
+        );
+        this.graphql = new GraphQlEndpoint(fixtures);
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(API_PREFIX + "/", this::handle);
+        server.createContext(GRAPHQL_PATH, this::handleGraphQl);
+    }
+
+    public static boolean isEnabled(TestConfig.StubConfig config) {
+        String override = System.getProperty("stub");
+        if (override != null) {
+            return Boolean.parseBoolean(override);
+        }
+        return config != null && Boolean.TRUE.equals(config.enabled());
+    }
+
+    public static PokeApiStubServer start(TestConfig.StubConfig config) throws IOException {
+        PokeApiStubServer stub = new PokeApiStubServer(config);
+
+        // The dispatcher inherits the daemon flag of the starting thread, so a crashed run
+        // that never reaches after() cannot be kept alive by the stub
+        Thread starter = new Thread(stub.server::start, "stub-server-starter");
+        starter.setDaemon(true);
+        starter.start();
+        try {
+            starter.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while starting stub server", e);
+        }
+        System.out.println("PokeAPI stub server listening on " + stub.baseUrl + " (profile: " + stub.profileName + ")");
+        return stub;
+    }
+
+    public void stop() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            String method = exchange.getRequestMethod();
+            if (!"GET".equals(method) && !"HEAD".equals(method)) {
+                sendText(exchange, 405, "Method Not Allowed");
+                return;
+            }
+
+            // Edge hits are answered at edge latency and never reach the failing origin
+            String url = exchange.getRequestURI().toString();
+            long age = edgeCache == null ? -1 : edgeCache.lookup(url);
+            long delay = age >= 0 ? edgeCache.sampleHitNanos() : latency.sampleNanos() + scanNanos(exchange.getRequestURI());
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            if (edgeCache != null) {
+                exchange.getResponseHeaders().set("CF-Cache-Status", age >= 0 ? "HIT" : "MISS");
+                exchange.getResponseHeaders().set("Age", String.valueOf(Math.max(age, 0)));
+            }
+
+            if (age < 0 && errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sendText(exchange, errorStatus, "Injected failure");
+                return;
+            }
+
+            route(exchange);
+            if (edgeCache != null && age < 0) {
+                edgeCache.store(url);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Queries are POSTs, which no edge caches, so every query pays origin latency plus the time
+    // resolving its objects takes
+    private void handleGraphQl(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                sendText(exchange, 405, "Method Not Allowed");
+                return;
+            }
+            GraphQlEndpoint.Result result = graphql.execute(exchange.getRequestBody().readAllBytes());
+            long delay = latency.sampleNanos() + graphqlResolveNanos * result.resolvedObjects();
+            if (delay > 0) {
+                TimeUnit.NANOSECONDS.sleep(delay);
+            }
+            if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+                sendText(exchange, errorStatus, "Injected failure");
+                return;
+            }
+            sendJson(exchange, result.body());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void route(HttpExchange exchange) throws IOException {
+        URI uri = exchange.getRequestURI();
+        String path = uri.getPath().substring(API_PREFIX.length());
+        if (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        String[] segments = path.split("/");
+
+        if (segments.length == 2 && "pokemon".equals(segments[1])) {
+            int offset = queryParam(uri, "offset", 0);
+            int limit = queryParam(uri, "limit", DEFAULT_LIST_LIMIT);
+            if (notModified(exchange, "\"pokemon-list-" + offset + "-" + limit + "\"")) {
+                return;
+            }
+            sendJson(exchange, fixtures.pokemonList(offset, limit));
+        } else if (segments.length == 3 && "pokemon".equals(segments[1])) {
+            Integer id = fixtures.resolvePokemonId(segments[2]);
+            if (id == null) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+            PokeApiFixtures.Document document = fixtures.pokemon(id);
+            if (notModified(exchange, "\"pokemon-" + id + "-" + document.length() + "\"")) {
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+            ContentCoding coding = negotiate(exchange);
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            if (coding != ContentCoding.IDENTITY) {
+                send(exchange, 200, encodedPokemon.get(coding).computeIfAbsent(id, key -> encode(coding, document.toByteArray())));
+                return;
+            }
+            exchange.sendResponseHeaders(200, document.length());
+            try (OutputStream body = exchange.getResponseBody()) {
+                document.writeTo(body);
+            }
+        } else if (segments.length == 3 && "ability".equals(segments[1])) {
+            Integer id = fixtures.resolveAbilityId(segments[2]);
+            if (id == null) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+            if (notModified(exchange, "\"ability-" + id + "\"")) {
+                return;
+            }
+            sendJson(exchange, fixtures.ability(id));
+        } else if (segments.length == 3 && "pokemon-species".equals(segments[1])) {
+            Integer id = fixtures.resolvePokemonId(segments[2]);
+            if (id == null) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+            if (notModified(exchange, "\"species-" + id + "\"")) {
+                return;
+            }
+            sendJson(exchange, fixtures.species(id));
+        } else if (segments.length == 3 && "evolution-chain".equals(segments[1])) {
+            Integer id = fixtures.resolveEvolutionChainId(segments[2]);
+            if (id == null) {
+                sendText(exchange, 404, "Not Found");
+                return;
+            }
+            if (notModified(exchange, "\"evolution-chain-" + id + "\"")) {
+                return;
+            }
+            sendJson(exchange, fixtures.evolutionChain(id));
+        } else {
+            sendText(exchange, 404, "Not Found");
+        }
+    }
+
+    // The origin walks past every skipped row of a list page before it can answer
+    private long scanNanos(URI uri) {
+        if (listOffsetNanos == 0 || !uri.getPath().replaceAll("/$", "").equals(API_PREFIX + "/pokemon")) {
+            return 0;
+        }
+        return listOffsetNanos * Math.min(Math.max(queryParam(uri, "offset", 0), 0), fixtures.getCatalogSize());
+    }
+
+    // Sets the validators of a found resource and answers 304 when the client's copy is current
+    private boolean notModified(HttpExchange exchange, String etag) throws IOException {
+        exchange.getResponseHeaders().set("ETag", etag);
+        exchange.getResponseHeaders().set("Last-Modified", lastModified);
+
+        String ifNoneMatch = exchange.getRequestHeaders().getFirst("If-None-Match");
+        String ifModifiedSince = exchange.getRequestHeaders().getFirst("If-Modified-Since");
+        boolean current;
+        if (ifNoneMatch != null) {
+            current = "*".equals(ifNoneMatch.trim()) || Arrays.stream(ifNoneMatch.split(","))
+                    .map(tag -> tag.trim().replaceFirst("^W/", ""))
+                    .anyMatch(etag::equals);
+        } else if (ifModifiedSince != null) {
+            current = !parseHttpDate(ifModifiedSince).isBefore(parseHttpDate(lastModified));
+        } else {
+            return false;
+        }
+        if (current) {
+            exchange.sendResponseHeaders(304, -1);
+        }
+        return current;
+    }
+
+    private static ZonedDateTime parseHttpDate(String value) {
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME);
+        } catch (DateTimeParseException e) {
+            return ZonedDateTime.ofInstant(Instant.EPOCH, ZoneOffset.UTC);
+        }
+    }
+
+    private void sendJson(HttpExchange exchange, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", JSON_CONTENT_TYPE);
+        send(exchange, 200, encode(negotiate(exchange), body));
+    }
+
+    // Picks the coding of a JSON response from the request's Accept-Encoding and labels the response
+    private ContentCoding negotiate(HttpExchange exchange) {
+        if (encodings.isEmpty()) {
+            return ContentCoding.IDENTITY;
+        }
+        exchange.getResponseHeaders().set("Vary", "Accept-Encoding");
+        ContentCoding coding = ContentCoding.negotiate(exchange.getRequestHeaders().getFirst("Accept-Encoding"), encodings);
+        if (coding != ContentCoding.IDENTITY) {
+            exchange.getResponseHeaders().set("Content-Encoding", coding.token());
+        }
+        return coding;
+    }
+
+    private static byte[] encode(ContentCoding coding, byte[] body) {
+        try {
+            return coding.encode(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to encode a response as " + coding.token(), e);
+        }
+    }
+
+    private static void sendText(HttpExchange exchange, int status, String text) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        send(exchange, status, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void send(HttpExchange exchange, int status, byte[] body) throws IOException {
+        if ("HEAD".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static int queryParam(URI uri, String name, int defaultValue) {
+        String query = uri.getRawQuery();
+        if (query == null) {
+            return defaultValue;
+        }
+        for (String pair : query.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0 && pair.substring(0, eq).equals(name)) {
+                try {
+                    return Integer.parseInt(pair.substring(eq + 1));
+                } catch (NumberFormatException e) {
+                    return defaultValue;
+                }
+            }
+        }
+        return defaultValue;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String configFile = System.getProperty("configFile", TestType.LOAD.getConfigFile());
+        TestConfig config = TestConfig.load(configFile);
+
+        PokeApiStubServer stub = start(config.getStub());
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::stop));
+        Thread.currentThread().join();
+    }
+}
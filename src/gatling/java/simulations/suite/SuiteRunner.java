@@ -0,0 +1,124 @@
+package simulations.suite;
+
+import io.gatling.app.Gatling$;
+import simulations.config.TestConfig;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.report.Reports;
+import simulations.strategy.TestType;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Runs several test types one after another in one JVM, so only the first pays for JVM startup,
+ * class loading and JIT compilation. Before each measured run the same simulation is run as a
+ * warm-up: its requests go over the network, but it has no assertions, writes no reports or
+ * baselines, and everything it recorded is dropped before the measured run starts.
+ */
+public class SuiteRunner {
+
+    private static final String SIMULATION = "simulations.PokemonSimulation";
+    private static final String DEFAULT_SUITE = "load,stress,spike";
+    private static final String PHASE_PROPERTY = "suite.phase";
+    private static final String WARM_UP_PHASE = "warmUp";
+    private static final int DEFAULT_WARM_UP_SECONDS = 30;
+    private static final double DEFAULT_WARM_UP_RATE = 2;
+
+    private record Outcome(String testType, int warmUpSeconds, int exitCode, double durationSeconds) {}
+
+    public static void main(String[] args) throws IOException {
+        List<TestType> testTypes = new ArrayList<>();
+        for (String name : System.getProperty("suite", DEFAULT_SUITE).split(",")) {
+            TestType testType = Arrays.stream(TestType.values())
+                    .filter(type -> type.getName().equalsIgnoreCase(name.trim()))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalArgumentException("Unknown test type in suite: " + name.trim()));
+            testTypes.add(testType);
+        }
+
+        Path suiteDir = Reports.directory("gatling").resolve("suite-" + Reports.timestamp());
+        Files.createDirectories(suiteDir);
+        System.out.printf("Suite of %s in one JVM, output in %s%n",
+                testTypes.stream().map(TestType::getName).toList(), suiteDir.toAbsolutePath());
+
+        List<Outcome> outcomes = new ArrayList<>();
+        for (TestType testType : testTypes) {
+            outcomes.add(run(testType, suiteDir));
+        }
+
+        System.out.printf("%nSuite results%n");
+        System.out.printf("%-12s %8s %10s %6s%n", "Test type", "Warm-up", "Duration", "Exit");
+        for (Outcome outcome : outcomes) {
+            System.out.printf("%-12s %7ds %9.0fs %6d%n", outcome.testType(), outcome.warmUpSeconds(),
+                    outcome.durationSeconds(), outcome.exitCode());
+        }
+        System.exit(outcomes.stream().mapToInt(Outcome::exitCode).max().orElse(0));
+    }
+
+    // True while the current simulation is a warm-up that must not be measured
+    public static boolean isWarmUp() {
+        return WARM_UP_PHASE.equals(System.getProperty(PHASE_PROPERTY));
+    }
+
+    public static int warmUpSeconds(TestConfig.WarmUpConfig config) {
+        Integer override = Integer.getInteger("warmUp");
+        if (override != null) {
+            return override;
+        }
+        return config == null || config.duration() == null ? DEFAULT_WARM_UP_SECONDS : config.duration();
+    }
+
+    public static double warmUpRate(TestConfig.WarmUpConfig config) {
+        return config == null || config.rate() == null ? DEFAULT_WARM_UP_RATE : config.rate();
+    }
+
+    private static Outcome run(TestType testType, Path suiteDir) throws IOException {
+        System.setProperty("testType", testType.getName());
+        TestConfig config = TestConfig.load(System.getProperty("configFile", testType.getConfigFile()));
+        int warmUpSeconds = warmUpSeconds(config.getWarmUp());
+        warmUp(testType.getName(), warmUpSeconds);
+
+        System.out.printf("%n==== %s ====%n", testType.getName());
+        ResponseTimeRegistry.reset();
+        long start = System.nanoTime();
+        int exitCode = gatling("--results-folder", suiteDir.resolve(testType.getName()).toAbsolutePath().toString());
+        return new Outcome(testType.getName(), warmUpSeconds, exitCode, (System.nanoTime() - start) / 1e9);
+    }
+
+    // Runs the current test type's simulation as an unmeasured warm-up, unless seconds is 0
+    public static void warmUp(String label, int seconds) throws IOException {
+        if (seconds <= 0) {
+            return;
+        }
+        System.out.printf("%n==== %s: %ds warm-up ====%n", label, seconds);
+        Path scratch = Files.createTempDirectory("gatling-warm-up");
+        System.setProperty(PHASE_PROPERTY, WARM_UP_PHASE);
+        try {
+            ResponseTimeRegistry.reset();
+            gatling("--no-reports", "--results-folder", scratch.toString());
+        } finally {
+            System.clearProperty(PHASE_PROPERTY);
+            delete(scratch);
+        }
+    }
+
+    public static int gatling(String... options) {
+        List<String> args = new ArrayList<>(List.of("--simulation", SIMULATION));
+        args.addAll(List.of(options));
+        return Gatling$.MODULE$.fromArgs(args.toArray(String[]::new));
+    }
+
+    private static void delete(Path dir) {
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        } catch (IOException e) {
+            System.err.println("Failed to delete warm-up results in " + dir + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package simulations.sweep;
+
+import simulations.config.TestConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The points of a sweep: every arrival rate as an open point and every concurrency level as a
+ * closed point, in ascending order, once per connection profile. The runner and the simulation of
+ * each point build the same grid from the same config, so a point is passed on by its index.
+ */
+public final class SweepGrid {
+
+    public static final String OPEN = "open";
+    public static final String CLOSED = "closed";
+
+    private static final String POINT_PROPERTY = "sweep.point";
+    private static final List<Double> DEFAULT_RATES = List.of(5.0, 10.0, 20.0, 40.0, 80.0);
+    private static final int DEFAULT_RAMP_UP = 5;
+    private static final int DEFAULT_SETTLE = 10;
+    private static final int DEFAULT_DURATION = 30;
+
+    public record Point(int index, String connectionProfile, String workload, double level) {
+
+        public boolean isClosed() {
+            return CLOSED.equals(workload);
+        }
+
+        public String name() {
+            return (isClosed() ? format(level) + " concurrent" : format(level) + "/s")
+                    + (connectionProfile == null ? "" : " " + connectionProfile);
+        }
+
+        // Folder of the point's Gatling results
+        public String key() {
+            return (connectionProfile == null ? "" : connectionProfile + "-") + workload + "-" + format(level);
+        }
+    }
+
+    private final List<Point> points = new ArrayList<>();
+    private final int rampUp;
+    private final int settle;
+    private final int duration;
+
+    private SweepGrid(TestConfig.SweepConfig sweep) {
+        List<Double> rates = sweep.rates() == null ? List.of() : sweep.rates().stream().sorted().toList();
+        List<Integer> concurrency = sweep.concurrency() == null ? List.of() : sweep.concurrency().stream().sorted().toList();
+        if (rates.isEmpty() && concurrency.isEmpty()) {
+            rates = DEFAULT_RATES;
+        }
+        List<String> profiles = sweep.connectionProfiles() == null || sweep.connectionProfiles().isEmpty()
+                ? Arrays.asList((String) null) : sweep.connectionProfiles();
+        for (String profile : profiles) {
+            for (double rate : rates) {
+                points.add(new Point(points.size(), profile, OPEN, rate));
+            }
+            for (int users : concurrency) {
+                points.add(new Point(points.size(), profile, CLOSED, users));
+            }
+        }
+        rampUp = sweep.rampUp() == null ? DEFAULT_RAMP_UP : sweep.rampUp();
+        settle = sweep.settle() == null ? DEFAULT_SETTLE : sweep.settle();
+        duration = sweep.duration() == null ? DEFAULT_DURATION : sweep.duration();
+    }
+
+    public static SweepGrid from(TestConfig config) {
+        return new SweepGrid(config.getSweep() != null ? config.getSweep()
+                : new TestConfig.SweepConfig(null, null, null, null, null, null));
+    }
+
+    public List<Point> points() {
+        return points;
+    }
+
+    // The point the current simulation runs, as set by the runner
+    public Point current() {
+        Integer index = Integer.getInteger(POINT_PROPERTY);
+        if (index == null || index < 0 || index >= points.size()) {
+            throw new IllegalStateException("The sweep test runs one grid point per simulation, start it with ./gradlew sweepTest");
+        }
+        return points.get(index);
+    }
+
+    static void select(Point point) {
+        System.setProperty(POINT_PROPERTY, String.valueOf(point.index()));
+    }
+
+    static void clear() {
+        System.clearProperty(POINT_PROPERTY);
+    }
+
+    public int rampUp() {
+        return rampUp;
+    }
+
+    public int settle() {
+        return settle;
+    }
+
+    public int duration() {
+        return duration;
+    }
+
+    // Seconds a point injects for
+    public int pointSeconds() {
+        return rampUp + settle + duration;
+    }
+
+    static String format(double level) {
+        return level == Math.rint(level) ? String.valueOf((long) level) : String.valueOf(level);
+    }
+}
@@ -0,0 +1,154 @@
+package simulations.sweep;
+
+import simulations.report.Reports;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Throughput-latency curve of a sweep, one series per connection profile and workload model, each
+ * with its Universal Scalability Law fit. Open points are fitted at the concurrency Little's law
+ * gives for them, closed points at their number of users, so the fit of an open series stays
+ * meaningful once queueing sets in and the arrival rate no longer equals the throughput.
+ */
+final class SweepReport {
+
+    private static final int CURVE_POINTS = 20;
+
+    record Row(
+            String point,
+            double level,
+            double seconds,
+            long requests,
+            long errors,
+            // Requests per second sent in the window, successful or not
+            double requestRate,
+            // Successful responses per second
+            double throughput,
+            // The N the fit uses: users of a closed point, thinking ones included, Little's law
+            // in-flight requests of an open one
+            double concurrency,
+            double meanResponseTime,
+            long percentile50,
+            long percentile99,
+            long max,
+            // Throughput the fitted model gives at this concurrency
+            Double modelThroughput
+    ) {}
+
+    record Fit(double lambda, double sigma, double kappa, Double rSquared, int points, Double peakConcurrency,
+               Double saturationThroughput) {}
+
+    record CurvePoint(double concurrency, double throughput) {}
+
+    record Series(String connectionProfile, String workload, List<Row> rows, double measuredPeakThroughput, Fit fit,
+                  List<CurvePoint> curve) {}
+
+    record Result(String configFile, int rampUp, int settle, int duration, List<Series> series) {}
+
+    private final Map<String, List<SweepGrid.Point>> points = new LinkedHashMap<>();
+    private final Map<SweepGrid.Point, SweepWindow.Measurement> measurements = new LinkedHashMap<>();
+
+    void add(SweepGrid.Point point, SweepWindow.Measurement measurement) {
+        points.computeIfAbsent(point.connectionProfile() + "/" + point.workload(), key -> new ArrayList<>()).add(point);
+        if (measurement != null) {
+            measurements.put(point, measurement);
+        }
+    }
+
+    void write(String configFile, SweepGrid grid) {
+        List<Series> series = new ArrayList<>();
+        for (List<SweepGrid.Point> seriesPoints : points.values()) {
+            series.add(series(seriesPoints));
+        }
+        Result result = new Result(configFile, grid.rampUp(), grid.settle(), grid.duration(), series);
+        print(result);
+
+        Reports.write("sweep", "sweep-" + Reports.timestamp(), result, "sweep report");
+    }
+
+    private Series series(List<SweepGrid.Point> seriesPoints) {
+        List<double[]> fitted = new ArrayList<>();
+        for (SweepGrid.Point point : seriesPoints) {
+            SweepWindow.Measurement measurement = measurements.get(point);
+            if (measurement != null) {
+                fitted.add(new double[]{concurrency(point, measurement), measurement.throughput()});
+            }
+        }
+        UslModel model = UslModel.fit(fitted);
+
+        List<Row> rows = new ArrayList<>();
+        double peak = 0;
+        double maxConcurrency = 0;
+        for (SweepGrid.Point point : seriesPoints) {
+            SweepWindow.Measurement measurement = measurements.get(point);
+            if (measurement == null) {
+                continue;
+            }
+            double concurrency = concurrency(point, measurement);
+            peak = Math.max(peak, measurement.throughput());
+            maxConcurrency = Math.max(maxConcurrency, concurrency);
+            rows.add(new Row(point.name(), point.level(), measurement.seconds(), measurement.requests(), measurement.errors(),
+                    measurement.requests() / measurement.seconds(), measurement.throughput(), concurrency,
+                    measurement.mean(), measurement.percentile50(), measurement.percentile99(), measurement.max(),
+                    model == null ? null : model.throughput(concurrency)));
+        }
+
+        SweepGrid.Point first = seriesPoints.get(0);
+        if (model == null) {
+            return new Series(first.connectionProfile(), first.workload(), rows, peak, null, List.of());
+        }
+        Fit fit = new Fit(model.lambda(), model.sigma(), model.kappa(), model.rSquared(), model.points(),
+                model.peakConcurrency(), model.saturationThroughput());
+        // The curve reaches past the measured points, to the peak when the model has one
+        double limit = Math.max(1, 2 * Math.max(maxConcurrency, model.peakConcurrency() == null ? 0 : model.peakConcurrency()));
+        List<CurvePoint> curve = new ArrayList<>();
+        for (int i = 1; i <= CURVE_POINTS; i++) {
+            double concurrency = limit * i / CURVE_POINTS;
+            curve.add(new CurvePoint(concurrency, model.throughput(concurrency)));
+        }
+        return new Series(first.connectionProfile(), first.workload(), rows, peak, fit, curve);
+    }
+
+    private static double concurrency(SweepGrid.Point point, SweepWindow.Measurement measurement) {
+        return point.isClosed() ? point.level() : measurement.inFlight();
+    }
+
+    private static void print(Result result) {
+        for (Series series : result.series()) {
+            System.out.printf("%nSweep, %s workload%s: sustained throughput and latency (ms)%n", series.workload(),
+                    series.connectionProfile() == null ? "" : ", connection profile " + series.connectionProfile());
+            System.out.printf("%-28s %9s %7s %10s %10s %7s %8s %6s %6s %10s%n", "Point", "Requests", "KO", "Rate/s",
+                    "Through/s", "N", "Mean", "p50", "p99", "Model/s");
+            for (Row row : series.rows()) {
+                System.out.printf("%-28s %9d %7d %10.1f %10.1f %7.2f %8.1f %6d %6d %10s%n", row.point(), row.requests(),
+                        row.errors(), row.requestRate(), row.throughput(), row.concurrency(), row.meanResponseTime(),
+                        row.percentile50(), row.percentile99(),
+                        row.modelThroughput() == null ? "-" : String.format("%.1f", row.modelThroughput()));
+            }
+            Fit fit = series.fit();
+            if (fit == null) {
+                if (series.rows().isEmpty()) {
+                    System.out.println("USL: no fit, no point was measured");
+                } else {
+                    // Every candidate had a negative coefficient or a singular system
+                    System.out.printf("USL: no fit, %d measured points gave no non-negative USL fit%n", series.rows().size());
+                }
+                continue;
+            }
+            System.out.printf("USL: lambda %.2f/s, sigma %.4f, kappa %.6f, R^2 %s over %d points%n", fit.lambda(),
+                    fit.sigma(), fit.kappa(), fit.rSquared() == null ? "-" : String.format("%.3f", fit.rSquared()), fit.points());
+            if (fit.peakConcurrency() != null) {
+                System.out.printf("Projected saturation: %.1f/s at N = %.1f, measured peak %.1f/s%n",
+                        fit.saturationThroughput(), fit.peakConcurrency(), series.measuredPeakThroughput());
+            } else if (fit.saturationThroughput() != null) {
+                System.out.printf("Projected saturation: approaching %.1f/s without a peak, measured peak %.1f/s%n",
+                        fit.saturationThroughput(), series.measuredPeakThroughput());
+            } else {
+                System.out.printf("Projected saturation: none, throughput still scales linearly; sweep higher levels%n");
+            }
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package simulations.sweep;
+
+import simulations.config.TestConfig;
+import simulations.metrics.ResponseTimeRegistry;
+import simulations.report.Reports;
+import simulations.strategy.TestType;
+import simulations.suite.SuiteRunner;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Runs every point of a sweep grid as its own simulation in one JVM, after one warm-up like a
+ * suite's, and fits the Universal Scalability Law to the sustained throughput of the points. The
+ * points write no Gatling HTML reports; their simulation logs are kept, and the sweep report is the
+ * one curve across all of them.
+ */
+public class SweepRunner {
+
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("testType", TestType.SWEEP.getName());
+        // A point is one level of a curve, not a run to compare the next one against
+        System.setProperty("baseline", "false");
+        String configFile = System.getProperty("configFile", TestType.SWEEP.getConfigFile());
+        TestConfig config = TestConfig.load(configFile);
+        SweepGrid grid = SweepGrid.from(config);
+        String configuredProfile = System.getProperty("connectionProfile");
+
+        Path sweepDir = Reports.directory("gatling").resolve("sweep-" + Reports.timestamp());
+        Files.createDirectories(sweepDir);
+        System.out.printf("Sweep of %d points, %ds each with %ds measured, output in %s%n", grid.points().size(),
+                grid.pointSeconds(), grid.duration(), sweepDir.toAbsolutePath());
+
+        SweepReport report = new SweepReport();
+        int exitCode = 0;
+        try {
+            SweepGrid.Point first = grid.points().get(0);
+            select(first, configuredProfile);
+            SuiteRunner.warmUp(TestType.SWEEP.getName(), SuiteRunner.warmUpSeconds(config.getWarmUp()));
+
+            for (SweepGrid.Point point : grid.points()) {
+                System.out.printf("%n==== sweep point %d/%d: %s ====%n", point.index() + 1, grid.points().size(), point.name());
+                select(point, configuredProfile);
+                ResponseTimeRegistry.reset();
+                exitCode = Math.max(exitCode, SuiteRunner.gatling("--no-reports", "--results-folder",
+                        sweepDir.resolve(point.key()).toAbsolutePath().toString()));
+                SweepWindow.Measurement measurement = SweepWindow.take();
+                if (measurement == null) {
+                    System.err.println("Sweep point " + point.name() + " ended before its measured window opened");
+                }
+                report.add(point, measurement);
+            }
+        } finally {
+            SweepGrid.clear();
+        }
+
+        report.write(configFile, grid);
+        System.exit(exitCode);
+    }
+
+    private static void select(SweepGrid.Point point, String configuredProfile) {
+        SweepGrid.select(point);
+        String profile = point.connectionProfile() != null ? point.connectionProfile() : configuredProfile;
+        if (profile == null) {
+            System.clearProperty("connectionProfile");
+        } else {
+            System.setProperty("connectionProfile", profile);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package simulations.sweep;
+
+import org.HdrHistogram.Histogram;
+import simulations.metrics.ResponseTimeRegistry;
+
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The measured window of one sweep point. All requests are snapshotted once the point has ramped
+ * up and settled and again when its injection ends; the window is the difference, so neither the
+ * ramp nor the users still draining afterwards count towards the point's sustained throughput.
+ */
+public final class SweepWindow {
+
+    public record Measurement(double seconds, long requests, long errors, double mean, long percentile50,
+                              long percentile99, long max) {
+
+        // Successful responses per second
+        public double throughput() {
+            return seconds <= 0 ? 0 : (requests - errors) / seconds;
+        }
+
+        // Mean requests in flight, by Little's law
+        public double inFlight() {
+            return seconds <= 0 ? 0 : requests / seconds * mean / 1000;
+        }
+    }
+
+    private record Snapshot(long nanos, Histogram histogram, long errors) {}
+
+    private static volatile Measurement last;
+
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "sweep-window");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private Snapshot start;
+    private Snapshot end;
+
+    private SweepWindow() {
+    }
+
+    public static SweepWindow start(int skipSeconds, int durationSeconds) {
+        last = null;
+        SweepWindow window = new SweepWindow();
+        window.scheduler.schedule(window::open, skipSeconds, TimeUnit.SECONDS);
+        window.scheduler.schedule(window::close, skipSeconds + durationSeconds, TimeUnit.SECONDS);
+        return window;
+    }
+
+    // Closes the window early when the simulation ended before it was due
+    public void finish() {
+        scheduler.shutdownNow();
+        close();
+    }
+
+    // The window of the simulation that finished last, null when it never opened
+    static Measurement take() {
+        Measurement measurement = last;
+        last = null;
+        return measurement;
+    }
+
+    private synchronized void open() {
+        start = snapshot();
+    }
+
+    private synchronized void close() {
+        if (start == null || end != null) {
+            return;
+        }
+        end = snapshot();
+        Histogram window = end.histogram().copy();
+        window.subtract(start.histogram());
+        last = new Measurement((end.nanos() - start.nanos()) / 1e9, window.getTotalCount(), end.errors() - start.errors(),
+                window.getMean(), window.getValueAtPercentile(50), window.getValueAtPercentile(99), window.getMaxValue());
+    }
+
+    private static Snapshot snapshot() {
+        Histogram all = new Histogram(3);
+        long errors = 0;
+        for (Map.Entry<String, ResponseTimeRegistry.Entry> entry : ResponseTimeRegistry.entries().entrySet()) {
+            if (!ResponseTimeRegistry.isBreakdown(entry.getKey())) {
+                all.add(entry.getValue().cumulative());
+                errors += entry.getValue().cumulativeErrors();
+            }
+        }
+        return new Snapshot(System.nanoTime(), all, errors);
+    }
+}
@@ -0,0 +1,161 @@
+package simulations.sweep;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Gunther's Universal Scalability Law, X(N) = λN / (1 + σ(N - 1) + κN(N - 1)): throughput X at
+ * concurrency N of a system whose single-user throughput is λ, slowed down by contention σ and by
+ * coherency delay κ. Rewritten as N/X = (1 + σ(N - 1) + κN(N - 1)) / λ the law is linear in 1/λ, σ/λ
+ * and κ/λ, so it is fitted by ordinary least squares. A fit with a negative coefficient is replaced
+ * by the best fit with that coefficient held at zero.
+ */
+public record UslModel(
+        double lambda,
+        double sigma,
+        double kappa,
+        // Of the fitted against the measured throughput; null when there are no more points than
+        // fitted coefficients, since such a fit is exact whatever the target does
+        Double rSquared,
+        int points
+) {
+
+    public double throughput(double concurrency) {
+        return lambda * concurrency / (1 + sigma * (concurrency - 1) + kappa * concurrency * (concurrency - 1));
+    }
+
+    // Concurrency of the highest throughput, null when throughput never stops growing
+    public Double peakConcurrency() {
+        if (kappa > 0) {
+            return sigma < 1 ? Math.sqrt((1 - sigma) / kappa) : 1.0;
+        }
+        return null;
+    }
+
+    // The highest throughput the model reaches, its asymptote without coherency delay; null when
+    // the measurements show no limit at all
+    public Double saturationThroughput() {
+        Double peak = peakConcurrency();
+        if (peak != null) {
+            return throughput(peak);
+        }
+        return sigma > 0 ? lambda / sigma : null;
+    }
+
+    // Null without a point to fit; measurements are {concurrency, throughput}
+    public static UslModel fit(List<double[]> measurements) {
+        List<double[]> usable = measurements.stream()
+                .filter(point -> point[0] > 0 && point[1] > 0)
+                .toList();
+        if (usable.isEmpty()) {
+            return null;
+        }
+        long distinct = usable.stream().mapToDouble(point -> point[0]).distinct().count();
+
+        UslModel best = null;
+        double bestError = Double.MAX_VALUE;
+        int bestCount = 0;
+        // Terms of 1/λ, σ/λ and κ/λ a candidate fits, the others held at zero
+        for (boolean[] terms : List.of(new boolean[]{true, true, true}, new boolean[]{true, true, false},
+                new boolean[]{true, false, true}, new boolean[]{true, false, false})) {
+            int count = (terms[1] ? 1 : 0) + (terms[2] ? 1 : 0) + 1;
+            if (count > distinct) {
+                continue;
+            }
+            double[] coefficients = leastSquares(usable, terms);
+            if (coefficients == null || coefficients[0] <= 0 || coefficients[1] < 0 || coefficients[2] < 0) {
+                continue;
+            }
+            UslModel model = new UslModel(1 / coefficients[0], coefficients[1] / coefficients[0],
+                    coefficients[2] / coefficients[0], null, usable.size());
+            double error = squaredError(model, usable);
+            if (error < bestError) {
+                best = model;
+                bestError = error;
+                bestCount = count;
+            }
+        }
+        if (best == null) {
+            return null;
+        }
+        double mean = usable.stream().mapToDouble(point -> point[1]).average().orElse(0);
+        double total = usable.stream().mapToDouble(point -> (point[1] - mean) * (point[1] - mean)).sum();
+        Double rSquared = usable.size() <= bestCount || total == 0 ? null : 1 - bestError / total;
+        return new UslModel(best.lambda, best.sigma, best.kappa, rSquared, usable.size());
+    }
+
+    private static double squaredError(UslModel model, List<double[]> points) {
+        double error = 0;
+        for (double[] point : points) {
+            double residual = point[1] - model.throughput(point[0]);
+            error += residual * residual;
+        }
+        return error;
+    }
+
+    // Solves the normal equations of N/X against 1, N - 1 and N(N - 1), restricted to the given terms
+    private static double[] leastSquares(List<double[]> points, boolean[] terms) {
+        List<Integer> columns = new ArrayList<>();
+        for (int i = 0; i < terms.length; i++) {
+            if (terms[i]) {
+                columns.add(i);
+            }
+        }
+        int size = columns.size();
+        double[][] matrix = new double[size][size + 1];
+        for (double[] point : points) {
+            double n = point[0];
+            double[] row = {1, n - 1, n * (n - 1)};
+            double y = n / point[1];
+            for (int i = 0; i < size; i++) {
+                for (int j = 0; j < size; j++) {
+                    matrix[i][j] += row[columns.get(i)] * row[columns.get(j)];
+                }
+                matrix[i][size] += row[columns.get(i)] * y;
+            }
+        }
+        double[] solved = solve(matrix);
+        if (solved == null) {
+            return null;
+        }
+        double[] coefficients = new double[terms.length];
+        for (int i = 0; i < size; i++) {
+            coefficients[columns.get(i)] = solved[i];
+        }
+        return coefficients;
+    }
+
+    // Gaussian elimination with partial pivoting of an augmented matrix; null when it is singular
+    private static double[] solve(double[][] matrix) {
+        int size = matrix.length;
+        for (int pivot = 0; pivot < size; pivot++) {
+            int largest = pivot;
+            for (int row = pivot + 1; row < size; row++) {
+                if (Math.abs(matrix[row][pivot]) > Math.abs(matrix[largest][pivot])) {
+                    largest = row;
+                }
+            }
+            double[] swap = matrix[pivot];
+            matrix[pivot] = matrix[largest];
+            matrix[largest] = swap;
+            if (Math.abs(matrix[pivot][pivot]) < 1e-12) {
+                return null;
+            }
+            for (int row = pivot + 1; row < size; row++) {
+                double factor = matrix[row][pivot] / matrix[pivot][pivot];
+                for (int column = pivot; column <= size; column++) {
+                    matrix[row][column] -= factor * matrix[pivot][column];
+                }
+            }
+        }
+        double[] solution = new double[size];
+        for (int row = size - 1; row >= 0; row--) {
+            double sum = matrix[row][size];
+            for (int column = row + 1; column < size; column++) {
+                sum -= matrix[row][column] * solution[column];
+            }
+            solution[row] = sum / matrix[row][row];
+        }
+        return solution;
+    }
+}
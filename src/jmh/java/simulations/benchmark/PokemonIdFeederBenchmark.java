@@ -0,0 +1,42 @@
+package simulations.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simulations.config.TestConfig;
+import simulations.feeder.PokemonIdFeeder;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PokemonIdFeederBenchmark {
+
+    @Param({"uniform", "zipf", "hotspot", "sequential"})
+    public String distribution;
+
+    @Param({"151", "1025"})
+    public int maxId;
+
+    private PokemonIdFeeder feeder;
+
+    @Setup
+    public void setUp() {
+        feeder = PokemonIdFeeder.from(new TestConfig.FeederConfig(
+                distribution, 1, maxId, 1.1, 0.05, 0.8, true, 42L));
+    }
+
+    @Benchmark
+    public Map<String, Object> next() {
+        return feeder.next();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public Map<String, Object> nextContended() {
+        return feeder.next();
+    }
+}
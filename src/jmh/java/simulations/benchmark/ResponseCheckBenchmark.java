@@ -0,0 +1,51 @@
+package simulations.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simulations.check.ResponseChecks;
+import simulations.stub.PokeApiFixtures;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Body functions behind each check mode, run against the same {@code /pokemon/{id}} documents the
+ * stub serves. {@code id} precedes the large {@code moves} array and {@code name} follows it, so the
+ * two fields bracket the streaming scanner's best and worst case.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseCheckBenchmark {
+
+    @Param({"4096", "300000"})
+    public int payloadBytes;
+
+    @Param({"id", "name"})
+    public String field;
+
+    private byte[] body;
+
+    @Setup
+    public void setUp() throws IOException {
+        body = new PokeApiFixtures("http://localhost/api/v2", 151, payloadBytes).pokemon(25).toByteArray();
+    }
+
+    @Benchmark
+    public String full() {
+        return ResponseChecks.parseField(new ByteArrayInputStream(body), field);
+    }
+
+    @Benchmark
+    public String streaming() {
+        return ResponseChecks.scanField(new ByteArrayInputStream(body), field);
+    }
+
+    @Benchmark
+    public long checksum() {
+        return ResponseChecks.checksum(new ByteArrayInputStream(body));
+    }
+}
@@ -0,0 +1,55 @@
+package simulations.benchmark;
+
+import io.gatling.commons.validation.Validation;
+import io.gatling.core.session.Session$;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.core.internal.Expressions;
+import org.openjdk.jmh.annotations.*;
+import scala.Function1;
+import simulations.config.TestConfig;
+import simulations.feeder.PokemonIdFeeder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-request session work of the feeder-driven scenarios: merging a feeder record into the
+ * session and resolving the {@code #{randomPokemon}} path expression, against a static path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SessionExpressionBenchmark {
+
+    private Function1<io.gatling.core.session.Session, Validation<String>> staticPath;
+    private Function1<io.gatling.core.session.Session, Validation<String>> feederPath;
+    private PokemonIdFeeder feeder;
+    private Session emptySession;
+    private Session fedSession;
+
+    @Setup
+    public void setUp() {
+        staticPath = Expressions.toStringExpression("/pokemon/25");
+        feederPath = Expressions.toStringExpression("/pokemon/#{" + PokemonIdFeeder.ATTRIBUTE + "}");
+        feeder = PokemonIdFeeder.from(new TestConfig.FeederConfig("zipf", 1, 151, 1.0, null, null, true, 42L));
+        emptySession = new Session(Session$.MODULE$.apply("benchmark", 1L, null));
+        fedSession = emptySession.setAll(feeder.next());
+    }
+
+    @Benchmark
+    public Validation<String> resolveStaticPath() {
+        return staticPath.apply(fedSession.asScala());
+    }
+
+    @Benchmark
+    public Validation<String> resolveFeederPath() {
+        return feederPath.apply(fedSession.asScala());
+    }
+
+    @Benchmark
+    public Validation<String> feedAndResolve() {
+        return feederPath.apply(emptySession.setAll(feeder.next()).asScala());
+    }
+}
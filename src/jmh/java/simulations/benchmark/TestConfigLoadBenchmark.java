@@ -0,0 +1,24 @@
+package simulations.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TestConfigLoadBenchmark {
+
+    @Param({"load-config.json", "spike-config.json", "breakpoint-config.json"})
+    public String configFile;
+
+    @Benchmark
+    public TestConfig load() throws IOException {
+        return TestConfig.load(configFile);
+    }
+}
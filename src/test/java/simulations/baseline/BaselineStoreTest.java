@@ -0,0 +1,94 @@
+package simulations.baseline;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BaselineStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @BeforeEach
+    void useTheTemporaryDirectory() {
+        System.setProperty("baselineDir", directory.toString());
+    }
+
+    @AfterEach
+    void restoreTheDefaultDirectory() {
+        System.clearProperty("baselineDir");
+    }
+
+    @Test
+    void theLastRunNamesItsBaseline() throws IOException, InterruptedException {
+        BaselineStore.started("load", "hash");
+        Path first = BaselineStore.save(run(100));
+        // Baselines are named by the millisecond they were saved in
+        Thread.sleep(5);
+        BaselineStore.started("load", "hash");
+        Path second = BaselineStore.save(run(200));
+
+        BaselineStore.LastRun lastRun = BaselineStore.lastRun("load", "hash");
+        assertEquals(second.getFileName().toString(), lastRun.file());
+        assertNull(lastRun.notRecorded());
+        List<Baseline> history = BaselineStore.history("load", "hash", lastRun.file());
+        assertEquals(List.of(100L, 200L), history.stream()
+                .map(baseline -> baseline.requests().get("Get Pikachu").percentile95())
+                .toList());
+        assertEquals(1, BaselineStore.history("load", "hash", first.getFileName().toString()).size());
+    }
+
+    @Test
+    void aStartedRunHidesTheBaselineOfThePreviousOne() throws IOException {
+        BaselineStore.save(run(100));
+        BaselineStore.started("load", "hash");
+
+        assertNull(BaselineStore.lastRun("load", "hash"));
+    }
+
+    @Test
+    void aRunWithoutBaselineRecordsWhy() throws IOException {
+        BaselineStore.save(run(100));
+        BaselineStore.started("load", "hash");
+        BaselineStore.notRecorded("load", "hash", "the generator was saturated during the run");
+
+        BaselineStore.LastRun lastRun = BaselineStore.lastRun("load", "hash");
+        assertNull(lastRun.file());
+        assertEquals("the generator was saturated during the run", lastRun.notRecorded());
+    }
+
+    @Test
+    void aDeletedBaselineLeavesNoHistory() throws IOException {
+        Path file = BaselineStore.save(run(100));
+        Files.delete(file);
+
+        assertTrue(BaselineStore.history("load", "hash", file.getFileName().toString()).isEmpty());
+    }
+
+    @Test
+    void theHashIgnoresBlocksThatOnlyPublishResults() throws IOException {
+        TestConfig config = TestConfig.load("load-config.json");
+        String hash = BaselineStore.configHash(config);
+
+        config.setRegression(new TestConfig.RegressionConfig(10, null, null, null, null, null));
+        assertEquals(hash, BaselineStore.configHash(config));
+
+        config.setFeeders(Map.of("mixedOperations", new TestConfig.FeederConfig("zipf", 1, 151, 1.0, null, null, null, null)));
+        assertNotEquals(hash, BaselineStore.configHash(config));
+    }
+
+    private static Baseline run(long percentile95) {
+        return new Baseline("load", "hash", "now", 10,
+                Map.of("Get Pikachu", new Baseline.RequestBaseline(1000, 0, 100, percentile95, percentile95, null)));
+    }
+}
@@ -0,0 +1,110 @@
+package simulations.baseline;
+
+import org.junit.jupiter.api.Test;
+import simulations.config.TestConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegressionGateTest {
+
+    private static final TestConfig.RegressionConfig SETTINGS = new TestConfig.RegressionConfig(5, 0.10, 3.0, 5, 100, List.of());
+
+    @Test
+    void flagsALatencyWorseByBothMargins() {
+        RegressionGate.Result result = RegressionGate.evaluate(run(request("Get Pikachu", 150, 100)),
+                List.of(run(request("Get Pikachu", 100, 100)), run(request("Get Pikachu", 102, 100)),
+                        run(request("Get Pikachu", 98, 100))),
+                SETTINGS);
+
+        assertFalse(result.passed());
+        RegressionGate.Finding p95 = finding(result, "Get Pikachu", "p95");
+        assertTrue(p95.regressed());
+        assertEquals(100, p95.baselineMean(), 1e-9);
+        assertEquals(0.5, p95.change(), 1e-9);
+        assertEquals(3, p95.baselines());
+    }
+
+    @Test
+    void toleratesAChangeWithinTheBaselinesSpread() {
+        RegressionGate.Result result = RegressionGate.evaluate(run(request("Get Pikachu", 130, 100)),
+                List.of(run(request("Get Pikachu", 60, 100)), run(request("Get Pikachu", 100, 100)),
+                        run(request("Get Pikachu", 140, 100))),
+                SETTINGS);
+
+        assertTrue(result.passed());
+        RegressionGate.Finding p95 = finding(result, "Get Pikachu", "p95");
+        assertTrue(p95.change() > SETTINGS.maxIncrease());
+        assertTrue(p95.zScore() < SETTINGS.zScore());
+    }
+
+    @Test
+    void ignoresLatencyChangesBelowTheMinimumDelta() {
+        RegressionGate.Result result = RegressionGate.evaluate(run(request("Get Pikachu", 14, 100)),
+                List.of(run(request("Get Pikachu", 10, 100))),
+                SETTINGS);
+
+        assertTrue(result.passed());
+        assertEquals(0.4, finding(result, "Get Pikachu", "p95").change(), 1e-9);
+    }
+
+    @Test
+    void flagsAThroughputDrop() {
+        RegressionGate.Result result = RegressionGate.evaluate(run(request("Get Pikachu", 100, 50)),
+                List.of(run(request("Get Pikachu", 100, 100))),
+                SETTINGS);
+
+        assertFalse(result.passed());
+        assertTrue(finding(result, "Get Pikachu", "throughput").regressed());
+        assertFalse(finding(result, "Get Pikachu", "p95").regressed());
+    }
+
+    @Test
+    void skipsThinAndNewRequests() {
+        Map<String, Baseline.RequestBaseline> current = new LinkedHashMap<>();
+        current.put("Get Pikachu", new Baseline.RequestBaseline(10, 0, 1, 900, 900, null));
+        current.put("Get Charizard", new Baseline.RequestBaseline(1000, 0, 100, 900, 900, null));
+
+        RegressionGate.Result result = RegressionGate.evaluate(new Baseline("load", "hash", "now", 10, current),
+                List.of(run(request("Get Pikachu", 100, 100))),
+                SETTINGS);
+
+        assertTrue(result.passed());
+        assertTrue(result.findings().isEmpty());
+    }
+
+    @Test
+    void judgesOnlyTheNamedBreakdowns() {
+        List<Baseline> previous = List.of(run(Map.of(
+                "Get Pikachu [final]", new Baseline.RequestBaseline(1000, 0, 100, 100, 100, null),
+                "Get Pikachu [corrected]", new Baseline.RequestBaseline(1000, 0, 100, 100, 100, null))));
+        Baseline current = run(Map.of(
+                "Get Pikachu [final]", new Baseline.RequestBaseline(1000, 0, 100, 500, 500, null),
+                "Get Pikachu [corrected]", new Baseline.RequestBaseline(1000, 0, 100, 500, 500, null)));
+
+        assertTrue(RegressionGate.evaluate(current, previous, SETTINGS).passed());
+
+        RegressionGate.Result named = RegressionGate.evaluate(current, previous,
+                new TestConfig.RegressionConfig(5, 0.10, 3.0, 5, 100, List.of("final")));
+        assertFalse(named.passed());
+        assertTrue(named.findings().stream().allMatch(finding -> finding.request().equals("Get Pikachu [final]")));
+    }
+
+    private static RegressionGate.Finding finding(RegressionGate.Result result, String request, String metric) {
+        return result.findings().stream()
+                .filter(finding -> finding.request().equals(request) && finding.metric().equals(metric))
+                .findFirst()
+                .orElseThrow();
+    }
+
+    private static Map<String, Baseline.RequestBaseline> request(String name, long percentile, double throughput) {
+        return Map.of(name, new Baseline.RequestBaseline(1000, 0, throughput, percentile, percentile, null));
+    }
+
+    private static Baseline run(Map<String, Baseline.RequestBaseline> requests) {
+        return new Baseline("load", "hash", "now", 10, requests);
+    }
+}
@@ -0,0 +1,77 @@
+package simulations.breakpoint;
+
+import org.junit.jupiter.api.Test;
+import simulations.config.TestConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BreakpointControllerTest {
+
+    // The target meets the SLO up to this rate and breaches it above
+    private static final double CAPACITY = 35;
+
+    @Test
+    void bisectsToTheHighestPassingRate() {
+        BreakpointController controller = search(config(10.0, 10.0, 100.0, 2.0, null));
+
+        assertTrue(controller.isFinished());
+        assertEquals(35, controller.getHighestPassingRate());
+        assertTrue(controller.getLowestFailingRate() > CAPACITY);
+        assertTrue(controller.getLowestFailingRate() - controller.getHighestPassingRate() <= 2);
+        assertEquals(List.of(10.0, 20.0, 30.0, 40.0), controller.getSteps().stream()
+                .limit(4)
+                .map(BreakpointController.Step::rate)
+                .toList());
+    }
+
+    @Test
+    void stopsAtMaxRateWithoutABreach() {
+        BreakpointController controller = search(config(10.0, 10.0, 30.0, 2.0, null));
+
+        assertEquals(30, controller.getHighestPassingRate());
+        assertTrue(Double.isNaN(controller.getLowestFailingRate()));
+        assertEquals(3, controller.getSteps().size());
+    }
+
+    @Test
+    void runsALastStepAtMaxRateWhenTheStepsMissIt() {
+        BreakpointController controller = search(config(5.0, 10.0, 30.0, 2.0, null));
+
+        assertEquals(30, controller.getHighestPassingRate());
+        assertEquals(List.of(5.0, 15.0, 25.0, 30.0), controller.getSteps().stream()
+                .map(BreakpointController.Step::rate)
+                .toList());
+    }
+
+    @Test
+    void reportsARateBelowTheAcceptableOne() {
+        assertTrue(search(config(10.0, 10.0, 100.0, 2.0, 50.0)).isBelowAcceptableRate());
+        assertFalse(search(config(10.0, 10.0, 100.0, 2.0, 20.0)).isBelowAcceptableRate());
+    }
+
+    // Steps and cooldowns last an hour, so the controller's own scheduler never runs one; the
+    // search judges each step right away instead
+    private static BreakpointController search(TestConfig.BreakpointConfig config) {
+        BreakpointController controller = new BreakpointController(config);
+        controller.admit();
+        for (int step = 0; step < 50 && !controller.isFinished(); step++) {
+            if (controller.getPhase() != BreakpointController.Phase.COOLDOWN) {
+                boolean breached = controller.getCurrentRate() > CAPACITY;
+                for (int i = 0; i < 100; i++) {
+                    controller.record(breached ? 900 : 20, true);
+                }
+            }
+            controller.evaluate();
+        }
+        controller.complete();
+        return controller;
+    }
+
+    private static TestConfig.BreakpointConfig config(Double startRate, Double rateStep, Double maxRate, Double resolution,
+                                                      Double minAcceptableRate) {
+        return new TestConfig.BreakpointConfig(startRate, rateStep, maxRate, resolution, 3600, 3600, 7200, null,
+                500, 1000, 1.0, minAcceptableRate);
+    }
+}
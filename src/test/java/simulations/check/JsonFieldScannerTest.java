@@ -0,0 +1,59 @@
+package simulations.check;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JsonFieldScannerTest {
+
+    private static final String POKEMON = """
+            {"abilities": [{"ability": {"name": "static"}}], "sprites": {"name": "front"}, "id": 25,
+             "name": "pikachu", "is_default": true, "species": {"name": "pikachu"}}""";
+
+    @Test
+    void findsATopLevelScalar() throws IOException {
+        assertEquals("pikachu", JsonFieldScanner.find(body(POKEMON), "name"));
+        assertEquals("25", JsonFieldScanner.find(body(POKEMON), "id"));
+        assertEquals("true", JsonFieldScanner.find(body(POKEMON), "is_default"));
+    }
+
+    @Test
+    void marksObjectsAndArraysAsStructures() throws IOException {
+        assertEquals(JsonFieldScanner.STRUCTURE, JsonFieldScanner.find(body(POKEMON), "abilities"));
+        assertEquals(JsonFieldScanner.STRUCTURE, JsonFieldScanner.find(body(POKEMON), "species"));
+    }
+
+    @Test
+    void ignoresFieldsOfNestedObjects() throws IOException {
+        assertEquals("static", JsonFieldScanner.find(body("{\"ability\": {\"name\": \"x\"}, \"name\": \"static\"}"), "name"));
+        assertNull(JsonFieldScanner.find(body("{\"sprites\": {\"back\": null}}"), "back"));
+    }
+
+    @Test
+    void findsNothingOutsideAnObject() throws IOException {
+        assertNull(JsonFieldScanner.find(body(POKEMON), "weight"));
+        assertNull(JsonFieldScanner.find(body("[{\"name\": \"pikachu\"}]"), "name"));
+    }
+
+    @Test
+    void stopsOnceTheFieldIsFound() throws IOException {
+        // The rest of the body is never read, so it need not even be valid JSON
+        assertEquals("pikachu", JsonFieldScanner.find(body("{\"name\": \"pikachu\", \"id\": ]"), "name"));
+    }
+
+    @Test
+    void agreesWithTheFullParse() {
+        for (String field : new String[]{"name", "id", "is_default", "abilities", "species", "weight"}) {
+            assertEquals(ResponseChecks.parseField(body(POKEMON), field), ResponseChecks.scanField(body(POKEMON), field), field);
+        }
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
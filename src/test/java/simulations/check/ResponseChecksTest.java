@@ -0,0 +1,47 @@
+package simulations.check;
+
+import org.junit.jupiter.api.Test;
+import simulations.config.TestConfig;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ResponseChecksTest {
+
+    @Test
+    void lengthModeAcceptsAnyNonEmptyBody() {
+        assertTrue(ResponseChecks.hasBody(1));
+        assertFalse(ResponseChecks.hasBody(0));
+    }
+
+    @Test
+    void checksumDependsOnTheBytesOnly() {
+        assertEquals(ResponseChecks.checksum(body("{\"id\": 25}")), ResponseChecks.checksum(body("{\"id\": 25}")));
+        assertNotEquals(ResponseChecks.checksum(body("{\"id\": 25}")), ResponseChecks.checksum(body("{\"id\": 26}")));
+    }
+
+    @Test
+    void checksumModeHoldsEveryBodyToTheFirstOfItsRequest() {
+        ResponseChecks checks = ResponseChecks.from(new TestConfig.ChecksConfig("checksum"));
+
+        assertTrue(checks.matchesReference("Get Pikachu", body("{\"id\": 25}")));
+        assertTrue(checks.matchesReference("Get Pikachu", body("{\"id\": 25}")));
+        assertFalse(checks.matchesReference("Get Pikachu", body("{\"id\": 26}")));
+        // Each request has its own reference
+        assertTrue(checks.matchesReference("Get Charizard", body("{\"id\": 6}")));
+    }
+
+    @Test
+    void modesAreCaseInsensitiveAndFullByDefault() {
+        assertEquals(ResponseChecks.Mode.STREAMING, ResponseChecks.from(new TestConfig.ChecksConfig("Streaming")).getMode());
+        assertEquals(ResponseChecks.Mode.FULL, ResponseChecks.from(null).getMode());
+        assertThrows(IllegalArgumentException.class, () -> ResponseChecks.from(new TestConfig.ChecksConfig("fast")));
+    }
+
+    private static InputStream body(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,105 @@
+package simulations.factory;
+
+import io.gatling.commons.stats.assertion.AssertionPath;
+import io.gatling.core.Predef$;
+import io.gatling.core.config.GatlingConfiguration;
+import io.gatling.javaapi.core.Assertion;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import scala.jdk.javaapi.CollectionConverters;
+import simulations.check.ResponseChecks;
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AssertionFactoryTest {
+
+    private static TestConfig config;
+
+    // Building the scenarios registers their groups and the paths of their requests. The HTTP DSL
+    // needs the configuration Gatling itself installs before it instantiates a simulation
+    @BeforeAll
+    static void createScenarios() throws IOException {
+        Predef$.MODULE$._configuration_$eq(GatlingConfiguration.load());
+        config = TestConfig.load("load-config.json");
+        ScenarioFactory.createAll(config, ResponseChecks.from(null));
+    }
+
+    @Test
+    void aTestTypeWithoutObjectivesGetsNoAssertions() {
+        assertTrue(AssertionFactory.create(configured(objective(null, 1000), Map.of(), Map.of(), "listPokemon"), "stress").isEmpty());
+    }
+
+    @Test
+    void topLevelObjectivesAreGlobal() {
+        List<Assertion> assertions = AssertionFactory.create(
+                configured(objective(5000, 1000), Map.of(), Map.of(), "listPokemon"), "load");
+
+        assertEquals(2, assertions.size());
+        assertions.forEach(assertion -> assertSame(AssertionPath.Global$.MODULE$, assertion.asScala().path()));
+    }
+
+    @Test
+    void scenarioObjectivesTargetTheScenarioGroup() {
+        List<Assertion> assertions = AssertionFactory.create(configured(objective(null, null),
+                Map.of("getPokemonAbilities", objective(null, 1000)), Map.of(), "getPokemonAbilities"), "load");
+
+        assertEquals(List.of(List.of("Get Pokemon Abilities")), paths(assertions));
+    }
+
+    @Test
+    void aRequestIsJudgedInEveryInjectedScenarioSendingIt() {
+        List<Assertion> assertions = AssertionFactory.create(configured(objective(null, null),
+                Map.of(), Map.of("List Pokemon", objective(null, 2000)), "listPokemon", "mixedOperations"), "load");
+
+        assertEquals(List.of(List.of("List Pokemon", "List Pokemon"), List.of("Mixed Pokemon Operations", "List Pokemon")),
+                paths(assertions));
+    }
+
+    @Test
+    void scenariosThatAreNotInjectedAreLeftOut() {
+        List<Assertion> assertions = AssertionFactory.create(configured(objective(null, null),
+                Map.of(), Map.of("List Pokemon", objective(null, 2000)), "mixedOperations"), "load");
+
+        assertEquals(List.of(List.of("Mixed Pokemon Operations", "List Pokemon")), paths(assertions));
+    }
+
+    @Test
+    void rejectsObjectivesNoInjectedScenarioCanMeet() {
+        assertThrows(IllegalArgumentException.class, () -> AssertionFactory.create(configured(objective(null, null),
+                Map.of("getPokemonAbilities", objective(null, 1000)), Map.of(), "listPokemon"), "load"));
+        assertThrows(IllegalArgumentException.class, () -> AssertionFactory.create(configured(objective(null, null),
+                Map.of("unknownScenario", objective(null, 1000)), Map.of(), "listPokemon"), "load"));
+        assertThrows(IllegalArgumentException.class, () -> AssertionFactory.create(configured(objective(null, null),
+                Map.of(), Map.of("Get Pikachu", objective(null, 1000)), "listPokemon"), "load"));
+    }
+
+    // The load test type with the given objectives, injecting only the named scenarios
+    private static TestConfig configured(TestConfig.Assertion slo, Map<String, TestConfig.Assertion> scenarios,
+                                         Map<String, TestConfig.Assertion> requests, String... injected) {
+        Map<String, TestConfig.LoadPattern> patterns = new LinkedHashMap<>();
+        for (String scenario : injected) {
+            patterns.put(scenario, new TestConfig.LoadPattern(scenario, null, List.of()));
+        }
+        config.setLoadPatterns(patterns);
+        config.setAssertions(Map.of("load", new TestConfig.Assertion(slo.maxResponseTime(), null, null,
+                slo.percentile95(), null, null, null, null, null, scenarios, requests)));
+        return config;
+    }
+
+    private static TestConfig.Assertion objective(Integer maxResponseTime, Integer percentile95) {
+        return new TestConfig.Assertion(maxResponseTime, null, null, percentile95, null, null, null, null, null, null, null);
+    }
+
+    private static List<List<String>> paths(List<Assertion> assertions) {
+        return assertions.stream()
+                .map(assertion -> (AssertionPath.Details) assertion.asScala().path())
+                .map(details -> List.copyOf(CollectionConverters.asJava(details.parts())))
+                .toList();
+    }
+}
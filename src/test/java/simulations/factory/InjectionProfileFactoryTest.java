@@ -0,0 +1,100 @@
+package simulations.factory;
+
+import io.gatling.core.controller.inject.open.AtOnceOpenInjection;
+import io.gatling.core.controller.inject.open.OpenInjectionStep;
+import io.gatling.core.controller.inject.open.RampOpenInjection;
+import org.junit.jupiter.api.Test;
+import simulations.config.TestConfig;
+import simulations.distributed.WorkerShard;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InjectionProfileFactoryTest {
+
+    @Test
+    void repeatsAStepAsManyTimesAsConfigured() {
+        List<OpenInjectionStep> steps = scala(InjectionProfileFactory.openSteps(List.of(
+                step("atOnce", 5, null, null, null, null, 3),
+                step("ramp", 10, null, null, null, 20, null))));
+
+        assertEquals(4, steps.size());
+        for (int i = 0; i < 3; i++) {
+            assertInstanceOf(AtOnceOpenInjection.class, steps.get(i));
+            assertEquals(5, steps.get(i).users());
+        }
+        assertInstanceOf(RampOpenInjection.class, steps.get(3));
+        assertEquals(10, steps.get(3).users());
+        assertEquals(20_000, steps.get(3).duration().toMillis());
+    }
+
+    @Test
+    void aStandaloneRunKeepsTheWholeStep() {
+        TestConfig.InjectionStep step = step("constant", null, 12.0, null, null, 60, null);
+
+        assertSame(step, InjectionProfileFactory.slice(step, new WorkerShard(0, 1, null, null), false));
+    }
+
+    @Test
+    void dealsWholeUsersSoTheSlicesAddUpToTheStep() {
+        TestConfig.InjectionStep step = step("atOnce", 10, null, null, null, null, null);
+
+        List<Integer> users = slices(step, 3, false).stream().map(TestConfig.InjectionStep::users).toList();
+
+        assertEquals(List.of(4, 3, 3), users);
+    }
+
+    @Test
+    void dividesRatesEvenly() {
+        TestConfig.InjectionStep step = step("ramp", null, null, 2.0, 30.0, 60, null);
+
+        for (TestConfig.InjectionStep slice : slices(step, 4, false)) {
+            assertEquals(0.5, slice.from());
+            assertEquals(7.5, slice.to());
+            assertEquals(60, slice.duration());
+        }
+    }
+
+    @Test
+    void dealsClosedLevelsAsWholeUsers() {
+        TestConfig.InjectionStep step = step("ramp", null, null, 1.0, 5.0, 60, null);
+
+        List<TestConfig.InjectionStep> slices = slices(step, 2, true);
+
+        assertEquals(List.of(1.0, 0.0), slices.stream().map(TestConfig.InjectionStep::from).toList());
+        assertEquals(List.of(3.0, 2.0), slices.stream().map(TestConfig.InjectionStep::to).toList());
+    }
+
+    @Test
+    void aWorkerWithoutAShareInjectsNoUsers() {
+        TestConfig.InjectionStep atOnce = step("atOnce", 1, null, null, null, null, null);
+        TestConfig.InjectionStep ramp = step("ramp", 1, null, null, null, 10, null);
+
+        List<OpenInjectionStep> steps = scala(InjectionProfileFactory.openSteps(List.of(
+                InjectionProfileFactory.slice(atOnce, new WorkerShard(1, 2, null, null), false),
+                InjectionProfileFactory.slice(ramp, new WorkerShard(1, 2, null, null), false))));
+
+        assertEquals(2, steps.size());
+        assertEquals(0, steps.get(0).users());
+        assertEquals(0, steps.get(1).users());
+        assertEquals(10_000, steps.get(1).duration().toMillis());
+    }
+
+    private static List<TestConfig.InjectionStep> slices(TestConfig.InjectionStep step, int workers, boolean closed) {
+        return IntStream.range(0, workers)
+                .mapToObj(index -> InjectionProfileFactory.slice(step, new WorkerShard(index, workers, null, null), closed))
+                .toList();
+    }
+
+    private static TestConfig.InjectionStep step(String type, Integer users, Double rate, Double from, Double to,
+                                                 Integer duration, Integer repeat) {
+        return new TestConfig.InjectionStep(type, users, rate, from, to, duration, null, null, null, null, repeat);
+    }
+
+    // The Scala steps behind the Java DSL expose their users and duration
+    private static List<OpenInjectionStep> scala(List<io.gatling.javaapi.core.OpenInjectionStep> steps) {
+        return steps.stream().map(io.gatling.javaapi.core.OpenInjectionStep::asScala).toList();
+    }
+}
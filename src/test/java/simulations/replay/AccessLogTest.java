@@ -0,0 +1,74 @@
+package simulations.replay;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import simulations.config.TestConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AccessLogTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void templateReplacesTheKeyAfterTheResource() {
+        assertEquals("/pokemon/{id}", AccessLog.template("/pokemon/25"));
+        assertEquals("/pokemon/{id}", AccessLog.template("/pokemon/pikachu/"));
+        assertEquals("/pokemon/{id}/encounters", AccessLog.template("/pokemon/25/encounters"));
+    }
+
+    @Test
+    void templateDropsTheQueryAndATrailingSlash() {
+        assertEquals("/pokemon", AccessLog.template("/pokemon?limit=20&offset=40"));
+        assertEquals("/pokemon", AccessLog.template("/pokemon/"));
+        assertEquals("/pokemon/{id}", AccessLog.template("/pokemon/25?fields=name"));
+        assertEquals("/", AccessLog.template("/"));
+    }
+
+    @Test
+    void servedLinesExpectAFreshResponse() {
+        assertEquals(200, AccessLog.expectedStatus(200));
+        assertEquals(200, AccessLog.expectedStatus(206));
+        assertEquals(200, AccessLog.expectedStatus(304));
+    }
+
+    @Test
+    void clientErrorsAreExpectedAgainButServerErrorsAreNot() {
+        assertEquals(404, AccessLog.expectedStatus(404));
+        assertEquals(429, AccessLog.expectedStatus(429));
+        // Logged by nginx when the client went away, not an answer of the target
+        assertEquals(200, AccessLog.expectedStatus(499));
+        assertEquals(200, AccessLog.expectedStatus(500));
+        assertEquals(200, AccessLog.expectedStatus(503));
+    }
+
+    @Test
+    void profileCountsImpossibleDatesAsUnparsable() throws IOException {
+        Path log = directory.resolve("access.log");
+        Files.write(log, List.of(
+                line("30/Apr/2024:10:00:00 +0000", "/api/v2/pokemon/25", 200),
+                line("31/Apr/2024:10:00:00 +0000", "/api/v2/pokemon/25", 200),
+                line("29/Feb/2023:10:00:00 +0000", "/api/v2/pokemon/25", 200),
+                line("30/Apr/2024:10:00:01 +0000", "/api/v2/pokemon/6", 200),
+                line("30/Apr/2024:10:00:01 +0000", "/api/v2/pokemon?limit=20", 200)));
+
+        AccessLog.Profile profile = AccessLog.open(new TestConfig.ReplayConfig(log.toString(), null, "/api/v2", null, null, null))
+                .profile();
+
+        assertEquals(3, profile.events());
+        assertEquals(2, profile.unparsable());
+        assertArrayEquals(new int[]{1, 2}, profile.perSecond());
+        assertEquals(Map.of("GET /pokemon/{id}", 2L, "GET /pokemon", 1L), profile.requests());
+    }
+
+    private static String line(String time, String path, int status) {
+        return "127.0.0.1 - - [" + time + "] \"GET " + path + " HTTP/1.1\" " + status + " 512 \"-\" \"curl/8.0\"";
+    }
+}
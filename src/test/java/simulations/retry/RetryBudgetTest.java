@@ -0,0 +1,53 @@
+package simulations.retry;
+
+import org.junit.jupiter.api.Test;
+import simulations.config.TestConfig;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RetryBudgetTest {
+
+    @Test
+    void allowsRetriesInProportionToRequests() {
+        RetryBudget budget = new RetryBudget(new TestConfig.RetryBudget(0.5, 0, 10));
+        for (int i = 0; i < 4; i++) {
+            budget.deposit();
+        }
+
+        assertTrue(budget.withdraw());
+        assertTrue(budget.withdraw());
+        assertFalse(budget.withdraw());
+    }
+
+    @Test
+    void newRequestsMakeRoomForMoreRetries() {
+        RetryBudget budget = new RetryBudget(new TestConfig.RetryBudget(0.5, 0, 10));
+        budget.deposit();
+        budget.deposit();
+        assertTrue(budget.withdraw());
+        assertFalse(budget.withdraw());
+
+        budget.deposit();
+        budget.deposit();
+
+        assertTrue(budget.withdraw());
+    }
+
+    @Test
+    void allowsTheMinimumPerSecondWithoutRequests() {
+        // Two seconds at one retry per second, however the calls fall on second boundaries
+        RetryBudget budget = new RetryBudget(new TestConfig.RetryBudget(0.0, 1, 2));
+
+        assertTrue(budget.withdraw());
+        assertTrue(budget.withdraw());
+        assertFalse(budget.withdraw());
+    }
+
+    @Test
+    void deniesEveryRetryWithoutRatioOrMinimum() {
+        RetryBudget budget = new RetryBudget(new TestConfig.RetryBudget(0.0, 0, 10));
+        budget.deposit();
+
+        assertFalse(budget.withdraw());
+    }
+}
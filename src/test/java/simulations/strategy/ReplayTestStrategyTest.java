@@ -0,0 +1,72 @@
+package simulations.strategy;
+
+import io.gatling.core.controller.inject.open.AtOnceOpenInjection;
+import io.gatling.core.controller.inject.open.NothingForOpenInjection;
+import io.gatling.core.controller.inject.open.OpenInjectionStep;
+import io.gatling.core.controller.inject.open.RampOpenInjection;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReplayTestStrategyTest {
+
+    @Test
+    void mergesRunsOfEqualSecondsIntoOneStep() {
+        List<OpenInjectionStep> steps = scala(ReplayTestStrategy.steps(new int[]{2, 2, 2, 0, 0, 5}, 1));
+
+        assertEquals(3, steps.size());
+        assertRamp(steps.get(0), 6, 3000);
+        assertNothing(steps.get(1), 2000);
+        assertRamp(steps.get(2), 5, 1000);
+    }
+
+    @Test
+    void compressesTheLogBySpeed() {
+        List<OpenInjectionStep> steps = scala(ReplayTestStrategy.steps(new int[]{4, 4, 4, 4}, 2));
+
+        assertEquals(1, steps.size());
+        assertRamp(steps.get(0), 16, 2000);
+    }
+
+    @Test
+    void startsTheRequestsOfASecondTooShortToRampTogether() {
+        List<OpenInjectionStep> steps = scala(ReplayTestStrategy.steps(new int[]{3, 3}, 4));
+
+        assertEquals(4, steps.size());
+        for (int i = 0; i < steps.size(); i += 2) {
+            assertInstanceOf(AtOnceOpenInjection.class, steps.get(i));
+            assertEquals(3, steps.get(i).users());
+            assertNothing(steps.get(i + 1), 250);
+        }
+    }
+
+    @Test
+    void injectsEveryLoggedRequest() {
+        int[] perSecond = {1, 0, 7, 7, 3, 0, 0, 0, 12, 1};
+        List<OpenInjectionStep> steps = scala(ReplayTestStrategy.steps(perSecond, 1.5));
+
+        long users = steps.stream().mapToLong(OpenInjectionStep::users).sum();
+        long duration = steps.stream().mapToLong(step -> step.duration().toMillis()).sum();
+        assertEquals(31, users);
+        // Each step rounds its duration to whole nanoseconds, and toMillis truncates
+        assertEquals(perSecond.length * 1000 / 1.5, duration, perSecond.length);
+    }
+
+    private static void assertRamp(OpenInjectionStep step, long users, long millis) {
+        assertInstanceOf(RampOpenInjection.class, step);
+        assertEquals(users, step.users());
+        assertEquals(millis, step.duration().toMillis());
+    }
+
+    private static void assertNothing(OpenInjectionStep step, long millis) {
+        assertInstanceOf(NothingForOpenInjection.class, step);
+        assertEquals(millis, step.duration().toMillis());
+    }
+
+    // The Scala steps behind the Java DSL expose their users and duration
+    private static List<OpenInjectionStep> scala(List<io.gatling.javaapi.core.OpenInjectionStep> steps) {
+        return steps.stream().map(io.gatling.javaapi.core.OpenInjectionStep::asScala).toList();
+    }
+}
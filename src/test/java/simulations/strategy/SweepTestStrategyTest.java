@@ -0,0 +1,60 @@
+package simulations.strategy;
+
+import org.junit.jupiter.api.Test;
+import simulations.config.TestConfig;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SweepTestStrategyTest {
+
+    @Test
+    void dealsWholeUsersInProportion() {
+        Map<String, Integer> dealt = SweepTestStrategy.deal(12, weights(3, 1), 4);
+
+        assertEquals(Map.of("a", 9, "b", 3), dealt);
+    }
+
+    @Test
+    void givesTheRemainderToTheLargestFractions() {
+        // 5.25 and 1.75: the one user left over goes to b
+        Map<String, Integer> dealt = SweepTestStrategy.deal(7, weights(3, 1), 4);
+
+        assertEquals(Map.of("a", 5, "b", 2), dealt);
+    }
+
+    @Test
+    void dealsEveryUserWhenTheWeightsAreEqual() {
+        Map<String, Integer> dealt = SweepTestStrategy.deal(10, weights(1, 1, 1), 3);
+
+        assertEquals(10, dealt.values().stream().mapToInt(Integer::intValue).sum());
+        assertTrue(dealt.values().stream().allMatch(users -> users == 3 || users == 4));
+    }
+
+    @Test
+    void leavesAScenarioEmptyWhenThereAreTooFewUsers() {
+        Map<String, Integer> dealt = SweepTestStrategy.deal(1, weights(3, 1), 4);
+
+        assertEquals(Map.of("a", 1, "b", 0), dealt);
+    }
+
+    @Test
+    void peakLevelIsTheHighestLevelOfAnyStep() {
+        TestConfig.LoadPattern pattern = new TestConfig.LoadPattern(null, null, List.of(
+                new TestConfig.InjectionStep("ramp", null, null, 1.0, 20.0, 10, null, null, null, null, null),
+                new TestConfig.InjectionStep("stairs", null, null, 5.0, null, 10, 10.0, 3, null, null, null)));
+
+        assertEquals(35, SweepTestStrategy.peakLevel(pattern));
+    }
+
+    private static Map<String, Double> weights(double... values) {
+        Map<String, Double> weights = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            weights.put(String.valueOf((char) ('a' + i)), values[i]);
+        }
+        return weights;
+    }
+}
@@ -0,0 +1,77 @@
+package simulations.sweep;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UslModelTest {
+
+    private static final double[] CONCURRENCY = {1, 2, 4, 8, 16, 32};
+
+    @Test
+    void recoversTheCoefficientsOfExactMeasurements() {
+        UslModel model = UslModel.fit(measure(10, 0.05, 0.001));
+
+        assertEquals(10, model.lambda(), 1e-6);
+        assertEquals(0.05, model.sigma(), 1e-6);
+        assertEquals(0.001, model.kappa(), 1e-6);
+        assertEquals(1, model.rSquared(), 1e-9);
+        assertEquals(CONCURRENCY.length, model.points());
+        assertEquals(Math.sqrt(0.95 / 0.001), model.peakConcurrency(), 1e-3);
+        assertEquals(model.throughput(model.peakConcurrency()), model.saturationThroughput(), 1e-9);
+    }
+
+    @Test
+    void holdsANegativeCoefficientAtZero() {
+        // Contention only, with a last point better than the law allows, which a free fit answers
+        // with negative coherency
+        List<double[]> measurements = measure(10, 0.2, 0);
+        measurements.get(measurements.size() - 1)[1] *= 1.15;
+
+        UslModel model = UslModel.fit(measurements);
+
+        assertEquals(0, model.kappa());
+        assertTrue(model.sigma() > 0);
+        assertTrue(model.lambda() > 0);
+        assertNull(model.peakConcurrency());
+        assertEquals(model.lambda() / model.sigma(), model.saturationThroughput(), 1e-9);
+    }
+
+    @Test
+    void hasNoSaturationWhileThroughputScalesLinearly() {
+        UslModel model = UslModel.fit(measure(10, 0, 0));
+
+        assertEquals(10, model.lambda(), 1e-6);
+        assertEquals(0, model.sigma(), 1e-9);
+        assertEquals(0, model.kappa(), 1e-9);
+        assertNull(model.peakConcurrency());
+        assertNull(model.saturationThroughput());
+    }
+
+    @Test
+    void fitsASinglePointWithoutGoodnessOfFit() {
+        UslModel model = UslModel.fit(List.of(new double[]{4, 20}));
+
+        assertEquals(5, model.lambda(), 1e-9);
+        assertNull(model.rSquared());
+        assertEquals(1, model.points());
+    }
+
+    @Test
+    void ignoresPointsWithoutThroughput() {
+        assertNull(UslModel.fit(List.of()));
+        assertNull(UslModel.fit(List.of(new double[]{4, 0}, new double[]{0, 10})));
+    }
+
+    private static List<double[]> measure(double lambda, double sigma, double kappa) {
+        UslModel law = new UslModel(lambda, sigma, kappa, null, 0);
+        List<double[]> measurements = new ArrayList<>();
+        for (double concurrency : CONCURRENCY) {
+            measurements.add(new double[]{concurrency, law.throughput(concurrency)});
+        }
+        return measurements;
+    }
+}